@@ -0,0 +1,82 @@
+package info.danbecker.colorcalc;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The ColorScanKernel distance loops written with the incubating jdk.incubator.vector API.
+ * <p>
+ * This source root is compiled only by the vector build profile, on JDK 17 and later,
+ * and the class is loaded only by ColorScanKernel.of, so the rest of the project
+ * neither needs nor links the incubator module. Run with
+ * "--add-modules jdk.incubator.vector" to use it, otherwise the scalar loops of ColorScanKernel are used.
+ * <p>
+ * Lanes apply the scalar operations in the same order with no fused multiply add,
+ * so results are bit for bit those of ColorScanKernel. The positions past the
+ * last full vector run the scalar arithmetic.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorScanVectorKernel extends ColorScanKernel {
+
+	protected static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+	protected static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+	public ColorScanVectorKernel(int[] rgbs, ColorDistance dist) {
+		super(rgbs, dist);
+	}
+
+	@Override
+	protected void squaredDistances(int rgb, int lo, int hi, int[] squares) {
+		int red = (rgb >> 16) & 0xFF;
+		int green = (rgb >> 8) & 0xFF;
+		int blue = rgb & 0xFF;
+		IntVector redQuery = IntVector.broadcast(INTS, red);
+		IntVector greenQuery = IntVector.broadcast(INTS, green);
+		IntVector blueQuery = IntVector.broadcast(INTS, blue);
+		int i = lo;
+		for (int upper = lo + INTS.loopBound(hi - lo); i < upper; i += INTS.length()) {
+			IntVector ΔR = redQuery.sub(IntVector.fromArray(INTS, reds, i));
+			IntVector ΔG = greenQuery.sub(IntVector.fromArray(INTS, greens, i));
+			IntVector ΔB = blueQuery.sub(IntVector.fromArray(INTS, blues, i));
+			ΔR.mul(ΔR).add(ΔG.mul(ΔG)).add(ΔB.mul(ΔB)).intoArray(squares, i - lo);
+		}
+		for (; i < hi; i++) {
+			int ΔR = red - reds[i];
+			int ΔG = green - greens[i];
+			int ΔB = blue - blues[i];
+			squares[i - lo] = ΔR * ΔR + ΔG * ΔG + ΔB * ΔB;
+		}
+	}
+
+	@Override
+	protected void weightedDistances(int rgb, int lo, int hi, double[] comparables) {
+		double red = (rgb >> 16) & 0xFF;
+		double green = (rgb >> 8) & 0xFF;
+		double blue = rgb & 0xFF;
+		DoubleVector redQuery = DoubleVector.broadcast(DOUBLES, red);
+		DoubleVector greenQuery = DoubleVector.broadcast(DOUBLES, green);
+		DoubleVector blueQuery = DoubleVector.broadcast(DOUBLES, blue);
+		DoubleVector max = DoubleVector.broadcast(DOUBLES, 255.0);
+		int i = lo;
+		for (int upper = lo + DOUBLES.loopBound(hi - lo); i < upper; i += DOUBLES.length()) {
+			DoubleVector lanes = DoubleVector.fromArray(DOUBLES, redLanes, i);
+			DoubleVector rbar = redQuery.add(lanes).div(2.0);
+			DoubleVector ΔR = redQuery.sub(lanes);
+			DoubleVector ΔG = greenQuery.sub(DoubleVector.fromArray(DOUBLES, greenLanes, i));
+			DoubleVector ΔB = blueQuery.sub(DoubleVector.fromArray(DOUBLES, blueLanes, i));
+			DoubleVector redTerm = rbar.div(256.0).add(2.0).mul(ΔR.mul(ΔR));
+			DoubleVector greenTerm = ΔG.mul(ΔG).mul(4.0);
+			DoubleVector blueTerm = max.sub(rbar).div(256.0).add(2.0).mul(ΔB.mul(ΔB));
+			redTerm.add(greenTerm).add(blueTerm).intoArray(comparables, i - lo);
+		}
+		for (; i < hi; i++) {
+			double rbar = ( red + redLanes[i] ) / 2.0;
+			double ΔR = red - redLanes[i];
+			double ΔG = green - greenLanes[i];
+			double ΔB = blue - blueLanes[i];
+			comparables[i - lo] = (2.0 + rbar/256.0) * (ΔR * ΔR) + 4.0 * (ΔG * ΔG) + (2.0 + (255.0-rbar)/256.0) * (ΔB * ΔB);
+		}
+	}
+}
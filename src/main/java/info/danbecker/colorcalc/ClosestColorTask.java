@@ -0,0 +1,108 @@
+package info.danbecker.colorcalc;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the closest dictionary color for a batch of packed RGB colors on a fork/join pool.
+ * <p>
+ * The batch is split in halves until a range is at most THRESHOLD colors,
+ * each range is answered by the index on one worker. Results go to the
+ * caller's arrays by batch position, so no locking or merging is needed.
+ * Colors present in the dictionary are answered by its exact hash probe.
+ * Indexes are safe for concurrent queries once built.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ClosestColorTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	/** Largest range answered without splitting further. */
+	public static final int THRESHOLD = 1024;
+
+	protected final ColorDictionary dictionary;
+	protected final ColorIndex index;
+	protected final int[] dictionaryRGBs;
+	protected final ColorDistance dist;
+	protected final int[] rgbs;
+	protected final int[] positions;
+	protected final float[] distances;
+	protected final int lo;
+	protected final int hi;
+
+	protected ClosestColorTask(ColorDictionary dictionary, ColorIndex index, int[] dictionaryRGBs, ColorDistance dist,
+			int[] rgbs, int[] positions, float[] distances, int lo, int hi) {
+		this.dictionary = dictionary;
+		this.index = index;
+		this.dictionaryRGBs = dictionaryRGBs;
+		this.dist = dist;
+		this.rgbs = rgbs;
+		this.positions = positions;
+		this.distances = distances;
+		this.lo = lo;
+		this.hi = hi;
+	}
+
+	/**
+	 * Fill positions[i] with the dictionary position closest to rgbs[i].
+	 * @param pool fork/join pool to run on
+	 * @param index built index over dictionaryRGBs
+	 * @param dictionaryRGBs packed RGB dictionary colors by position
+	 * @param dist distance algorithm for the distances, may be null when distances is null
+	 * @param rgbs packed RGB colors to match
+	 * @param positions receives dictionary positions, -1 for an empty dictionary, at least rgbs.length long
+	 * @param distances receives distances to the closest colors, NaN for none, may be null
+	 */
+	public static void invoke(ForkJoinPool pool, ColorIndex index, int[] dictionaryRGBs, ColorDistance dist,
+			int[] rgbs, int[] positions, float[] distances) {
+		invoke(pool, null, index, dictionaryRGBs, dist, rgbs, positions, distances);
+	}
+
+	/**
+	 * Fill positions[i] with the dictionary position closest to rgbs[i],
+	 * probing the dictionary for an exact color before searching the index.
+	 * @param pool fork/join pool to run on
+	 * @param dictionary dictionary probed for exact colors, may be null for no probe
+	 * @param index built index over dictionaryRGBs
+	 * @param dictionaryRGBs packed RGB dictionary colors by position
+	 * @param dist distance algorithm for the distances, may be null when distances is null
+	 * @param rgbs packed RGB colors to match
+	 * @param positions receives dictionary positions, -1 for an empty dictionary, at least rgbs.length long
+	 * @param distances receives distances to the closest colors, NaN for none, may be null
+	 */
+	public static void invoke(ForkJoinPool pool, ColorDictionary dictionary, ColorIndex index, int[] dictionaryRGBs, ColorDistance dist,
+			int[] rgbs, int[] positions, float[] distances) {
+		if (null == pool || null == index || null == dictionaryRGBs || null == rgbs || null == positions)
+			throw new IllegalArgumentException("pool, index, dictionary, colors, and positions must not be null");
+		if (positions.length < rgbs.length || (null != distances && distances.length < rgbs.length))
+			throw new IllegalArgumentException("positions and distances must hold " + rgbs.length + " entries");
+		if (null != distances && null == dist)
+			throw new IllegalArgumentException("distance must not be null when distances are wanted");
+		pool.invoke(new ClosestColorTask(dictionary, index, dictionaryRGBs, dist, rgbs, positions, distances, 0, rgbs.length));
+	}
+
+	@Override
+	protected void compute() {
+		if (hi - lo <= THRESHOLD) {
+			for (int i = lo; i < hi; i++) {
+				int position = null == dictionary ? -1 : dictionary.probe(rgbs[i]);
+				if (-1 != position) {
+					positions[i] = position;
+					if (null != distances)
+						distances[i] = 0.0f;
+					continue;
+				}
+				position = index.closest(rgbs[i]);
+				positions[i] = position;
+				if (null != distances) {
+					distances[i] = -1 == position ? Float.NaN
+							: (float) dist.distance(rgbs[i], dictionaryRGBs[position]);
+				}
+			}
+		} else {
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new ClosestColorTask(dictionary, index, dictionaryRGBs, dist, rgbs, positions, distances, lo, mid),
+					new ClosestColorTask(dictionary, index, dictionaryRGBs, dist, rgbs, positions, distances, mid, hi));
+		}
+	}
+}
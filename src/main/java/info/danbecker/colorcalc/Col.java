@@ -11,6 +11,11 @@ public enum Col {
 	H( "Hue", "h" ),
 	S( "Sat", "s" ),
 	L( "Lum", "l" );
+
+	/** Column prefix for values of the matching dictionary color. */
+	public static final String DICT = "Dict";
+	/** Column prefix for values of all dictionary colors within the radius. */
+	public static final String WITHIN = "Within";
 	
 	String name;
 	String abbreviation;
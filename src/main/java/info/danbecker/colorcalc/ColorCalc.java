@@ -5,16 +5,21 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import java.awt.Color;
@@ -36,9 +41,18 @@ import org.apache.commons.cli.ParseException;
  * <pre>
  * Example command line "java ColorCalc -i file1.txt,C:\\Users\\dan\\file2.txt -o output.txt"
  * -i BasicTones.txt,BasicGrays.txt
+ * -pi
  * -o output.txt
  * -d BasicSats.txt
  * -dist RGBWeighted
+ * -x KDTree
+ * -dc BasicSats.ccd
+ * -w 10.0
+ * -ht hsl.cht
+ * -pd 3.0
+ * -pf pairs.txt
+ * -pg tone10..90/20,shade50,sat50
+ * -pgf palette.txt
  * -c Name,RGB,HSL,S,Dict-Name,Dict-RGB,Dict-HSL
  * -s Dict-H--,Name
  * -t
@@ -54,8 +68,9 @@ import org.apache.commons.cli.ParseException;
  * The sort will sort colors by dictionary hues (descending) and color name (ascending).
  * The low saturation colors (S<<013) are grouped to the end.
  * <P>
- * TODO
- * Multiple input files with different column positioning will fail.
+ * Input files are read concurrently, one task per file, and merged in the given order.
+ * Each input file and each text dictionary file starts with its own header line,
+ * so files may order their columns differently.
  * 
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
@@ -65,15 +80,26 @@ public class ColorCalc {
 
     public static final String CMD_DELIM = "\\s*,\\s*"; // 0* whitespace, comma, 0* whitespace
 	public static final String NL = System.getProperty("line.separator");
-	// Delimit data by two or more white space, tabs, commons.
+	// Delimit data by two or more white space, tabs, commons. Applied by LineTokenizer.
 	public static final String WORD_DELIM = "[\\s]{2,}|\t|,";
 	public static final String PREFIX_DELIM = "-";
+	// Joins the names of a pair color, without the delimiters of WORD_DELIM.
+	public static final String PAIR_NAMES_DELIM = "; ";
     
 	// input options
     protected static String[] ins;
+    protected static boolean parallelIns;
     protected static String out;
     protected static String[] dicts;
     protected static ColorDistance dist = new ColorDistanceRGBEuclidean();
+    protected static String indexName = "KDTree";
+    protected static String dictCompileName;
+    protected static double radius = 10.0;
+    protected static String hslTableName;
+    protected static double pairDistance = -1.0; // negative for a full distance matrix
+    protected static String pairFileName;
+    protected static String[] paletteSteps;
+    protected static String paletteFileName = "palette.txt";
     protected static String[] sorts;
     protected static String[] groups;
     protected static String[] cols;
@@ -86,11 +112,13 @@ public class ColorCalc {
     protected static int vDelay = 0;
 
     // program data
-    protected static Map<Color,List<String>> dictionaryNames = new HashMap<>(); 
+    protected static ColorDictionary dictionary = new ColorDictionary(); 
+    protected static Path lookupTablePath;
+    protected static HSLTable hslTable;
     protected static String[] headers;
     protected static String[] dictionaryHeaders;
     protected static BufferedWriter writer;
-    protected static List<String[]> outputData = new LinkedList<>(); 
+    protected static RowStore outputData;
 
 	public static void main(String [] args) throws Exception {
 		LOGGER.info("ColorCalc args=" + Arrays.toString(args));
@@ -113,73 +141,67 @@ public class ColorCalc {
 		if ( null != dicts) {
 			for ( String dict: dicts) {
 				LOGGER.info( "dictionary=" + Path.of(dict).toAbsolutePath().toString()); // Path.of preferred to Paths.get
-				try (Stream<String> stream = Files.lines(Path.of(dict).toAbsolutePath())) {
-					stream.forEach(line-> {
-						addToDictionary( dictionaryNames, dictionaryHeaders, line);
-					});
+				if ( ColorDictionaryFile.isCompiled( Path.of(dict).toAbsolutePath() )) {
+					// Compiled dictionary, keeps its prebuilt index when it is the only one loaded.
+					ColorDictionary compiled = ColorDictionaryFile.read( Path.of(dict).toAbsolutePath(), dist );
+					if ( 0 == dictionary.size() ) {
+						dictionary = compiled;
+					} else {
+						dictionary.addAll( compiled );
+					}
+				} else {
+					// Each dictionary file starts with its own header line.
+					dictionaryHeaders = null;
+					try (Stream<String> stream = Files.lines(Path.of(dict).toAbsolutePath())) {
+						stream.forEach(line-> {
+							addToDictionary( dictionary, dictionaryHeaders, line);
+						});
+					}
 				}
-				LOGGER.info( "dictionary size=" + dictionaryNames.size());
+				LOGGER.info( "dictionary size=" + dictionary.size());
+			}
+			dictionary.trim();
+			// Build search index once, after all dictionaries are loaded.
+			// A lookup table is kept next to the first dictionary.
+			lookupTablePath = Path.of( dicts[ 0 ] + ColorIndexLUT.SUFFIX ).toAbsolutePath();
+			buildDictionaryIndex( dictionary, indexName );
+			if ( null != dictCompileName ) {
+				ColorDictionaryFile.write( Path.of( dictCompileName ).toAbsolutePath(), dictionary );
 			}
 		}
 		
-		// Iterate over given input files.
-		final int[] inputLineCount = new int[] {0}; // Use final for anonymous scope.
-		if ( null != ins ) {
-			for ( String in: ins) {
-				LOGGER.info( "input=" + Path.of(in).toAbsolutePath().toString()); // Path.of preferred to Paths.get
-				try (Stream<String> stream = Files.lines(Path.of(in).toAbsolutePath())) {
-					stream.forEach(line-> {
-						try {
-							String lineNoWhiteSpace = String.valueOf( line );
-							lineNoWhiteSpace.replaceAll("\\s+","");
-							if (( line.length() < 1) || (lineNoWhiteSpace.length() < 1 )) {
-								// Ignore white space lines
-							} else if ( line.startsWith("#") || line.startsWith( "//" )) {
-								LOGGER.debug("comment=" + line);
-								if (!table) {
-									writer.write( line + NL);
-									if ( 0 == inputLineCount[0] ) {
-										writer.write( "# " + comment + NL);
-									}
-								} else {
-									if ( 0 == inputLineCount[0] ) {
-										HTMLUtils.start( writer, line );
-										if ( null != comment ) {
-											HTMLUtils.comment(writer, comment);											
-										}
-									} else {
-										HTMLUtils.comment(writer, line);
-									}
-								}
-							} else {
-								// Process line
-								@SuppressWarnings("resource")
-								Scanner scanner = new Scanner(line).useDelimiter(WORD_DELIM);
-								if ( null == headers ) {
-									headers = scanner.tokens().toArray(String[]::new);
-									LOGGER.info("header=" + Arrays.toString(headers));
-								} else {
-									// data line
-									String [] data = scanner.tokens().toArray(String[]::new);
-									if ( -1 != arrayPosition( data, "Name") || -1 != arrayPosition( data, "RGB" ) ) {
-										// This is likely a subsequent "header" line in input file 2..n
-										LOGGER.debug("discarded data=" + Arrays.toString(data));
-									} else {
-										LOGGER.debug("data=" + Arrays.toString(data));
-										populateOutputData(outputData, dictionaryNames, cols, headers, dictionaryHeaders, data);										
-									}
-								}
-								scanner.close();
-							}
-							inputLineCount[0]++;
-						} catch( IOException e) {
-							LOGGER.error( "write exception", e);
-						}
-					});
-				}
+		// Generate a palette of the dictionary colors.
+		if ( null != paletteSteps ) {
+			PaletteGenerator.write( Path.of( paletteFileName ).toAbsolutePath(), dictionary, PaletteGenerator.parseSteps( paletteSteps ));
+		}
+
+		// Map the precomputed HSL of all colors, building it on first use.
+		if ( null != hslTableName ) {
+			try {
+				hslTable = HSLTable.open( Path.of( hslTableName ).toAbsolutePath() );
+			} catch ( IOException e ) {
+				LOGGER.error( "hsl table=" + hslTableName + " failed, converting each color", e );
 			}
 		}
+
+		// Read the input files concurrently, merged in the given order.
+		outputData = new RowStore( cols, dictionary );
+		if ( null != ins ) {
+			readInputs( ins );
+		}
 		
+		if ( null != dicts ) {
+			LOGGER.info( "dictionary lookups=" + DictionaryMatch.getLookups() + ", lookups saved=" + DictionaryMatch.getLookupsSaved() );
+			LOGGER.info( "dictionary exact hits=" + dictionary.getExactHits() + ", exact misses=" + dictionary.getExactMisses() );
+			ColorIndex index = dictionary.getIndex();
+			if ( null != index && index.getQueryCount() > 0 ) {
+				LOGGER.info( "index=" + index.getClass().getSimpleName() + ", queries=" + index.getQueryCount() 
+					+ ", distance evaluations=" + index.getDistanceCount()
+					+ String.format( ", per query=%.1f", (double) index.getDistanceCount() / index.getQueryCount() ) 
+					+ ", linear scan per query=" + index.size() );
+			}
+		}
+
 		// Sort output data
 		if ( null != sorts ) {
 			sortData( outputData, new ColorFieldComparator( cols, sorts ) );
@@ -189,6 +211,11 @@ public class ColorCalc {
 			sortData( outputData, new GroupComparator( cols, groups ) );
 		}
 
+		// Compare all pairs, after sorting so pair positions follow the output rows.
+		if ( pairDistance >= 0.0 || null != pairFileName ) {
+			writePairs( outputData, cols, dictionary, pairDistance, pairFileName );
+		}
+
 		// Draw a pretty picture
 		if ( null != plotName ) {
 			PlotRenderer.writeImage( PlotRenderer.renderImage( new Dimension( 800, 800 ), outputData, cols ), plotName );
@@ -221,7 +248,16 @@ public class ColorCalc {
         options.addOption("h", "help", false, "print the command line options");
         options.addOption("i", "ins", true, "list of comma-separated input files");
         options.addOption("d", "dicts", true, "list of comma-separated dictionary files for comparisons");
-        options.addOption("dist", "dist", true, "algorithm used for color distance (default=RGBEuclidean)");
+        options.addOption("dist", "dist", true, "algorithm used for color distance RGBEuclidean, RGBWeighted, CIE76, CIE94, or CIEDE2000 (default=RGBEuclidean)");
+        options.addOption("x", "index", true, "dictionary search index KDTree, VPTree, LUT, or None for linear scan (default=KDTree)");
+        options.addOption("dc", "dictcompile", true, "write the loaded dictionaries and index to the given compiled dictionary file, usable with -d");
+        options.addOption("w", "within", true, "distance radius of the Within- columns, all dictionary colors within this distance (default=10.0)");
+        options.addOption("ht", "hsltable", true, "precomputed HSL of all colors in the given memory mapped file, built when missing");
+        options.addOption("pd", "pairdist", true, "compare all pairs of output colors (or dictionary colors without inputs), list the pairs within this distance");
+        options.addOption("pf", "pairfile", true, "all pairs output file, the pair list with -pd, otherwise a float distance matrix");
+        options.addOption("pg", "palette", true, "generate a palette of the dictionary colors with comma-separated steps such as tone50,shade10..90/20 (hue, sat, lum, shade, tone)");
+        options.addOption("pgf", "palettefile", true, "palette output file, a compiled dictionary when ending with .ccd (default=palette.txt)");
+        options.addOption("pi", "parallelins", false, "read input files memory mapped, parsing and evaluating chunks in parallel"); // switch option
         options.addOption("o", "out", true, "generated output file with results");
         options.addOption("s", "sorts", true, "column sort fields (followed by + or - for ascending, descending)");
         options.addOption("g", "groups", true, "column sort fields ");
@@ -250,6 +286,10 @@ public class ColorCalc {
             ins = option.split(CMD_DELIM);
             LOGGER.info("ins=" + Arrays.toString( ins ));
         }
+        if (line.hasOption("pi")) {
+            parallelIns = true;
+            LOGGER.info("parallelins=" + parallelIns );
+        }
         if (line.hasOption("o")) {
             out = line.getOptionValue("out");
             LOGGER.info("out=" + out );
@@ -265,11 +305,50 @@ public class ColorCalc {
                 dist = new ColorDistanceRGBEuclidean();
             } else if (option.toLowerCase().startsWith("rgbw")) {
                 dist = new ColorDistanceRGBWeighted();
+            } else if (option.toLowerCase().startsWith("cie76")) {
+                dist = new ColorDistanceCIE76();
+            } else if (option.toLowerCase().startsWith("cie94")) {
+                dist = new ColorDistanceCIE94();
+            } else if (option.toLowerCase().startsWith("ciede2000")) {
+                dist = new ColorDistanceCIEDE2000();
             } else {
                 LOGGER.warn("dist=" + option + ", could not find color distance algorithm" );                
             }
             LOGGER.info("dist=" + option + ", color distance algorithm=" + dist.getClass().getSimpleName() );
         }
+        if (line.hasOption("x")) {
+            indexName = line.getOptionValue("index");
+            LOGGER.info("index=" + indexName );
+        }
+        if (line.hasOption("dc")) {
+            dictCompileName = line.getOptionValue("dictcompile");
+            LOGGER.info("dictcompile=" + dictCompileName );
+        }
+        if (line.hasOption("w")) {
+            radius = Double.parseDouble( line.getOptionValue("within") );
+            LOGGER.info("within=" + radius );
+        }
+        if (line.hasOption("ht")) {
+            hslTableName = line.getOptionValue("hsltable");
+            LOGGER.info("hsltable=" + hslTableName );
+        }
+        if (line.hasOption("pd")) {
+            pairDistance = Double.parseDouble( line.getOptionValue("pairdist") );
+            LOGGER.info("pairdist=" + pairDistance );
+        }
+        if (line.hasOption("pf")) {
+            pairFileName = line.getOptionValue("pairfile");
+            LOGGER.info("pairfile=" + pairFileName );
+        }
+        if (line.hasOption("pg")) {
+            String option = line.getOptionValue("palette");
+            paletteSteps = option.split(CMD_DELIM);
+            LOGGER.info("palette=" + Arrays.toString(paletteSteps) );
+        }
+        if (line.hasOption("pgf")) {
+            paletteFileName = line.getOptionValue("palettefile");
+            LOGGER.info("palettefile=" + paletteFileName );
+        }
         if (line.hasOption("s")) {
             String option = line.getOptionValue("sorts");
             sorts = option.split(CMD_DELIM);
@@ -315,43 +394,221 @@ public class ColorCalc {
         }
 	}
 	
+	/** Add dictionary line as a header or data line. */
+	public static void addToDictionary(ColorDictionary dictionary, String[] localDictionaryHeaders, String line) {
+		String[] data = dictionaryData( line );
+		if ( null != data ) {
+			int colorIndex = arrayPosition( dictionaryHeaders, Col.RGB.getName() );
+			int nameIndex = arrayPosition( dictionaryHeaders, Col.NAME.getName() );
+			if (-1 != colorIndex &&  -1 != nameIndex) {
+				int rgb = ColorUtils.parseRGB( data[ colorIndex ]);
+				String name = data[ nameIndex ];
+				if ( LOGGER.isDebugEnabled() )
+					LOGGER.debug( "dictionary color=" + ColorUtils.toRGB( rgb ) + ", name=" + name );
+				if ( null != dictionary && null != name) {
+					dictionary.add( rgb, name );
+				}
+			}
+		}
+	}
+
 	/** Add dictionary line as a header or data line. */
 	public static void addToDictionary(Map<Color, List<String>> dictionaryNames, String[] localDictionaryHeaders, String line) {
+		String[] data = dictionaryData( line );
+		if ( null != data ) {
+			int colorIndex = arrayPosition( dictionaryHeaders, Col.RGB.getName() );
+			int nameIndex = arrayPosition( dictionaryHeaders, Col.NAME.getName() );
+			if (-1 != colorIndex &&  -1 != nameIndex) {
+				Color color = ColorUtils.toColor( data[ colorIndex ]);
+				String name = data[ nameIndex ];
+				LOGGER.debug( "dictionary color=" + color.toString() + ", name=" + name );
+				if ( null != dictionaryNames && null != name) {
+					List<String> names = dictionaryNames.get(color);
+					if ( null == names ) {
+						names = new LinkedList<>();
+						names.add( name );
+					} else {
+						if ( !names.contains(name)) {
+							names.add( name );
+						}
+					}
+					dictionaryNames.put(color,names);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write an input comment line to the output.
+	 * The first line of the inputs also starts the output with the comment option.
+	 */
+	protected static void inputComment( String line, int inputLineCount ) throws IOException {
+		LOGGER.debug("comment=" + line);
+		if (!table) {
+			writer.write( line + NL);
+			if ( 0 == inputLineCount ) {
+				writer.write( "# " + comment + NL);
+			}
+		} else {
+			if ( 0 == inputLineCount ) {
+				HTMLUtils.start( writer, line );
+				if ( null != comment ) {
+					HTMLUtils.comment(writer, comment);
+				}
+			} else {
+				HTMLUtils.comment(writer, line);
+			}
+		}
+	}
+
+	/**
+	 * Take the fields of an input line after the header line of its file.
+	 * Repeated header lines are discarded.
+	 * @param fileHeaders headers of the file the line is from
+	 * @return true when the fields are a data row
+	 */
+	protected static boolean inputData( String[] fileHeaders, String[] data ) {
+		if ( -1 != arrayPosition( data, "Name") || -1 != arrayPosition( data, "RGB" ) ) {
+			// This is likely a repeated "header" line
+			LOGGER.debug("discarded data=" + Arrays.toString(data));
+			return false;
+		}
+		if ( LOGGER.isDebugEnabled() )
+			LOGGER.debug("data=" + Arrays.toString(data));
+		return true;
+	}
+
+	/**
+	 * Read all input files, one pool task per file, and merge them in the given order.
+	 * Each file has its own header line, so files may order their columns differently.
+	 * Comments go to the output, rows to the outputData store, just as if read one by one.
+	 * @param ins input files
+	 * @return input lines read
+	 */
+	public static int readInputs( String[] ins ) throws IOException {
+		int threads = Math.max( 1, Math.min( ins.length, Runtime.getRuntime().availableProcessors() ));
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try {
+			List<Future<List<InputChunks.Chunk>>> files = new ArrayList<>( ins.length );
+			for ( String in: ins) {
+				Path file = Path.of(in).toAbsolutePath(); // Path.of preferred to Paths.get
+				LOGGER.info( "input=" + file.toString());
+				files.add( executor.submit( () -> parallelIns ? readInputChunks( file, ForkJoinPool.commonPool() ) : readInput( file )));
+			}
+			int inputLineCount = 0;
+			for ( Future<List<InputChunks.Chunk>> file : files ) {
+				for ( InputChunks.Chunk chunk : InputChunks.get( file )) {
+					if ( null == headers && null != chunk.getHeaders() ) {
+						headers = chunk.getHeaders();
+					}
+					for ( int i = 0; i < chunk.getComments().size(); i++ ) {
+						inputComment( chunk.getComments().get( i ), inputLineCount + chunk.getCommentLine( i ));
+					}
+					if ( null != chunk.getStore() ) {
+						outputData.addAll( chunk.getStore() );
+					}
+					inputLineCount += chunk.getLineCount();
+				}
+			}
+			return inputLineCount;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Read an input file line by line. The first line that is neither blank nor a comment
+	 * gives the headers of the file, other lines are evaluated with them.
+	 * @param file input file
+	 * @return the file as one chunk of comments and its store of output rows
+	 */
+	public static List<InputChunks.Chunk> readInput( Path file ) throws IOException {
+		InputChunks.Chunk chunk = new InputChunks.Chunk();
+		chunk.setStore( new RowStore( cols, dictionary ));
+		LineTokenizer tokenizer = new LineTokenizer();
+		// Output columns compiled for the headers of this file.
+		ColumnPlan plan = null;
+		try (Stream<String> stream = Files.lines( file )) {
+			Iterator<String> lines = stream.iterator();
+			while ( lines.hasNext() ) {
+				String line = lines.next();
+				if ( LineTokenizer.isBlank( line )) {
+					// Ignore white space lines
+				} else if ( InputChunks.isComment( line )) {
+					chunk.addComment( line );
+				} else {
+					// Process line
+					tokenizer.tokenize( line );
+					String [] data = tokenizer.tokens();
+					if ( null == plan ) {
+						chunk.setHeaders( data );
+						plan = new ColumnPlan( cols, data, radius, hslTable );
+						LOGGER.info("input=" + file.getFileName() + ", header=" + Arrays.toString(data));
+					} else if ( inputData( chunk.getHeaders(), data )) {
+						plan.append( dictionary, data, chunk.getStore() );
+					}
+				}
+				chunk.addLine();
+			}
+		}
+		return Collections.singletonList( chunk );
+	}
+
+	/**
+	 * Read an input file in memory mapped chunks that are parsed and evaluated in parallel.
+	 * Comments, headers, and output rows come out in file order, as with a sequential read.
+	 * @param file input file
+	 * @param pool pool for parsing and evaluating chunks
+	 * @return chunks of comments and stores of output rows in file order
+	 */
+	public static List<InputChunks.Chunk> readInputChunks( Path file, ForkJoinPool pool ) throws IOException {
+		// Rows are evaluated as chunks are parsed, so the headers are needed up front.
+		String[] fileHeaders = InputChunks.firstRow( file );
+		if ( null == fileHeaders ) {
+			return InputChunks.read( file, pool, InputChunks.CHUNK_SIZE, data -> null );
+		}
+		LOGGER.info("input=" + file.getFileName() + ", header=" + Arrays.toString(fileHeaders));
+		ColumnPlan plan = new ColumnPlan( cols, fileHeaders, radius, hslTable );
+		List<InputChunks.Chunk> chunks = InputChunks.read( file, pool, InputChunks.CHUNK_SIZE,
+			( chunk, data ) -> {
+				if ( inputData( fileHeaders, data )) {
+					// Each chunk is parsed by one thread, which fills its own store.
+					if ( null == chunk.getStore() )
+						chunk.setStore( new RowStore( cols, dictionary ));
+					plan.append( dictionary, data, chunk.getStore() );
+				}
+			});
+		chunks.get( 0 ).setHeaders( fileHeaders );
+		return chunks;
+	}
+
+	/** Dictionary line tokenizer of each loading thread. */
+	protected static final ThreadLocal<LineTokenizer> DICTIONARY_TOKENIZER = ThreadLocal.withInitial( LineTokenizer::new );
+
+	/** 
+	 * Split a dictionary line into data fields.
+	 * The first non-comment line sets the dictionary headers.
+	 * @return data fields, or null for comment, blank, and header lines.
+	 */
+	protected static String[] dictionaryData( String line ) {
+		String[] data = null;
 		if (line.startsWith("#")) {
 			LOGGER.debug("dictionary comment=" + line);
-		} else {
+		} else if (!LineTokenizer.isBlank(line)) {
 			// Process line
-			@SuppressWarnings("resource")
-			Scanner scanner = new Scanner(line).useDelimiter(WORD_DELIM);
+			LineTokenizer tokenizer = DICTIONARY_TOKENIZER.get();
+			tokenizer.tokenize( line );
 			if (null == dictionaryHeaders) {
-				dictionaryHeaders = scanner.tokens().toArray(String[]::new);
+				dictionaryHeaders = tokenizer.tokens();
 				LOGGER.info("dictionary header=" + Arrays.toString(dictionaryHeaders));
 			} else {
 				// data line
-				String[] data = scanner.tokens().toArray(String[]::new);
-				LOGGER.debug( "dictionary data=" + Arrays.toString(data) );
-				int colorIndex = arrayPosition( dictionaryHeaders, Col.RGB.getName() );
-				int nameIndex = arrayPosition( dictionaryHeaders, Col.NAME.getName() );
-				if (-1 != colorIndex &&  -1 != nameIndex) {
-					Color color = ColorUtils.toColor( data[ colorIndex ]);
-					String name = data[ nameIndex ];
-					LOGGER.debug( "dictionary color=" + color.toString() + ", name=" + name );
-					if ( null != dictionaryNames && null != name) {
-						List<String> names = dictionaryNames.get(color);
-						if ( null == names ) {
-							names = new LinkedList<>();
-							names.add( name );
-						} else {
-							if ( !names.contains(name)) {
-								names.add( name );
-							}
-						}
-						dictionaryNames.put(color,names);
-					}
-				}
+				data = tokenizer.tokens();
+				if ( LOGGER.isDebugEnabled() )
+					LOGGER.debug( "dictionary data=" + Arrays.toString(data) );
 			}
-			scanner.close();
 		}
+		return data;
 	}
 	
 	/** Returns position of searchString in strings
@@ -371,6 +628,159 @@ public class ColorCalc {
 		return -1;
 	}
 	
+	/**
+	 * Build a search index over the given dictionary for use by closestColor.
+	 * @param dictionary
+	 * @param indexName name of index such as "KDTree", "VPTree", "LUT", or "None"
+	 * @return index, set on the dictionary
+	 */
+	public static ColorIndex buildDictionaryIndex( ColorDictionary dictionary, String indexName ) {
+		if ( null == dictionary )
+			return null;
+		// Positions in the index are the dictionary positions.
+		int[] rgbs = dictionary.getRGBs();
+		ColorIndex index = null;
+		boolean euclidean = dist instanceof ColorDistanceRGBEuclidean;
+		// Without a triangle bound a metric tree cannot prune, the exact linear scan is cheaper.
+		boolean bounded = !Double.isInfinite( dist.triangleFactor() );
+		// A tree read from a compiled dictionary is used rather than rebuilt.
+		ColorIndex prebuilt = dictionary.getIndex();
+		ColorIndex kdTree = prebuilt instanceof ColorIndexKDTree ? prebuilt : null;
+		ColorIndex vpTree = prebuilt instanceof ColorIndexVPTree 
+			&& ((ColorIndexVPTree) prebuilt).dist.getClass() == dist.getClass() ? prebuilt : null;
+		if ( null == indexName || indexName.toLowerCase().startsWith("none")) {
+			index = new ColorIndexLinear( rgbs, dist );
+		} else if ( indexName.toLowerCase().startsWith("kd")) {
+			if ( euclidean ) {
+				index = null != kdTree ? kdTree : new ColorIndexKDTree( rgbs );
+			} else if ( bounded ) {
+				LOGGER.warn( "index=" + indexName + " requires RGBEuclidean distance, using VPTree" );
+				index = null != vpTree ? vpTree : new ColorIndexVPTree( rgbs, dist );
+			} else {
+				LOGGER.warn( "index=" + indexName + " requires RGBEuclidean distance, " + dist.getClass().getSimpleName() + " has no triangle bound, using linear scan" );
+				index = new ColorIndexLinear( rgbs, dist );
+			}
+		} else if ( indexName.toLowerCase().startsWith("vp")) {
+			if ( bounded ) {
+				index = null != vpTree ? vpTree : new ColorIndexVPTree( rgbs, dist );
+			} else {
+				LOGGER.warn( "index=" + indexName + " requires a triangle bound, " + dist.getClass().getSimpleName() + " has none, using linear scan" );
+				index = new ColorIndexLinear( rgbs, dist );
+			}
+		} else if ( indexName.toLowerCase().startsWith("lut")) {
+			ColorIndex base = euclidean ? ( null != kdTree ? kdTree : new ColorIndexKDTree( rgbs )) 
+				: bounded ? ( null != vpTree ? vpTree : new ColorIndexVPTree( rgbs, dist ))
+				: new ColorIndexLinear( rgbs, dist );
+			if ( null == lookupTablePath ) {
+				LOGGER.warn( "index=" + indexName + " has no lookup table file, using " + base.getClass().getSimpleName() );
+				index = base;
+			} else {
+				try {
+					index = ColorIndexLUT.open( lookupTablePath, rgbs, dist, base );
+				} catch ( IOException e ) {
+					LOGGER.error( "lookup table=" + lookupTablePath + " failed, using " + base.getClass().getSimpleName(), e );
+					index = base;
+				}
+			}
+		} else {
+			LOGGER.warn( "index=" + indexName + ", could not find index algorithm, closest color uses linear scan" );
+			index = new ColorIndexLinear( rgbs, dist );
+		}
+		dictionary.setIndex( index );
+		LOGGER.info( "index=" + index.getClass().getSimpleName() + ", size=" + index.size() );
+		return index;
+	}
+
+	/**
+	 * Return the position of the closest color in the dictionary.
+	 * A color in the dictionary is found by hash probe, others use 
+	 * the dictionary index, or a linear scan when none was built.
+	 * @param dictionary
+	 * @param rgb packed RGB color
+	 * @return dictionary position or -1 for none found.
+	 */
+	public static int closestColor( ColorDictionary dictionary, int rgb ) {
+		if ( null == dictionary || 0 == dictionary.size())
+			return -1;
+		// Exact colors are their own closest, skip the search.
+		int exact = dictionary.probe( rgb );
+		if ( -1 != exact )
+			return exact;
+		ColorIndex index = dictionary.getIndex();
+		if ( null == index ) {
+			index = dictionary.getLinearIndex( dist );
+		}
+		return index.closest( rgb );
+	}
+
+	/**
+	 * Return the positions of the k closest colors in the dictionary, nearest first, in one pass.
+	 * Uses the dictionary index, or a linear scan when none was built.
+	 * @param dictionary
+	 * @param rgb packed RGB color
+	 * @param k number of neighbours wanted
+	 * @param positions receives dictionary positions, must hold k entries
+	 * @return count of positions, fewer than k for small dictionaries.
+	 */
+	public static int closestColors( ColorDictionary dictionary, int rgb, int k, int[] positions ) {
+		if ( null == dictionary || 0 == dictionary.size() || k < 1 )
+			return 0;
+		ColorIndex index = dictionary.getIndex();
+		if ( null == index ) {
+			index = dictionary.getLinearIndex( dist );
+		}
+		return index.closest( rgb, k, positions );
+	}
+
+	/**
+	 * Return the positions of all dictionary colors within the radius of the given color, nearest first.
+	 * Uses the dictionary index to prune, or a linear scan when none was built.
+	 * @param dictionary
+	 * @param rgb packed RGB color
+	 * @param radius largest distance included, in units of the color distance algorithm
+	 * @return dictionary positions, empty for none found.
+	 */
+	public static int[] colorsWithin( ColorDictionary dictionary, int rgb, double radius ) {
+		if ( null == dictionary || 0 == dictionary.size() || !( radius >= 0 ))
+			return new int[ 0 ];
+		ColorIndex index = dictionary.getIndex();
+		if ( null == index ) {
+			index = dictionary.getLinearIndex( dist );
+		}
+		return index.within( rgb, radius );
+	}
+
+	/**
+	 * Find the closest dictionary color of every color in a batch, split across the common fork/join pool.
+	 * Uses the dictionary index, or the linear scan index of the dictionary when none was built.
+	 * @param dictionary
+	 * @param rgbs packed RGB colors
+	 * @param positions receives dictionary positions, -1 for an empty dictionary, at least rgbs.length long
+	 * @param distances receives distances to the closest colors, may be null
+	 */
+	public static void closestColors( ColorDictionary dictionary, int[] rgbs, int[] positions, float[] distances ) {
+		closestColors( ForkJoinPool.commonPool(), dictionary, rgbs, positions, distances );
+	}
+
+	/**
+	 * Find the closest dictionary color of every color in a batch, split across the given fork/join pool.
+	 * @param pool
+	 * @param dictionary
+	 * @param rgbs packed RGB colors
+	 * @param positions receives dictionary positions, -1 for an empty dictionary, at least rgbs.length long
+	 * @param distances receives distances to the closest colors, may be null
+	 */
+	public static void closestColors( ForkJoinPool pool, ColorDictionary dictionary, int[] rgbs, int[] positions, float[] distances ) {
+		if ( null == dictionary || null == rgbs || null == positions )
+			throw new IllegalArgumentException( "dictionary, colors, and positions must not be null" );
+		int[] dictionaryRGBs = dictionary.getRGBs();
+		ColorIndex index = dictionary.getIndex();
+		if ( null == index ) {
+			index = dictionary.getLinearIndex( dist );
+		}
+		ClosestColorTask.invoke( pool, dictionary, index, dictionaryRGBs, dist, rgbs, positions, distances );
+	}
+
 	/**
 	 * Return the closest color in the dictionary.
 	 * @param dictionaryNames
@@ -387,7 +797,8 @@ public class ColorCalc {
 
 		for ( Entry<Color,List<String>> entry: colorEntries) {
 			Color colorEntry = entry.getKey();
-			double distance = dist.distance( color, colorEntry);
+			// Comparable distance, abandoned once it cannot beat the best so far.
+			double distance = dist.comparableDistance( color, colorEntry, minDist );
 			if ( distance < minDist) {
 				minDist = distance;
 				closest = entry;
@@ -396,139 +807,187 @@ public class ColorCalc {
 		return closest;
 	}
 
+	/**
+	 * Return the k closest colors in the dictionary, nearest first, in one pass.
+	 * @param dictionaryNames
+	 * @param color
+	 * @param k number of neighbours wanted
+	 * @return dictionary entries, fewer than k for small dictionaries, empty for none found.
+	 */
+	public static List<Entry<Color,List<String>>> closestColors( Map<Color,List<String>> dictionaryNames, Color color, int k ){
+		List<Entry<Color,List<String>>> closest = new ArrayList<>( Math.max( 0, k ));
+		if ( null == dictionaryNames || null == color || k < 1 || dictionaryNames.isEmpty()) 
+			return closest;
+
+		// Linear scan keeping the k best in a bounded heap.
+		List<Entry<Color,List<String>>> entries = new ArrayList<>( dictionaryNames.entrySet() );
+		NearestHeap heap = new NearestHeap( Math.min( k, entries.size() ));
+		for ( int i = 0; i < entries.size(); i++ ) {
+			heap.offer( dist.comparableDistance( color, entries.get( i ).getKey(), heap.worst() ), i );
+		}
+		int[] positions = new int[ k ];
+		int count = heap.drain( positions, null );
+		for ( int i = 0; i < count; i++ ) {
+			closest.add( entries.get( positions[ i ] ));
+		}
+		return closest;
+	}
+
+	/** 
+	 * Returns the dictionary match rank of a column prefix.
+	 * "Dict" is rank 1, "Dict2" is the second closest and so on.
+	 * @param prefix column prefix such as "Dict" or "Dict3"
+	 * @return rank, or 0 for a non-dictionary prefix
+	 */
+	public static int dictionaryRank( String prefix ) {
+		if ( null == prefix || !prefix.startsWith( Col.DICT )) 
+			return 0;
+		if ( Col.DICT.length() == prefix.length()) 
+			return 1;
+		try {
+			int rank = Integer.parseInt( prefix.substring( Col.DICT.length() ));
+			return rank < 1 ? 0 : rank;
+		} catch ( NumberFormatException e ) {
+			return 0;
+		}
+	}
+
+	/** Returns the number of dictionary neighbours needed by the given columns. */
+	public static int dictionaryNeighbours( String[] cols ) {
+		int neighbours = 0;
+		if ( null != cols ) {
+			for ( String col : cols ) {
+				int delimLoc = col.indexOf( PREFIX_DELIM );
+				if ( -1 != delimLoc ) {
+					neighbours = Math.max( neighbours, dictionaryRank( col.substring( 0, delimLoc )));
+				}
+			}
+		}
+		return neighbours;
+	}
+
+	/** Format a color distance so that text sorting follows numeric order, with a point in any locale. */
+	public static String formatDistance( double distance ) {
+		return String.format( Locale.ROOT, "%06.2f", distance );
+	}
+
 	/** Take the given data line and populate the columns of the output file
 	 *  from the dictionary and calculations 
-	 *  Example column names  "Name,RGB,HSL,Dict-Name,Dict-RGB,Dict-HSL"
+	 *  Example column names  "Name,RGB,HSL,Dict-Name,Dict-RGB,Dict-HSL,Dict-Dist"
+	 *  The k-th closest dictionary color uses prefix Dict&lt;k&gt;, for example "Dict2-Name,Dict2-RGB,Dict2-Dist"
+	 *  @deprecated the map is converted to a ColorDictionary on every call,
+	 *  callers of many rows convert it once with ColorDictionary.fromMap and pass the dictionary.
 */
+	@Deprecated
 	public static void populateOutputData(List<String[]> outputData, Map<Color,List<String>> dictionaryNames,
 			String[] cols, String[] headers, String[] dictionaryHeaders, String[] data) {
+		populateOutputData( outputData, ColorDictionary.fromMap( dictionaryNames ), cols, headers, dictionaryHeaders, data );
+	}
 
-		// Need to have basic info to make an output line.
-		Color color = ColorUtils.toColor( data[ arrayPosition( headers, Col.RGB.getName() )]);
-		if ( null == color ) {
-			throw new IllegalArgumentException( "missing color on data row " + Arrays.deepToString( data ));
-		}
-		String name = data[arrayPosition(headers, Col.NAME.getName())];		
-		
-		String[] outputRow = new String[cols.length];		
-		int colIndex = 0;
-		StringBuilder loggerInfo = new StringBuilder();
-		for ( String col : cols ) {
-			String prefix = "";
-			int delimLoc = col.indexOf(PREFIX_DELIM);
-			if ( -1 != delimLoc ) {
-				// Column name has a prefix;
-				prefix = col.substring( 0, delimLoc );
-				col = col.substring( delimLoc + 1);
-				// LOGGER.debug( "Col name=" + col + ", delimLoc=" + delimLoc + ", prefix=" + prefix);
+	/** Take the given data line and populate the columns of the output file
+	 *  from the dictionary and calculations 
+	 *  Example column names  "Name,RGB,HSL,Dict-Name,Dict-RGB,Dict-HSL,Dict-Dist"
+	 *  The k-th closest dictionary color uses prefix Dict&lt;k&gt;, for example "Dict2-Name,Dict2-RGB,Dict2-Dist"
+	 *  All dictionary colors within the radius use prefix Within, for example "Within-Name,Within-RGB,Within-Count"
+	 */
+	public static void populateOutputData(List<String[]> outputData, ColorDictionary dictionary,
+			String[] cols, String[] headers, String[] dictionaryHeaders, String[] data) {
+		outputData.add( outputRow( dictionary, cols, headers, dictionaryHeaders, data ));
+	}
+
+	/**
+	 * Return the output columns of the given data line, see populateOutputData.
+	 * The columns are compiled for the headers on each call, readers of many rows
+	 * compile a ColumnPlan once and execute it instead.
+	 * Safe to call from several threads once the dictionary and its index are built.
+	 */
+	public static String[] outputRow(ColorDictionary dictionary,
+			String[] cols, String[] headers, String[] dictionaryHeaders, String[] data) {
+		return new ColumnPlan( cols, headers, radius, hslTable ).execute( dictionary, data );
+	}
+
+	/**
+	 * Compare the color of every output row with every other row, or every dictionary color
+	 * with every other one when there are no output rows.
+	 * With a pair distance the pairs within it are written as text lines "Name,RGB,Pair-Name,Pair-RGB,Pair-Dist",
+	 * or logged when there is no pair file. The names of a dictionary color are joined by PAIR_NAMES_DELIM,
+	 * so no name field holds a comma, and a missing name is an empty field.
+	 * Without a pair distance every distance is written to a matrix file, see ColorPairs for its layout.
+	 * @param pairDistance largest distance of listed pairs, negative for the distance matrix
+	 * @param pairFileName pair list or matrix file, may be null for a logged pair list
+	 */
+	public static void writePairs( RowStore outputData, String[] cols, ColorDictionary dictionary,
+			double pairDistance, String pairFileName ) throws IOException {
+		int[] rgbs;
+		String[] names;
+		int rgbCol = arrayPosition( cols, Col.RGB.getName() );
+		if ( !outputData.isEmpty() && -1 != rgbCol ) {
+			int nameCol = arrayPosition( cols, Col.NAME.getName() );
+			rgbs = new int[ outputData.size() ];
+			names = new String[ outputData.size() ];
+			for ( int row = 0; row < outputData.size(); row++ ) {
+				rgbs[ row ] = outputData.getRGB( row, rgbCol );
+				if ( RowStore.NULL == rgbs[ row ] )
+					throw new IllegalArgumentException( "column " + cols[ rgbCol ] + " of row " + row + " has no value to pair" );
+				String name = -1 == nameCol ? null : outputData.getText( row, nameCol );
+				names[ row ] = null == name ? "" : name;
 			}
-			switch ( col ) {
-				case "Name" : {
-					if ( "".equals( prefix ) || "Input".equals( prefix )) {
-						outputRow[ colIndex ] = name;
-					} else if ( "Dict".equals( prefix )) {
-						Entry<Color, List<String>> closest = closestColor(dictionaryNames, color);
-						if (null != closest) {
-							outputRow[ colIndex ] = closest.getValue().toString();
-						}
-					}
-					if ( loggerInfo.length() > 0) loggerInfo.append( ", " );
-					if ( "".equals( prefix ))
-						loggerInfo.append( col + "=" + outputRow[ colIndex ]);
-					else
-						loggerInfo.append( prefix + PREFIX_DELIM + col + "=" + outputRow[ colIndex ]);
-					break;					
-				}			
-				case "RGB" : 
-				case "R": case "G": case "B": {					
-					if ( "".equals( prefix ) || "Input".equals( prefix )) {
-						// Normalize output (might get rid of #)
-						outputRow[ colIndex ] = ColorUtils.toRGB(ColorUtils.toColor(data[arrayPosition(headers, Col.RGB.getName())]));
-					} else if ( "Dict".equals( prefix )) {
-						Entry<Color, List<String>> closest = closestColor(dictionaryNames, color);
-						if (null != closest) {
-							outputRow[ colIndex ] = ColorUtils.toRGB(closest.getKey());
-						}
-					}
-					switch ( col ) {
-						case "R": outputRow[ colIndex ] = outputRow[ colIndex ].substring(0,2); break;
-						case "G": outputRow[ colIndex ] = outputRow[ colIndex ].substring(2,4); break;
-						case "B": outputRow[ colIndex ] = outputRow[ colIndex ].substring(4); break;
-					}
-					if ( loggerInfo.length() > 0) loggerInfo.append( ", " );
-					loggerInfo.append( col + "=" + outputRow[ colIndex ]);
-					break;					
-				}
-				case "HSL" : 
-				case "H" :	case "S" :	case "L" : { 
-					if ( "".equals( prefix ) || "Input".equals( prefix )) {
-						int position = arrayPosition(headers, Col.HSL.getName());
-						if ( -1 != position ) {
-							// Should normalize output, but what is the String representation of HSL?
-							outputRow[ colIndex ] = data[ position ];							
-							// LOGGER.info( "HSL in=" + outputRow[ colIndex ]);
-						} else {
-							position = arrayPosition(headers, Col.RGB.getName());
-							if ( -1 != position ) {
-								// HSL calculated from RGB
-								outputRow[ colIndex ] = HSLColor.toString( ColorUtils.toColor(data[arrayPosition(headers, Col.RGB.getName())]) );
-							}
-							// LOGGER.info( "HSL using RGB=" + outputRow[ colIndex ]);
-						}
-					} else if ( "Dict".equals( prefix )) {
-						Entry<Color, List<String>> closest = closestColor(dictionaryNames, color);
-						if (null != closest) {
-							outputRow[ colIndex ] = HSLColor.toString(closest.getKey());
-						}
-						// LOGGER.info( "HSL using dictionary=" + outputRow[ colIndex ]);
-					}
-						
-					switch ( col ) {
-						case "H": outputRow[ colIndex ] = outputRow[ colIndex ].substring(0,3); break;
-						case "S": outputRow[ colIndex ] = outputRow[ colIndex ].substring(3,6); break;
-						case "L": outputRow[ colIndex ] = outputRow[ colIndex ].substring(6); break;
-					}
-					// if ( col.equals("H") || col.equals("S") || col.equals("L") )
-					// 	LOGGER.info( "HSL using H S or L=" + outputRow[ colIndex ] );
-					if ( loggerInfo.length() > 0) loggerInfo.append( ", " );
-					if ( col.equals("H") || col.equals("S") || col.equals("L") ) {
-						loggerInfo.append( col + "=" + outputRow[ colIndex ] ); 						
-					} else {
-						loggerInfo.append( col + "=" + outputRow[ colIndex ] + 
-							", RGB'=" + ColorUtils.toRGB(HSLColor.fromString(outputRow[ colIndex ]).getRGB())); // append derived RGB						
-					}
-					break;					
-				}
-				default: {
-					// Copy other columns without processing
-					int position = arrayPosition(headers, col );
-					if ( -1 != position ) {
-						if ( position >= data.length ) {
-							// Might be the last column with no data.
-							outputRow[ colIndex ] = null;
-						} else {
-							outputRow[ colIndex ] = data[ position ];
-						}
-					} else {
-						LOGGER.error( "Unknown column name " + col );
-					}
-				}
+		} else {
+			if ( !outputData.isEmpty() )
+				LOGGER.warn( "pairs need an RGB output column, comparing dictionary colors" );
+			rgbs = dictionary.getRGBs();
+			names = new String[ rgbs.length ];
+			for ( int position = 0; position < rgbs.length; position++ ) {
+				names[ position ] = String.join( PAIR_NAMES_DELIM, dictionary.getNames( position ));
+			}
+		}
+		ColorPairs pairs = new ColorPairs( rgbs, dist );
+		if ( pairDistance < 0.0 ) {
+			if ( null == pairFileName )
+				throw new IllegalArgumentException( "distance matrix needs a pair file" );
+			pairs.writeMatrix( ForkJoinPool.commonPool(), Path.of( pairFileName ).toAbsolutePath() );
+			return;
+		}
+		ColorPairs.PairList within = pairs.within( ForkJoinPool.commonPool(), pairDistance );
+		BufferedWriter pairWriter = null == pairFileName ? null : Files.newBufferedWriter( Path.of( pairFileName ).toAbsolutePath() );
+		try {
+			if ( null != pairWriter )
+				pairWriter.write( "Name,RGB,Pair-Name,Pair-RGB,Pair-Dist" + NL );
+			for ( int pair = 0; pair < within.size(); pair++ ) {
+				int first = within.getFirst( pair );
+				int second = within.getSecond( pair );
+				String line = names[ first ] + "," + ColorUtils.toRGB( rgbs[ first ] ) + ","
+					+ names[ second ] + "," + ColorUtils.toRGB( rgbs[ second ] ) + "," + formatDistance( within.getDistance( pair ) );
+				if ( null != pairWriter )
+					pairWriter.write( line + NL );
+				else
+					LOGGER.info( "pair " + line );
 			}
-            colIndex++;
+		} finally {
+			if ( null != pairWriter )
+				pairWriter.close();
 		}
-		outputData.add( outputRow );
-		LOGGER.info( loggerInfo.toString() );
 	}
 
 	// Sort data according to the names columns
 	public static void sortData( List<String[]> outputData, Comparator<String[]> colorFieldComparator) {
 		 Collections.sort(outputData,  colorFieldComparator );
 	}
+
+	/** Sort the stored rows, stable, comparing typed cells without formatting them. */
+	public static void sortData( RowStore outputData, RowStore.RowComparator comparator ) {
+		outputData.sort( comparator );
+	}
 	
 	/** Output data to file. 
 	 * TODO: Support spacing/tabbing to make nice columns in text file
 	 */
 	public static void outputData( List<String[]> outputData, String[] cols, BufferedWriter writer) throws IOException{
+		outputData( RowStore.of( cols, outputData ), cols, writer );
+	}
+
+	/** Output stored rows to file, each cell formatted as it is written. */
+	public static void outputData( RowStore outputData, String[] cols, BufferedWriter writer) throws IOException{
 //		int nameCol = arrayPosition(cols, Col.NAME.getName());
 //		int longestName = -1;
 //		if ( -1 != nameCol ) {
@@ -554,18 +1013,19 @@ public class ColorCalc {
 		}
 		// Output column data
 		if (!table) {
-			for (String[] data : outputData) {
-				for (int i = 0; i < data.length; i++) {
+			for (int row = 0; row < outputData.size(); row++) {
+				for (int i = 0; i < cols.length; i++) {
 					if (i > 0)	writer.write(",");
-					if (null != data[i]) {
-						writer.write(data[i]);
+					String cell = outputData.getText(row, i);
+					if (null != cell) {
+						writer.write(cell);
 					}
 				}
 				writer.write(NL);
 			}
 		} else {
-			for (String[] data : outputData) {
-				HTMLUtils.data(writer, cols, data);
+			for (int row = 0; row < outputData.size(); row++) {
+				HTMLUtils.data(writer, cols, outputData.getRow(row));
 			}
 		}
 	}
@@ -603,7 +1063,7 @@ public class ColorCalc {
 	 * @param outputData
 	 * @param cols
 	 */
-	public static void visualizeData( final List<String[]> data, final String [] cols, String vName, int vSteps, int vDelay ) throws Exception {
+	public static void visualizeData( final RowStore data, final String [] cols, String vName, int vSteps, int vDelay ) throws Exception {
 		Visualize visualize = new Visualize( data, cols );
 		visualize.launch( true, new Rectangle( 200, 200, 1000, 800) ); // launch interactive or static with given size
 		
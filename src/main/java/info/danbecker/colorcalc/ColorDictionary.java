@@ -0,0 +1,404 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A compact dictionary of colors and their names.
+ * <p>
+ * Colors are packed RGB integers (0xRRGGBB) in insertion order, and the
+ * position of a color is its dictionary position for a ColorIndex.
+ * Names are interned once and referred to by id. The names of each color
+ * form a list in a shared pool of name ids. After loading, trim() lays each
+ * list out contiguously so iteration is sequential in memory.
+ * <p>
+ * An open addressing hash of packed RGB to position finds exact colors
+ * without boxing, so adding and probing allocate nothing per color.
+ * Adding a color that is already present merges the new name into its list.
+ * The same hash gives closest color searches an exact match fast path, see probe.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorDictionary {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(ColorDictionary.class);
+
+	public static final int INITIAL_CAPACITY = 64;
+	/** Marks the end of a name list in the pool. */
+	protected static final int END = -1;
+
+	// Colors by position
+	protected int size;
+	protected int[] rgbs = new int[INITIAL_CAPACITY];
+	protected int[] firstNames = new int[INITIAL_CAPACITY];
+	protected int[] lastNames = new int[INITIAL_CAPACITY];
+	protected int[] nameCounts = new int[INITIAL_CAPACITY];
+
+	// Name list pool, slots hold an interned name id and the next slot of the list.
+	protected int poolSize;
+	protected int[] poolNames = new int[INITIAL_CAPACITY];
+	protected int[] poolNext = new int[INITIAL_CAPACITY];
+
+	// Interned names by id
+	protected int nameSize;
+	protected String[] names = new String[INITIAL_CAPACITY];
+	protected Map<String,Integer> nameIds = new HashMap<>();
+
+	// Open addressing hash of packed RGB, slots hold position + 1, 0 is empty.
+	protected int[] hash = new int[2 * INITIAL_CAPACITY];
+
+	/** Cached "[name1, name2]" text of each position, made on first use. */
+	protected String[] namesText;
+
+	protected ColorIndex index;
+	/** Linear scan of the colors with the last distance asked for, made on first use, dropped when a color is added. */
+	protected volatile ColorIndexLinear linearIndex;
+
+	/** Exact color probes that found the color, and that did not. */
+	protected final LongAdder exactHits = new LongAdder();
+	protected final LongAdder exactMisses = new LongAdder();
+
+	public ColorDictionary() {
+	}
+
+	/** Create a dictionary from a map, positions follow the map iteration order. */
+	public static ColorDictionary fromMap(Map<Color,List<String>> dictionaryNames) {
+		ColorDictionary dictionary = new ColorDictionary();
+		if (null != dictionaryNames) {
+			for (Entry<Color,List<String>> entry : dictionaryNames.entrySet()) {
+				int rgb = entry.getKey().getRGB();
+				for (String name : entry.getValue()) {
+					dictionary.add(rgb, name);
+				}
+			}
+		}
+		return dictionary;
+	}
+
+	/** Number of colors. */
+	public int size() {
+		return size;
+	}
+
+	/** Number of distinct names. */
+	public int nameSize() {
+		return nameSize;
+	}
+
+	/**
+	 * Add a color name, merging it into the names of an existing color.
+	 * @param rgb packed RGB color (alpha is ignored)
+	 * @param name color name, duplicates for a color are ignored
+	 * @return position of the color
+	 */
+	public int add(int rgb, String name) {
+		rgb &= 0xFFFFFF;
+		int position = indexOf(rgb);
+		if (-1 == position) {
+			position = size;
+			ensureCapacity(size + 1);
+			rgbs[position] = rgb;
+			firstNames[position] = END;
+			lastNames[position] = END;
+			nameCounts[position] = 0;
+			size++;
+			insertHash(rgb, position);
+			index = null;
+			linearIndex = null;
+			namesText = null;
+		}
+		if (null != name) {
+			int nameId = intern(name);
+			for (int slot = firstNames[position]; END != slot; slot = poolNext[slot]) {
+				if (nameId == poolNames[slot])
+					return position;
+			}
+			appendName(position, nameId);
+		}
+		return position;
+	}
+
+	/** Add every color and name of the given dictionary to this one. */
+	public void addAll(ColorDictionary other) {
+		for (int position = 0; position < other.size; position++) {
+			int rgb = other.rgbs[position];
+			if (0 == other.nameCounts[position]) {
+				add(rgb, null);
+			}
+			for (int slot = other.firstNames[position]; END != slot; slot = other.poolNext[slot]) {
+				add(rgb, other.names[other.poolNames[slot]]);
+			}
+		}
+	}
+
+	/**
+	 * Position of the given color.
+	 * @param rgb packed RGB color (alpha is ignored)
+	 * @return position or -1 if the color is not present
+	 */
+	public int indexOf(int rgb) {
+		rgb &= 0xFFFFFF;
+		int mask = hash.length - 1;
+		for (int slot = mix(rgb) & mask; 0 != hash[slot]; slot = (slot + 1) & mask) {
+			int position = hash[slot] - 1;
+			if (rgbs[position] == rgb)
+				return position;
+		}
+		return -1;
+	}
+
+	/**
+	 * Position of the given color when it is in the dictionary, counted as an exact hit or miss.
+	 * An exact color is its own closest color at distance 0, so a hit can skip the nearest search.
+	 * @param rgb packed RGB color (alpha is ignored)
+	 * @return position or -1 if the color is not present
+	 */
+	public int probe(int rgb) {
+		int position = indexOf(rgb);
+		if (-1 == position)
+			exactMisses.increment();
+		else
+			exactHits.increment();
+		return position;
+	}
+
+	/** Returns count of probes that found an exact color. */
+	public long getExactHits() {
+		return exactHits.sum();
+	}
+
+	/** Returns count of probes that fell back to the nearest search. */
+	public long getExactMisses() {
+		return exactMisses.sum();
+	}
+
+	/** Reset the exact probe counters. */
+	public void resetCounts() {
+		exactHits.reset();
+		exactMisses.reset();
+	}
+
+	/** Packed RGB color at the given position. */
+	public int getRGB(int position) {
+		return rgbs[position];
+	}
+
+	/** A new Color for the given position. */
+	public Color getColor(int position) {
+		return new Color(rgbs[position]);
+	}
+
+	/** Packed RGB colors by position, trimmed to size. */
+	public int[] getRGBs() {
+		return Arrays.copyOf(rgbs, size);
+	}
+
+	/** Number of names of the color at the given position. */
+	public int getNameCount(int position) {
+		return nameCounts[position];
+	}
+
+	/** Names of the color at the given position, in the order they were added. */
+	public List<String> getNames(int position) {
+		List<String> list = new ArrayList<>(nameCounts[position]);
+		for (int slot = firstNames[position]; END != slot; slot = poolNext[slot]) {
+			list.add(names[poolNames[slot]]);
+		}
+		return list;
+	}
+
+	/**
+	 * Names of the color at the given position as text, for example "[Red, Pure Red]".
+	 * The text is made once per position and shared after that.
+	 */
+	public String getNamesText(int position) {
+		String[] texts = namesText;
+		if (null == texts) {
+			texts = new String[size];
+			namesText = texts;
+		}
+		String text = texts[position];
+		if (null == text) {
+			text = getNames(position).toString();
+			texts[position] = text;
+		}
+		return text;
+	}
+
+	/** Search index over the dictionary positions, or null for a linear scan. */
+	public ColorIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * A linear scan index over the colors, for searches when no index was set.
+	 * The scan is built once per distance and reused, rather than copying the colors,
+	 * and for Lab distances converting them, on every search.
+	 * @param dist distance algorithm
+	 */
+	public ColorIndex getLinearIndex(ColorDistance dist) {
+		ColorIndexLinear linear = linearIndex;
+		if (null == linear || linear.dist != dist) {
+			linear = new ColorIndexLinear(getRGBs(), dist);
+			linearIndex = linear;
+		}
+		return linear;
+	}
+
+	/** Set the search index, it must have been built over getRGBs(). */
+	public void setIndex(ColorIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Lay out each color's names contiguously in the pool and release spare capacity.
+	 * Call after loading, before heavy use.
+	 */
+	public void trim() {
+		int[] slotNames = new int[poolSize];
+		int[] next = new int[poolSize];
+		int slots = 0;
+		for (int position = 0; position < size; position++) {
+			int first = slots;
+			for (int slot = firstNames[position]; END != slot; slot = poolNext[slot]) {
+				slotNames[slots] = poolNames[slot];
+				next[slots] = slots + 1;
+				slots++;
+			}
+			if (slots > first) {
+				next[slots - 1] = END;
+				firstNames[position] = first;
+				lastNames[position] = slots - 1;
+			}
+		}
+		poolNames = slotNames;
+		poolNext = next;
+		rgbs = Arrays.copyOf(rgbs, size);
+		firstNames = Arrays.copyOf(firstNames, size);
+		lastNames = Arrays.copyOf(lastNames, size);
+		nameCounts = Arrays.copyOf(nameCounts, size);
+		names = Arrays.copyOf(names, nameSize);
+		LOGGER.debug("dictionary trimmed colors=" + size + ", names=" + nameSize + ", name slots=" + poolSize);
+	}
+
+	/**
+	 * Replace the contents with arrays in trimmed layout, for example from a compiled dictionary.
+	 * Each color's names are the nameCounts[position] pool slots from firstNames[position].
+	 * @param rgbs packed RGB colors by position
+	 * @param firstNames first pool slot of each color
+	 * @param nameCounts number of names of each color
+	 * @param poolNames interned name id of each pool slot
+	 * @param names interned names by id
+	 */
+	protected void load(int[] rgbs, int[] firstNames, int[] nameCounts, int[] poolNames, String[] names) {
+		size = rgbs.length;
+		this.rgbs = rgbs;
+		this.firstNames = firstNames;
+		this.nameCounts = nameCounts;
+		lastNames = new int[size];
+		for (int position = 0; position < size; position++) {
+			if (0 == nameCounts[position]) {
+				firstNames[position] = END;
+				lastNames[position] = END;
+			} else {
+				lastNames[position] = firstNames[position] + nameCounts[position] - 1;
+			}
+		}
+		poolSize = poolNames.length;
+		this.poolNames = poolNames;
+		poolNext = new int[poolSize];
+		for (int slot = 0; slot < poolSize; slot++) {
+			poolNext[slot] = slot + 1;
+		}
+		for (int position = 0; position < size; position++) {
+			if (END != lastNames[position])
+				poolNext[lastNames[position]] = END;
+		}
+		nameSize = names.length;
+		this.names = names;
+		nameIds = new HashMap<>(2 * nameSize);
+		for (int id = 0; id < nameSize; id++) {
+			nameIds.put(names[id], id);
+		}
+		int length = 2 * INITIAL_CAPACITY;
+		while (length < 2 * size) {
+			length <<= 1;
+		}
+		hash = new int[length];
+		for (int position = 0; position < size; position++) {
+			insertHash(rgbs[position], position);
+		}
+		namesText = null;
+		index = null;
+		linearIndex = null;
+	}
+
+	protected int intern(String name) {
+		Integer id = nameIds.get(name);
+		if (null != id)
+			return id;
+		if (nameSize == names.length)
+			names = Arrays.copyOf(names, Math.max(INITIAL_CAPACITY, 2 * nameSize));
+		names[nameSize] = name;
+		nameIds.put(name, nameSize);
+		return nameSize++;
+	}
+
+	protected void appendName(int position, int nameId) {
+		if (poolSize == poolNames.length) {
+			int length = Math.max(INITIAL_CAPACITY, 2 * poolSize);
+			poolNames = Arrays.copyOf(poolNames, length);
+			poolNext = Arrays.copyOf(poolNext, length);
+		}
+		int slot = poolSize++;
+		poolNames[slot] = nameId;
+		poolNext[slot] = END;
+		if (END == lastNames[position])
+			firstNames[position] = slot;
+		else
+			poolNext[lastNames[position]] = slot;
+		lastNames[position] = slot;
+		nameCounts[position]++;
+		if (null != namesText)
+			namesText[position] = null;
+	}
+
+	protected void ensureCapacity(int capacity) {
+		if (capacity > rgbs.length) {
+			int length = Math.max(capacity, 2 * rgbs.length);
+			rgbs = Arrays.copyOf(rgbs, length);
+			firstNames = Arrays.copyOf(firstNames, length);
+			lastNames = Arrays.copyOf(lastNames, length);
+			nameCounts = Arrays.copyOf(nameCounts, length);
+		}
+		// Keep the hash at most half full.
+		if (2 * capacity > hash.length) {
+			int[] old = hash;
+			hash = new int[2 * old.length];
+			for (int position = 0; position < size; position++) {
+				insertHash(rgbs[position], position);
+			}
+		}
+	}
+
+	protected void insertHash(int rgb, int position) {
+		int mask = hash.length - 1;
+		int slot = mix(rgb) & mask;
+		while (0 != hash[slot]) {
+			slot = (slot + 1) & mask;
+		}
+		hash[slot] = position + 1;
+	}
+
+	/** Spread packed RGB bits over the hash slots. */
+	protected static int mix(int rgb) {
+		int h = rgb * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
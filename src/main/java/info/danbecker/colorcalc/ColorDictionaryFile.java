@@ -0,0 +1,249 @@
+package info.danbecker.colorcalc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compiled dictionary file, read by memory mapping for fast startup.
+ * <p>
+ * The file holds a ColorDictionary in its trimmed layout and any prebuilt
+ * k-d or vantage point tree, so loading is a few bulk array copies
+ * instead of parsing every text line and rebuilding the index.
+ * <p>
+ * File layout (big endian)
+ * <pre>
+ * int   magic "CCDC"
+ * int   version
+ * int   colors
+ * int   names
+ * int   name slots
+ * int   name bytes
+ * int   index type 0 none, 1 KDTree, 2 VPTree
+ * int   distance name bytes
+ * int[colors]    packed RGB colors
+ * int[colors]    first name slot
+ * int[colors]    name count
+ * int[slots]     name id of each slot
+ * int[names + 1] name offsets into the name bytes
+ * KDTree int[colors] tree
+ * VPTree int[colors] tree, int[colors] splits, double[colors] mus
+ * byte[name bytes]     UTF-8 names
+ * byte[distance bytes] UTF-8 class name of the VPTree distance
+ * </pre>
+ * A vantage point tree built with a different distance than the current
+ * one is ignored, the caller builds a new index in that case.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorDictionaryFile {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(ColorDictionaryFile.class);
+
+	public static final int MAGIC = 0x43434443; // "CCDC"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 8 * 4;
+
+	public static final int INDEX_NONE = 0;
+	public static final int INDEX_KDTREE = 1;
+	public static final int INDEX_VPTREE = 2;
+
+	/**
+	 * Tell whether the given file is a compiled dictionary rather than a text dictionary.
+	 * @param file dictionary file
+	 * @return true when the file starts with the compiled dictionary magic
+	 * @throws IOException
+	 */
+	public static boolean isCompiled(Path file) throws IOException {
+		if (!Files.isRegularFile(file))
+			return false;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			while (magic.hasRemaining() && -1 != channel.read(magic)) {
+			}
+			return !magic.hasRemaining() && MAGIC == magic.getInt(0);
+		}
+	}
+
+	/**
+	 * Write the dictionary and its index to a compiled file.
+	 * The dictionary is trimmed first. A KDTree or VPTree index is stored,
+	 * for a LUT index its base tree is stored, other indexes are not stored.
+	 * @param file compiled dictionary file, replaced if present
+	 * @param dictionary dictionary to write
+	 * @throws IOException
+	 */
+	public static void write(Path file, ColorDictionary dictionary) throws IOException {
+		long start = System.currentTimeMillis();
+		dictionary.trim();
+		int colors = dictionary.size;
+		int slots = dictionary.poolSize;
+		int names = dictionary.nameSize;
+
+		ColorIndex index = dictionary.getIndex();
+		if (index instanceof ColorIndexLUT)
+			index = ((ColorIndexLUT) index).base;
+		int indexType = INDEX_NONE;
+		byte[] distanceBytes = new byte[0];
+		if (index instanceof ColorIndexKDTree) {
+			indexType = INDEX_KDTREE;
+		} else if (index instanceof ColorIndexVPTree) {
+			indexType = INDEX_VPTREE;
+			distanceBytes = ((ColorIndexVPTree) index).dist.getClass().getName().getBytes(StandardCharsets.UTF_8);
+		}
+
+		int[] offsets = new int[names + 1];
+		byte[][] nameBytes = new byte[names][];
+		for (int id = 0; id < names; id++) {
+			nameBytes[id] = dictionary.names[id].getBytes(StandardCharsets.UTF_8);
+			offsets[id + 1] = offsets[id] + nameBytes[id].length;
+		}
+
+		long fileSize = fileSize(colors, names, slots, offsets[names], indexType, distanceBytes.length);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+			buffer.position(HEADER_SIZE);
+			buffer.asIntBuffer().put(dictionary.rgbs, 0, colors);
+			buffer.position(buffer.position() + 4 * colors);
+			buffer.asIntBuffer().put(dictionary.firstNames, 0, colors);
+			buffer.position(buffer.position() + 4 * colors);
+			buffer.asIntBuffer().put(dictionary.nameCounts, 0, colors);
+			buffer.position(buffer.position() + 4 * colors);
+			buffer.asIntBuffer().put(dictionary.poolNames, 0, slots);
+			buffer.position(buffer.position() + 4 * slots);
+			buffer.asIntBuffer().put(offsets);
+			buffer.position(buffer.position() + 4 * offsets.length);
+			if (INDEX_KDTREE == indexType) {
+				buffer.asIntBuffer().put(((ColorIndexKDTree) index).tree);
+				buffer.position(buffer.position() + 4 * colors);
+			} else if (INDEX_VPTREE == indexType) {
+				ColorIndexVPTree tree = (ColorIndexVPTree) index;
+				buffer.asIntBuffer().put(tree.tree);
+				buffer.position(buffer.position() + 4 * colors);
+				buffer.asIntBuffer().put(tree.splits);
+				buffer.position(buffer.position() + 4 * colors);
+				buffer.asDoubleBuffer().put(tree.mus);
+				buffer.position(buffer.position() + 8 * colors);
+			}
+			for (byte[] bytes : nameBytes) {
+				buffer.put(bytes);
+			}
+			buffer.put(distanceBytes);
+			buffer.force();
+			// Header last, so an interrupted write is never mistaken for a good file.
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, colors);
+			buffer.putInt(12, names);
+			buffer.putInt(16, slots);
+			buffer.putInt(20, offsets[names]);
+			buffer.putInt(24, indexType);
+			buffer.putInt(28, distanceBytes.length);
+			buffer.putInt(0, MAGIC);
+			buffer.force();
+		}
+		LOGGER.info("compiled dictionary=" + file + ", colors=" + colors + ", names=" + names
+				+ ", index=" + (null == index ? "none" : index.getClass().getSimpleName())
+				+ " written in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * Read a compiled dictionary. The stored index is set on the dictionary
+	 * unless it is a vantage point tree built with a different distance.
+	 * @param file compiled dictionary file
+	 * @param dist distance algorithm of this run
+	 * @return dictionary
+	 * @throws IOException when the file is not a compiled dictionary of this version or is truncated
+	 */
+	public static ColorDictionary read(Path file, ColorDistance dist) throws IOException {
+		long start = System.currentTimeMillis();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long channelSize = channel.size();
+			if (channelSize < HEADER_SIZE)
+				throw new IOException("compiled dictionary=" + file + " too short");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channelSize);
+			if (MAGIC != buffer.getInt(0))
+				throw new IOException("compiled dictionary=" + file + " has no compiled dictionary magic");
+			if (VERSION != buffer.getInt(4))
+				throw new IOException("compiled dictionary=" + file + " version=" + buffer.getInt(4) + ", expected version=" + VERSION);
+			int colors = buffer.getInt(8);
+			int names = buffer.getInt(12);
+			int slots = buffer.getInt(16);
+			int nameBytes = buffer.getInt(20);
+			int indexType = buffer.getInt(24);
+			int distanceBytes = buffer.getInt(28);
+			if (colors < 0 || names < 0 || slots < 0 || nameBytes < 0 || distanceBytes < 0
+					|| indexType < INDEX_NONE || indexType > INDEX_VPTREE
+					|| channelSize != fileSize(colors, names, slots, nameBytes, indexType, distanceBytes))
+				throw new IOException("compiled dictionary=" + file + " is truncated or damaged");
+
+			buffer.position(HEADER_SIZE);
+			int[] rgbs = getInts(buffer, colors);
+			int[] firstNames = getInts(buffer, colors);
+			int[] nameCounts = getInts(buffer, colors);
+			int[] poolNames = getInts(buffer, slots);
+			int[] offsets = getInts(buffer, names + 1);
+			int[] tree = null;
+			int[] splits = null;
+			double[] mus = null;
+			if (INDEX_KDTREE == indexType) {
+				tree = getInts(buffer, colors);
+			} else if (INDEX_VPTREE == indexType) {
+				tree = getInts(buffer, colors);
+				splits = getInts(buffer, colors);
+				mus = new double[colors];
+				buffer.asDoubleBuffer().get(mus);
+				buffer.position(buffer.position() + 8 * colors);
+			}
+			byte[] bytes = new byte[nameBytes];
+			buffer.get(bytes);
+			String[] nameStrings = new String[names];
+			for (int id = 0; id < names; id++) {
+				nameStrings[id] = new String(bytes, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+			}
+			byte[] distanceName = new byte[distanceBytes];
+			buffer.get(distanceName);
+
+			ColorDictionary dictionary = new ColorDictionary();
+			dictionary.load(rgbs, firstNames, nameCounts, poolNames, nameStrings);
+			if (INDEX_KDTREE == indexType) {
+				dictionary.setIndex(new ColorIndexKDTree(dictionary.getRGBs(), tree));
+			} else if (INDEX_VPTREE == indexType) {
+				String distance = new String(distanceName, StandardCharsets.UTF_8);
+				if (dist.getClass().getName().equals(distance)) {
+					dictionary.setIndex(new ColorIndexVPTree(dictionary.getRGBs(), dist, tree, mus, splits));
+				} else {
+					LOGGER.info("compiled dictionary=" + file + " index distance=" + distance + " does not match distance="
+							+ dist.getClass().getName() + ", index not used");
+				}
+			}
+			LOGGER.info("compiled dictionary=" + file + ", colors=" + colors + ", names=" + names
+					+ ", index=" + (null == dictionary.getIndex() ? "none" : dictionary.getIndex().getClass().getSimpleName())
+					+ " read in " + (System.currentTimeMillis() - start) + "ms");
+			return dictionary;
+		}
+	}
+
+	/** Bulk copy ints at the buffer position and advance past them. */
+	protected static int[] getInts(ByteBuffer buffer, int count) {
+		int[] ints = new int[count];
+		buffer.asIntBuffer().get(ints);
+		buffer.position(buffer.position() + 4 * count);
+		return ints;
+	}
+
+	/** Expected file size for the given header values. */
+	protected static long fileSize(int colors, int names, int slots, int nameBytes, int indexType, int distanceBytes) {
+		long size = HEADER_SIZE + 4L * (3L * colors + slots + names + 1) + nameBytes + distanceBytes;
+		if (INDEX_KDTREE == indexType)
+			size += 4L * colors;
+		else if (INDEX_VPTREE == indexType)
+			size += (4L + 4L + 8L) * colors;
+		return size;
+	}
+}
@@ -7,6 +7,9 @@ import java.awt.Color;
  * <p>
  * Various distance formulas are discussed in
  * https://en.wikipedia.org/wiki/Color_difference
+ * <p>
+ * Searches call the packed RGB int overloads, which implementations
+ * override to work on the components directly without Color objects.
  * 
  */
 public interface ColorDistance {
@@ -18,4 +21,90 @@ public interface ColorDistance {
      * @return
      */
     public double distance(Color color1, Color color2);
+
+    /**
+     * Distance between two packed RGB colors, without java.awt.Color objects.
+     * @param rgb1 packed RGB color 0xRRGGBB (alpha is ignored)
+     * @param rgb2 packed RGB color 0xRRGGBB (alpha is ignored)
+     * @return distance
+     */
+    public default double distance(int rgb1, int rgb2) {
+        return distance(new Color(rgb1), new Color(rgb2));
+    }
+
+    /**
+     * A cheaper value that orders pairs of colors the same as distance,
+     * such as the squared distance without the square root.
+     * Use it to compare candidates, then toDistance for the winner.
+     * @param color1
+     * @param color2
+     * @return comparable distance, Double.MAX_VALUE for nulls
+     */
+    public default double comparableDistance(Color color1, Color color2) {
+        return distance(color1, color2);
+    }
+
+    /**
+     * Comparable distance that may stop early once it is sure to exceed the bound.
+     * Searches pass their current best, candidates that cannot beat it are abandoned.
+     * @param color1
+     * @param color2
+     * @param bound comparable distance of the current best
+     * @return the comparable distance when it is at most bound, otherwise any value greater than bound
+     */
+    public default double comparableDistance(Color color1, Color color2, double bound) {
+        return comparableDistance(color1, color2);
+    }
+
+    /**
+     * Comparable distance of two packed RGB colors, see comparableDistance(Color, Color).
+     * @param rgb1 packed RGB color 0xRRGGBB (alpha is ignored)
+     * @param rgb2 packed RGB color 0xRRGGBB (alpha is ignored)
+     * @return comparable distance
+     */
+    public default double comparableDistance(int rgb1, int rgb2) {
+        return comparableDistance(rgb1, rgb2, Double.MAX_VALUE);
+    }
+
+    /**
+     * Bounded comparable distance of two packed RGB colors, see comparableDistance(Color, Color, double).
+     * @param rgb1 packed RGB color 0xRRGGBB (alpha is ignored)
+     * @param rgb2 packed RGB color 0xRRGGBB (alpha is ignored)
+     * @param bound comparable distance of the current best
+     * @return the comparable distance when it is at most bound, otherwise any value greater than bound
+     */
+    public default double comparableDistance(int rgb1, int rgb2, double bound) {
+        return comparableDistance(new Color(rgb1), new Color(rgb2), bound);
+    }
+
+    /**
+     * Convert a comparable distance to a distance.
+     * @param comparable value from comparableDistance
+     * @return distance
+     */
+    public default double toDistance(double comparable) {
+        return comparable;
+    }
+
+    /**
+     * Convert a distance to a comparable distance, for example a search radius.
+     * @param distance
+     * @return comparable distance
+     */
+    public default double toComparable(double distance) {
+        return distance;
+    }
+
+    /**
+     * Relaxed triangle inequality factor ρ, such that for any colors a, b, c
+     * distance(a,c) &lt;= ρ * (distance(a,b) + distance(b,c)).
+     * A true metric returns 1. Metric tree indexes widen their pruning bounds by this
+     * factor, so they stay exact for distances that are close to, but not quite, a metric.
+     * A distance with no proven factor returns Double.POSITIVE_INFINITY, metric trees then
+     * prune nothing, and ColorCalc.buildDictionaryIndex uses a linear scan instead.
+     * @return factor of at least 1, infinite when no bound is known
+     */
+    public default double triangleFactor() {
+        return 1.0;
+    }
 }
@@ -0,0 +1,41 @@
+package info.danbecker.colorcalc;
+
+/**
+ * Return distance between two colors.
+ * <p>
+ * CIE76 ΔE*ab, the Euclidean distance of the Lab coordinates, from the formula discussed in
+ * https://en.wikipedia.org/wiki/Color_difference#CIE76
+ */
+public class ColorDistanceCIE76 extends ColorDistanceLab {
+
+    @Override
+    public double distance(double L1, double a1, double b1, double L2, double a2, double b2) {
+        return Math.sqrt(comparableDistance(L1, a1, b1, L2, a2, b2, Double.MAX_VALUE));
+    }
+
+    /** Squared distance, stopping after any coordinate that already exceeds the bound. */
+    @Override
+    public double comparableDistance(double L1, double a1, double b1, double L2, double a2, double b2, double bound) {
+        double ΔL = L1 - L2;
+        double sum = ΔL * ΔL;
+        if (sum > bound)
+            return sum;
+        double Δa = a1 - a2;
+        sum = sum + Δa * Δa;
+        if (sum > bound)
+            return sum;
+        double Δb = b1 - b2;
+        return sum + Δb * Δb;
+    }
+
+    @Override
+    public double toDistance(double comparable) {
+        return Math.sqrt(comparable);
+    }
+
+    @Override
+    public double toComparable(double distance) {
+        return distance * distance;
+    }
+
+}
@@ -0,0 +1,62 @@
+package info.danbecker.colorcalc;
+
+/**
+ * Return distance between two colors.
+ * <p>
+ * CIE94 ΔE*94 with the graphic arts constants (kL=1, K1=0.045, K2=0.015), from the formula discussed in
+ * https://en.wikipedia.org/wiki/Color_difference#CIE94
+ * <p>
+ * The formula weighs chroma and hue by the chroma of a reference color.
+ * Neither color is the reference here, so the geometric mean chroma of
+ * both is used, which keeps the distance symmetric.
+ */
+public class ColorDistanceCIE94 extends ColorDistanceLab {
+
+    public static final double K1 = 0.045;
+    public static final double K2 = 0.015;
+
+    /**
+     * The weights depend on the pair, so this is not a metric. Searches over
+     * millions of sRGB triples found distance(a,c) up to 2.47 times distance(a,b) + distance(b,c),
+     * but no bound is proven, so metric tree pruning could miss the closest color.
+     */
+    @Override
+    public double triangleFactor() {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public double distance(double L1, double a1, double b1, double L2, double a2, double b2) {
+        return Math.sqrt(comparableDistance(L1, a1, b1, L2, a2, b2, Double.MAX_VALUE));
+    }
+
+    /** Squared distance, stopping after the lightness term when it already exceeds the bound. */
+    @Override
+    public double comparableDistance(double L1, double a1, double b1, double L2, double a2, double b2, double bound) {
+        double ΔL = L1 - L2;
+        if (ΔL * ΔL > bound)
+            return ΔL * ΔL;
+        double C1 = Math.sqrt(a1 * a1 + b1 * b1);
+        double C2 = Math.sqrt(a2 * a2 + b2 * b2);
+        double ΔC = C1 - C2;
+        double Δa = a1 - a2;
+        double Δb = b1 - b2;
+        // ΔH² may round slightly negative for nearly equal hues.
+        double ΔH2 = Math.max(0.0, Δa * Δa + Δb * Δb - ΔC * ΔC);
+        double C = Math.sqrt(C1 * C2);
+        double SC = 1.0 + K1 * C;
+        double SH = 1.0 + K2 * C;
+        return ΔL * ΔL + (ΔC / SC) * (ΔC / SC) + ΔH2 / (SH * SH);
+    }
+
+    @Override
+    public double toDistance(double comparable) {
+        return Math.sqrt(comparable);
+    }
+
+    @Override
+    public double toComparable(double distance) {
+        return distance * distance;
+    }
+
+}
@@ -0,0 +1,74 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+
+/**
+ * Return distance between two colors in the CIELAB color space.
+ * <p>
+ * Subclasses give the ΔE formula on Lab coordinates. Indexes that hold
+ * many colors convert them to Lab once with LabColor.toLab and call
+ * the Lab distance directly, so the conversion is not repeated on
+ * every comparison.
+ * https://en.wikipedia.org/wiki/Color_difference#CIELAB_ΔE*
+ */
+public abstract class ColorDistanceLab implements ColorDistance {
+
+    @Override
+    public double distance(Color color1, Color color2) {
+        if (null == color1 || null == color2)
+            return Double.MAX_VALUE;
+        double[] lab1 = LabColor.toLab(color1);
+        double[] lab2 = LabColor.toLab(color2);
+        return distance(lab1[LabColor.L_POS], lab1[LabColor.A_POS], lab1[LabColor.B_POS],
+            lab2[LabColor.L_POS], lab2[LabColor.A_POS], lab2[LabColor.B_POS]);
+    }
+
+    @Override
+    public double comparableDistance(Color color1, Color color2) {
+        return comparableDistance(color1, color2, Double.MAX_VALUE);
+    }
+
+    @Override
+    public double comparableDistance(Color color1, Color color2, double bound) {
+        if (null == color1 || null == color2)
+            return Double.MAX_VALUE;
+        double[] lab1 = LabColor.toLab(color1);
+        double[] lab2 = LabColor.toLab(color2);
+        return comparableDistance(lab1[LabColor.L_POS], lab1[LabColor.A_POS], lab1[LabColor.B_POS],
+            lab2[LabColor.L_POS], lab2[LabColor.A_POS], lab2[LabColor.B_POS], bound);
+    }
+
+    /** Converts both colors to Lab with scalar steps, so no arrays are allocated per call. */
+    @Override
+    public double distance(int rgb1, int rgb2) {
+        double fy1 = LabColor.fy(rgb1);
+        double fy2 = LabColor.fy(rgb2);
+        return distance(LabColor.lightness(fy1), LabColor.a(LabColor.fx(rgb1), fy1), LabColor.b(fy1, LabColor.fz(rgb1)),
+            LabColor.lightness(fy2), LabColor.a(LabColor.fx(rgb2), fy2), LabColor.b(fy2, LabColor.fz(rgb2)));
+    }
+
+    /** Converts both colors to Lab with scalar steps, so no arrays are allocated per call. */
+    @Override
+    public double comparableDistance(int rgb1, int rgb2, double bound) {
+        double fy1 = LabColor.fy(rgb1);
+        double fy2 = LabColor.fy(rgb2);
+        return comparableDistance(LabColor.lightness(fy1), LabColor.a(LabColor.fx(rgb1), fy1), LabColor.b(fy1, LabColor.fz(rgb1)),
+            LabColor.lightness(fy2), LabColor.a(LabColor.fx(rgb2), fy2), LabColor.b(fy2, LabColor.fz(rgb2)), bound);
+    }
+
+    /**
+     * Comparable distance of two colors given as Lab coordinates, see ColorDistance.comparableDistance.
+     * @param bound comparable distance of the current best
+     * @return the comparable distance when it is at most bound, otherwise any value greater than bound
+     */
+    public double comparableDistance(double L1, double a1, double b1, double L2, double a2, double b2, double bound) {
+        return distance(L1, a1, b1, L2, a2, b2);
+    }
+
+    /**
+     * Distance between two colors given as Lab coordinates.
+     * @return ΔE, 0 for equal colors
+     */
+    public abstract double distance(double L1, double a1, double b1, double L2, double a2, double b2);
+
+}
@@ -14,11 +14,50 @@ public class ColorDistanceRGBEuclidean implements ColorDistance {
     public double distance(Color color1, Color color2) {
         if (null == color1 || null == color2)
             return Double.MAX_VALUE;
-        // Squared distances
-        int ΔR2 =  ( color1.getRed() - color2.getRed() ) * ( color1.getRed() - color2.getRed() );
-        int ΔG2 =  ( color1.getGreen() - color2.getGreen() ) * ( color1.getGreen() - color2.getGreen() );
-        int ΔB2 =  ( color1.getBlue() - color2.getBlue() ) * ( color1.getBlue() - color2.getBlue() );
-        return Math.sqrt( ΔR2 + ΔG2 + ΔB2 );
+        return distance(color1.getRGB(), color2.getRGB());
+    }
+
+    @Override
+    public double distance(int rgb1, int rgb2) {
+        return Math.sqrt(comparableDistance(rgb1, rgb2, Double.MAX_VALUE));
+    }
+
+    /** Squared distance. */
+    @Override
+    public double comparableDistance(Color color1, Color color2) {
+        return comparableDistance(color1, color2, Double.MAX_VALUE);
+    }
+
+    @Override
+    public double comparableDistance(Color color1, Color color2, double bound) {
+        if (null == color1 || null == color2)
+            return Double.MAX_VALUE;
+        return comparableDistance(color1.getRGB(), color2.getRGB(), bound);
+    }
+
+    /** Squared distance, stopping after any component that already exceeds the bound. */
+    @Override
+    public double comparableDistance(int rgb1, int rgb2, double bound) {
+        int ΔR = ((rgb1 >> 16) & 0xFF) - ((rgb2 >> 16) & 0xFF);
+        int sum = ΔR * ΔR;
+        if (sum > bound)
+            return sum;
+        int ΔG = ((rgb1 >> 8) & 0xFF) - ((rgb2 >> 8) & 0xFF);
+        sum += ΔG * ΔG;
+        if (sum > bound)
+            return sum;
+        int ΔB = (rgb1 & 0xFF) - (rgb2 & 0xFF);
+        return sum + ΔB * ΔB;
+    }
+
+    @Override
+    public double toDistance(double comparable) {
+        return Math.sqrt(comparable);
+    }
+
+    @Override
+    public double toComparable(double distance) {
+        return distance * distance;
     }
 
 }
@@ -4,7 +4,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 
 /**
- * A comparator to sort rows organized as String arrays.
+ * A comparator to sort rows organized as String arrays, or rows of a RowStore.
  * <p>
  * On construction of this comparator, the constructor is handed
  * <ul>
@@ -16,7 +16,7 @@ import java.util.Comparator;
  *  
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
-public class ColorFieldComparator implements Comparator<String[]> {
+public class ColorFieldComparator implements Comparator<String[]>, RowStore.RowComparator {
 	public static final org.slf4j.Logger LOGGER = 
 			org.slf4j.LoggerFactory.getLogger(ColorFieldComparator.class);
 	
@@ -99,4 +99,25 @@ public class ColorFieldComparator implements Comparator<String[]> {
 		}
 	    return 0;
     }
+
+    /** Compare stored rows as their text rows would compare, without formatting the cells. */
+    @Override
+    public int compare(RowStore store, int row1, int row2) {
+    	if ( null == colHeadings || 0 == colHeadings.length || null == sorts || 0 == sorts.length)
+    		return 0;
+		for ( int colIndex = 0; colIndex < colNums.length; colIndex++ ) {
+			if ( -1 != colNums[ colIndex ]) {
+				if ( !store.isNull( row1, colNums[ colIndex ] )) {
+					int result = store.compare( row1, row2, colNums[ colIndex ] );
+					if ( !ascending[ colIndex ]) {
+						result = -result;
+					}
+					if ( 0 != result ) {
+						return result; // no need to compare subsequent columns
+					}
+				}
+			}
+		}
+	    return 0;
+    }
 }
\ No newline at end of file
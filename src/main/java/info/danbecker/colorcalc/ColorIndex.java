@@ -0,0 +1,66 @@
+package info.danbecker.colorcalc;
+
+/**
+ * A search index over the colors of a dictionary.
+ * <p>
+ * Dictionary colors are handed to an index as packed RGB integers (0xRRGGBB)
+ * and are referred to by their position in that array. Queries return positions
+ * so the caller can map back to its own dictionary entries.
+ * <p>
+ * Implementations must give the same answer as a linear scan of the dictionary,
+ * including ties, which resolve to the lowest position.
+ * Queries must be safe to call from multiple threads once the index is built.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public interface ColorIndex {
+
+	/**
+	 * Number of dictionary colors in this index.
+	 * @return count of colors
+	 */
+	public int size();
+
+	/**
+	 * Position of the dictionary color closest to the given color.
+	 * @param rgb packed RGB color 0xRRGGBB (alpha is ignored)
+	 * @return dictionary position or -1 for an empty index.
+	 */
+	public int closest(int rgb);
+
+	/**
+	 * Positions of the k dictionary colors closest to the given color, in one pass.
+	 * @param rgb packed RGB color 0xRRGGBB (alpha is ignored)
+	 * @param k number of neighbours wanted
+	 * @param positions receives dictionary positions, nearest first, must hold k entries
+	 * @return count of positions written, less than k for small dictionaries
+	 */
+	public int closest(int rgb, int k, int[] positions);
+
+	/**
+	 * Positions of all dictionary colors within the given distance of the given color.
+	 * Subtrees that cannot hold a color within the radius are skipped,
+	 * so the cost follows the size of the result rather than the dictionary.
+	 * @param rgb packed RGB color 0xRRGGBB (alpha is ignored)
+	 * @param radius largest distance included
+	 * @return dictionary positions, nearest first, empty when none are within the radius
+	 */
+	public int[] within(int rgb, double radius);
+
+	/**
+	 * Number of queries answered, for indexes that count their work.
+	 * @return query count or 0 when not counted
+	 */
+	public default long getQueryCount() {
+		return 0;
+	}
+
+	/**
+	 * Number of distance evaluations made by all queries, for indexes that count their work.
+	 * Divide by getQueryCount for the evaluations per query. 
+	 * @return distance evaluations or 0 when not counted
+	 */
+	public default long getDistanceCount() {
+		return 0;
+	}
+}
@@ -0,0 +1,204 @@
+package info.danbecker.colorcalc;
+
+/**
+ * A 3-D k-d tree over the red, green, and blue components of dictionary colors.
+ * <p>
+ * The tree is stored implicitly in an array of dictionary positions.
+ * For each range [lo,hi) the median at (lo+hi)/2 is the node,
+ * the lower half is the left subtree, the upper half the right subtree.
+ * The split axis cycles red, green, blue with the depth.
+ * <p>
+ * Nearest neighbour answers match the ColorDistanceRGBEuclidean linear scan.
+ * Distances are compared as squared integers, which orders the same as the
+ * square root distances for 8 bit components.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorIndexKDTree implements ColorIndex {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(ColorIndexKDTree.class);
+
+	public static final int AXES = 3;
+
+	/** Packed RGB dictionary colors by position. */
+	protected final int[] rgbs;
+	/** Dictionary positions arranged as an implicit balanced tree. */
+	protected final int[] tree;
+
+	/**
+	 * Build a tree over the given colors.
+	 * @param rgbs packed RGB colors, position in the array is the dictionary position
+	 */
+	public ColorIndexKDTree(int[] rgbs) {
+		if (null == rgbs)
+			throw new IllegalArgumentException("colors must not be null");
+		this.rgbs = rgbs;
+		tree = new int[rgbs.length];
+		for (int i = 0; i < tree.length; i++) {
+			tree[i] = i;
+		}
+		build(0, tree.length, 0);
+		LOGGER.debug("k-d tree size=" + tree.length);
+	}
+
+	/**
+	 * Use a tree that was built before, for example one read from a compiled dictionary.
+	 * @param rgbs packed RGB colors, position in the array is the dictionary position
+	 * @param tree dictionary positions as arranged by a previous build over the same colors
+	 */
+	protected ColorIndexKDTree(int[] rgbs, int[] tree) {
+		if (null == rgbs || null == tree || rgbs.length != tree.length)
+			throw new IllegalArgumentException("colors and tree must not be null and must be the same size");
+		this.rgbs = rgbs;
+		this.tree = tree;
+	}
+
+	@Override
+	public int size() {
+		return rgbs.length;
+	}
+
+	@Override
+	public int closest(int rgb) {
+		if (0 == tree.length)
+			return -1;
+		// best[0] = position, best[1] = squared distance
+		int[] best = new int[] { -1, Integer.MAX_VALUE };
+		search(rgb, 0, tree.length, 0, best);
+		return best[0];
+	}
+
+	@Override
+	public int closest(int rgb, int k, int[] positions) {
+		if (0 == tree.length || k < 1)
+			return 0;
+		NearestHeap heap = new NearestHeap(Math.min(k, tree.length));
+		search(rgb, 0, tree.length, 0, heap);
+		return heap.drain(positions, null);
+	}
+
+	@Override
+	public int[] within(int rgb, double radius) {
+		NearestList list = new NearestList();
+		if (radius >= 0)
+			search(rgb, 0, tree.length, 0, radius, list);
+		return list.toPositions();
+	}
+
+	/** Recursively visit the range, keeping colors within the radius, pruning subtrees whose split plane is beyond it. */
+	protected void search(int rgb, int lo, int hi, int axis, double radius, NearestList list) {
+		if (lo >= hi)
+			return;
+		int mid = (lo + hi) >>> 1;
+		int pos = tree[mid];
+		int nodeRGB = rgbs[pos];
+		int d2 = distanceSquared(rgb, nodeRGB);
+		// Same square root as ColorDistanceRGBEuclidean, so the boundary agrees with it.
+		if (Math.sqrt(d2) <= radius)
+			list.add(d2, pos);
+		int nextAxis = (axis + 1) % AXES;
+		int diff = component(rgb, axis) - component(nodeRGB, axis);
+		if (diff < 0 || Math.abs(diff) <= radius)
+			search(rgb, lo, mid, nextAxis, radius, list);
+		if (diff >= 0 || Math.abs(diff) <= radius)
+			search(rgb, mid + 1, hi, nextAxis, radius, list);
+	}
+
+	/** Recursively visit the range, keeping the k nearest, pruning subtrees farther than the worst kept. */
+	protected void search(int rgb, int lo, int hi, int axis, NearestHeap heap) {
+		if (lo >= hi)
+			return;
+		int mid = (lo + hi) >>> 1;
+		int pos = tree[mid];
+		int nodeRGB = rgbs[pos];
+		heap.offer(distanceSquared(rgb, nodeRGB), pos);
+		int nextAxis = (axis + 1) % AXES;
+		int diff = component(rgb, axis) - component(nodeRGB, axis);
+		if (diff < 0) {
+			search(rgb, lo, mid, nextAxis, heap);
+			if (diff * diff <= heap.worst())
+				search(rgb, mid + 1, hi, nextAxis, heap);
+		} else {
+			search(rgb, mid + 1, hi, nextAxis, heap);
+			if (diff * diff <= heap.worst())
+				search(rgb, lo, mid, nextAxis, heap);
+		}
+	}
+
+	/** Recursively visit the range, pruning subtrees farther than the best so far. */
+	protected void search(int rgb, int lo, int hi, int axis, int[] best) {
+		if (lo >= hi)
+			return;
+		int mid = (lo + hi) >>> 1;
+		int pos = tree[mid];
+		int nodeRGB = rgbs[pos];
+		int d2 = distanceSquared(rgb, nodeRGB);
+		if (d2 < best[1] || (d2 == best[1] && pos < best[0])) {
+			best[0] = pos;
+			best[1] = d2;
+		}
+		int nextAxis = (axis + 1) % AXES;
+		int diff = component(rgb, axis) - component(nodeRGB, axis);
+		if (diff < 0) {
+			search(rgb, lo, mid, nextAxis, best);
+			// Equal distances are still visited so ties resolve to the lowest position.
+			if (diff * diff <= best[1])
+				search(rgb, mid + 1, hi, nextAxis, best);
+		} else {
+			search(rgb, mid + 1, hi, nextAxis, best);
+			if (diff * diff <= best[1])
+				search(rgb, lo, mid, nextAxis, best);
+		}
+	}
+
+	/** Arrange the range so the median on this axis is in the middle, then recurse on each half. */
+	protected void build(int lo, int hi, int axis) {
+		if (hi - lo < 2)
+			return;
+		int mid = (lo + hi) >>> 1;
+		select(lo, hi - 1, mid, axis);
+		int nextAxis = (axis + 1) % AXES;
+		build(lo, mid, nextAxis);
+		build(mid + 1, hi, nextAxis);
+	}
+
+	/** Quickselect so tree[k] holds the k-th smallest component, lower values before, higher after. */
+	protected void select(int left, int right, int k, int axis) {
+		while (right > left) {
+			int pivot = component(rgbs[tree[(left + right) >>> 1]], axis);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (component(rgbs[tree[i]], axis) < pivot) i++;
+				while (component(rgbs[tree[j]], axis) > pivot) j--;
+				if (i <= j) {
+					int temp = tree[i];
+					tree[i] = tree[j];
+					tree[j] = temp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/** Returns the red (0), green (1), or blue (2) component of a packed RGB. */
+	public static int component(int rgb, int axis) {
+		return (rgb >> (16 - 8 * axis)) & 0xFF;
+	}
+
+	/** Squared Euclidean distance of two packed RGB colors. */
+	public static int distanceSquared(int rgb1, int rgb2) {
+		int ΔR = ((rgb1 >> 16) & 0xFF) - ((rgb2 >> 16) & 0xFF);
+		int ΔG = ((rgb1 >> 8) & 0xFF) - ((rgb2 >> 8) & 0xFF);
+		int ΔB = (rgb1 & 0xFF) - (rgb2 & 0xFF);
+		return ΔR * ΔR + ΔG * ΔG + ΔB * ΔB;
+	}
+}
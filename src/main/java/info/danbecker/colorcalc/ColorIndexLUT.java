@@ -0,0 +1,188 @@
+package info.danbecker.colorcalc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * A precomputed table of the closest dictionary position for all 2^24 RGB colors.
+ * <p>
+ * The table lives in a memory-mapped file next to the dictionary, so a lookup
+ * is a single read. Positions are stored as unsigned 16 bit values for dictionaries
+ * up to 65535 colors, 32 bit values otherwise.
+ * <p>
+ * File layout (big endian)
+ * <pre>
+ * int   magic "CCLT"
+ * int   version
+ * long  checksum of dictionary colors and distance algorithm
+ * int   dictionary size
+ * int   bytes per entry (2 or 4)
+ * 2^24 entries of dictionary positions, indexed by 0xRRGGBB
+ * </pre>
+ * A table whose checksum does not match the dictionary is rebuilt.
+ * Queries for more than one neighbour and radius queries are answered by the base index.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorIndexLUT implements ColorIndex {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(ColorIndexLUT.class);
+
+	public static final int MAGIC = 0x43434C54; // "CCLT"
+	/** Version 2, tables of unbounded distances built over an approximate tree by version 1 are rebuilt. */
+	public static final int VERSION = 2;
+	public static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+	public static final int TABLE_SIZE = 1 << 24;
+	public static final String SUFFIX = ".lut";
+
+	protected final int size;
+	protected final CharBuffer shortTable;
+	protected final IntBuffer intTable;
+	protected final ColorIndex base;
+
+	protected ColorIndexLUT(int size, ByteBuffer table, ColorIndex base) {
+		this.size = size;
+		this.base = base;
+		if (2 == entryBytes(size)) {
+			shortTable = table.asCharBuffer();
+			intTable = null;
+		} else {
+			shortTable = null;
+			intTable = table.asIntBuffer();
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int closest(int rgb) {
+		if (0 == size)
+			return -1;
+		rgb &= 0xFFFFFF;
+		if (null != shortTable)
+			return shortTable.get(rgb);
+		return intTable.get(rgb);
+	}
+
+	@Override
+	public int closest(int rgb, int k, int[] positions) {
+		if (0 == size || k < 1)
+			return 0;
+		if (1 == k) {
+			positions[0] = closest(rgb);
+			return 1;
+		}
+		return base.closest(rgb, k, positions);
+	}
+
+	@Override
+	public int[] within(int rgb, double radius) {
+		return base.within(rgb, radius);
+	}
+
+	/**
+	 * Map the table in the given file, building it first when it is missing or stale.
+	 * @param file table file, typically the dictionary name with a ".lut" suffix
+	 * @param rgbs packed RGB dictionary colors by position
+	 * @param dist distance algorithm the table answers for
+	 * @param base index used to compute each entry while building, and for k nearest queries
+	 * @return mapped table
+	 * @throws IOException
+	 */
+	public static ColorIndexLUT open(Path file, int[] rgbs, ColorDistance dist, ColorIndex base) throws IOException {
+		long checksum = checksum(rgbs, dist);
+		ColorIndexLUT table = map(file, rgbs.length, checksum, base);
+		if (null == table) {
+			LOGGER.info("lookup table=" + file + " missing or stale, building");
+			build(file, rgbs.length, checksum, base);
+			table = map(file, rgbs.length, checksum, base);
+			if (null == table)
+				throw new IOException("lookup table=" + file + " unreadable after build");
+		} else {
+			LOGGER.info("lookup table=" + file + " current, mapped");
+		}
+		return table;
+	}
+
+	/** Map an existing table, or return null when the file is missing or does not match. */
+	protected static ColorIndexLUT map(Path file, int size, long checksum, ColorIndex base) throws IOException {
+		if (!Files.isRegularFile(file))
+			return null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long expected = HEADER_SIZE + (long) TABLE_SIZE * entryBytes(size);
+			if (channel.size() != expected)
+				return null;
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, expected);
+			if (MAGIC != buffer.getInt(0) || VERSION != buffer.getInt(4) || checksum != buffer.getLong(8)
+					|| size != buffer.getInt(16) || entryBytes(size) != buffer.getInt(20))
+				return null;
+			buffer.position(HEADER_SIZE);
+			return new ColorIndexLUT(size, buffer.slice(), base);
+		}
+	}
+
+	/**
+	 * Build the table file, one red slab per task in parallel.
+	 * The header is written last, so an interrupted build is never mistaken for a good table.
+	 */
+	protected static void build(Path file, int size, long checksum, ColorIndex base) throws IOException {
+		long start = System.currentTimeMillis();
+		int entryBytes = entryBytes(size);
+		long fileSize = HEADER_SIZE + (long) TABLE_SIZE * entryBytes;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+			buffer.position(HEADER_SIZE);
+			ByteBuffer table = buffer.slice();
+			IntStream.range(0, 256).parallel().forEach(red -> {
+				// Absolute puts on disjoint slabs, no shared position.
+				for (int gb = 0; gb < 0x10000; gb++) {
+					int rgb = red << 16 | gb;
+					int position = base.closest(rgb);
+					if (2 == entryBytes)
+						table.putChar(rgb * 2, (char) position);
+					else
+						table.putInt(rgb * 4, position);
+				}
+			});
+			buffer.force();
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putLong(8, checksum);
+			buffer.putInt(16, size);
+			buffer.putInt(20, entryBytes);
+			buffer.force();
+		}
+		LOGGER.info("lookup table=" + file + " built in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/** Bytes per table entry for a dictionary of the given size. */
+	public static int entryBytes(int size) {
+		return size <= 0xFFFF ? 2 : 4;
+	}
+
+	/** Checksum of the dictionary colors in position order and the distance algorithm. */
+	public static long checksum(int[] rgbs, ColorDistance dist) {
+		CRC32 crc = new CRC32();
+		crc.update(dist.getClass().getName().getBytes(StandardCharsets.UTF_8));
+		ByteBuffer bytes = ByteBuffer.allocate(4 * rgbs.length);
+		for (int rgb : rgbs) {
+			bytes.putInt(rgb & 0xFFFFFF);
+		}
+		crc.update(bytes.array());
+		return crc.getValue() << 32 | rgbs.length;
+	}
+}
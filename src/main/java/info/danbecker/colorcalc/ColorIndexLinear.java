@@ -0,0 +1,148 @@
+package info.danbecker.colorcalc;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A linear scan over dictionary colors with any ColorDistance.
+ * <p>
+ * This is the reference every other index must agree with.
+ * The first strictly closer color wins, so ties resolve to the lowest position.
+ * Every query costs one distance evaluation per dictionary color, which is
+ * counted for comparison with the tree indexes.
+ * For Lab distances the dictionary colors are converted to Lab once, up front.
+ * Candidates are compared by comparable distance, bounded by the best so far,
+ * so square roots are skipped and hopeless candidates are abandoned early.
+ * Distances work on the packed RGB ints, so a query allocates no Color objects.
+ * The RGB distances are scanned block by block with ColorScanKernel.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorIndexLinear implements ColorIndex {
+
+	protected final int[] rgbs;
+	protected final ColorDistance dist;
+	/** The distance as a Lab distance, or null when it is not one. */
+	protected final ColorDistanceLab labDist;
+	/** Lab coordinates of each position, computed once, when the distance is a Lab distance. */
+	protected final double[][] labs;
+	/** Channel kernel for the RGB distances, or null for other distances. */
+	protected final ColorScanKernel kernel;
+
+	/** Kernel block of comparable distances of each thread, for k nearest scans. */
+	protected static final ThreadLocal<double[]> BLOCKS = ThreadLocal.withInitial(() -> new double[ColorScanKernel.BLOCK]);
+
+	protected final LongAdder queries = new LongAdder();
+	protected final LongAdder distances = new LongAdder();
+
+	/**
+	 * Build a scan over the given colors.
+	 * @param rgbs packed RGB colors, position in the array is the dictionary position
+	 * @param dist distance algorithm
+	 */
+	public ColorIndexLinear(int[] rgbs, ColorDistance dist) {
+		if (null == rgbs || null == dist)
+			throw new IllegalArgumentException("colors and distance must not be null");
+		this.rgbs = rgbs;
+		this.dist = dist;
+		labDist = dist instanceof ColorDistanceLab ? (ColorDistanceLab) dist : null;
+		labs = null == labDist ? null : LabColor.toLab(rgbs);
+		kernel = ColorScanKernel.supports(dist) ? ColorScanKernel.of(rgbs, dist) : null;
+	}
+
+	@Override
+	public int size() {
+		return rgbs.length;
+	}
+
+	@Override
+	public int closest(int rgb) {
+		if (null != kernel) {
+			queries.increment();
+			distances.add(rgbs.length);
+			return kernel.closest(rgb);
+		}
+		double[] lab = queryLab(rgb);
+		double minDist = Double.MAX_VALUE;
+		int closest = -1;
+		for (int i = 0; i < rgbs.length; i++) {
+			double distance = comparableDistance(rgb, lab, i, minDist);
+			if (distance < minDist) {
+				minDist = distance;
+				closest = i;
+			}
+		}
+		queries.increment();
+		distances.add(rgbs.length);
+		return closest;
+	}
+
+	@Override
+	public int closest(int rgb, int k, int[] positions) {
+		if (0 == rgbs.length || k < 1)
+			return 0;
+		double[] lab = queryLab(rgb);
+		NearestHeap heap = new NearestHeap(Math.min(k, rgbs.length));
+		if (null != kernel) {
+			double[] comparables = BLOCKS.get();
+			for (int lo = 0; lo < rgbs.length; lo += ColorScanKernel.BLOCK) {
+				int hi = Math.min(rgbs.length, lo + ColorScanKernel.BLOCK);
+				kernel.comparableDistances(rgb, lo, hi, comparables);
+				for (int i = lo; i < hi; i++) {
+					heap.offer(comparables[i - lo], i);
+				}
+			}
+		} else {
+			for (int i = 0; i < rgbs.length; i++) {
+				heap.offer(comparableDistance(rgb, lab, i, heap.worst()), i);
+			}
+		}
+		queries.increment();
+		distances.add(rgbs.length);
+		return heap.drain(positions, null);
+	}
+
+	@Override
+	public int[] within(int rgb, double radius) {
+		double[] lab = queryLab(rgb);
+		NearestList list = new NearestList();
+		for (int i = 0; i < rgbs.length; i++) {
+			double distance = distance(rgb, lab, i);
+			if (distance <= radius)
+				list.add(distance, i);
+		}
+		queries.increment();
+		distances.add(rgbs.length);
+		return list.toPositions();
+	}
+
+	/** Lab coordinates of the query for a Lab distance, otherwise null. */
+	protected double[] queryLab(int rgb) {
+		return null == labDist ? null : LabColor.toLab(rgb, new double[3]);
+	}
+
+	/** Distance from the query to a position, from the precomputed Lab coordinates when there are some. */
+	protected double distance(int rgb, double[] lab, int position) {
+		if (null == labDist)
+			return dist.distance(rgb, rgbs[position]);
+		return labDist.distance(lab[LabColor.L_POS], lab[LabColor.A_POS], lab[LabColor.B_POS],
+				labs[LabColor.L_POS][position], labs[LabColor.A_POS][position], labs[LabColor.B_POS][position]);
+	}
+
+	/** Comparable distance from the query to a position, abandoned once it exceeds the bound. */
+	protected double comparableDistance(int rgb, double[] lab, int position, double bound) {
+		if (null == labDist)
+			return dist.comparableDistance(rgb, rgbs[position], bound);
+		return labDist.comparableDistance(lab[LabColor.L_POS], lab[LabColor.A_POS], lab[LabColor.B_POS],
+				labs[LabColor.L_POS][position], labs[LabColor.A_POS][position], labs[LabColor.B_POS][position], bound);
+	}
+
+	@Override
+	public long getQueryCount() {
+		return queries.sum();
+	}
+
+	@Override
+	public long getDistanceCount() {
+		return distances.sum();
+	}
+}
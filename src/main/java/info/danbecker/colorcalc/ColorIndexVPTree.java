@@ -0,0 +1,256 @@
+package info.danbecker.colorcalc;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A vantage-point tree over dictionary colors for any ColorDistance.
+ * <p>
+ * The tree is built and searched only with calls to ColorDistance.distance,
+ * so it gives sub-linear lookups for any distance plugged in with -dist.
+ * Each node picks a vantage point and the median distance mu from it to the
+ * rest of its range. Colors within mu go to the inside subtree, the rest outside.
+ * A search skips a subtree when the triangle inequality proves it holds nothing
+ * closer than the k-th best found so far.
+ * <p>
+ * The tree is stored implicitly. For range [lo,hi) the vantage point is at lo,
+ * the inside subtree is [lo+1,split), the outside subtree is [split,hi).
+ * <p>
+ * Pruning bounds are widened by ColorDistance.triangleFactor, so distances
+ * that only nearly satisfy the triangle inequality still match the linear scan.
+ * A distance with an infinite factor, such as CIE94 or CIEDE2000, prunes nothing,
+ * so the tree stays exact but visits every color.
+ * The index counts queries and distance evaluations for comparison with the linear scan.
+ * For Lab distances the dictionary colors are converted to Lab once, up front.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorIndexVPTree implements ColorIndex {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(ColorIndexVPTree.class);
+
+	/** Allowance for rounding in distance arithmetic when pruning. */
+	public static final double EPSILON = 1e-9;
+
+	protected final int[] rgbs;
+	protected final ColorDistance dist;
+	/** The distance as a Lab distance, or null when it is not one. */
+	protected final ColorDistanceLab labDist;
+	/** Lab coordinates of each position, computed once, when the distance is a Lab distance. */
+	protected final double[][] labs;
+	protected final double triangleFactor;
+
+	/** Dictionary positions arranged as an implicit tree. */
+	protected final int[] tree;
+	/** Median distance mu of the node whose range starts at this slot. */
+	protected final double[] mus;
+	/** Start of the outside subtree of the node whose range starts at this slot. */
+	protected final int[] splits;
+
+	protected final LongAdder queries = new LongAdder();
+	protected final LongAdder distances = new LongAdder();
+
+	/**
+	 * Build a tree over the given colors.
+	 * @param rgbs packed RGB colors, position in the array is the dictionary position
+	 * @param dist distance algorithm
+	 */
+	public ColorIndexVPTree(int[] rgbs, ColorDistance dist) {
+		if (null == rgbs || null == dist)
+			throw new IllegalArgumentException("colors and distance must not be null");
+		this.rgbs = rgbs;
+		this.dist = dist;
+		triangleFactor = Math.max(1.0, dist.triangleFactor());
+		labDist = dist instanceof ColorDistanceLab ? (ColorDistanceLab) dist : null;
+		labs = null == labDist ? null : LabColor.toLab(rgbs);
+		tree = new int[rgbs.length];
+		for (int i = 0; i < rgbs.length; i++) {
+			tree[i] = i;
+		}
+		mus = new double[rgbs.length];
+		splits = new int[rgbs.length];
+		build(0, tree.length, new double[rgbs.length]);
+		LOGGER.debug("vantage point tree size=" + tree.length + ", distance=" + dist.getClass().getSimpleName());
+	}
+
+	/**
+	 * Use a tree that was built before, for example one read from a compiled dictionary.
+	 * @param rgbs packed RGB colors, position in the array is the dictionary position
+	 * @param dist distance algorithm the tree was built with
+	 * @param tree dictionary positions as arranged by a previous build
+	 * @param mus median distance of each node
+	 * @param splits outside subtree start of each node
+	 */
+	protected ColorIndexVPTree(int[] rgbs, ColorDistance dist, int[] tree, double[] mus, int[] splits) {
+		if (null == rgbs || null == dist || null == tree || null == mus || null == splits)
+			throw new IllegalArgumentException("colors, distance, and tree must not be null");
+		if (rgbs.length != tree.length || rgbs.length != mus.length || rgbs.length != splits.length)
+			throw new IllegalArgumentException("colors and tree must be the same size");
+		this.rgbs = rgbs;
+		this.dist = dist;
+		this.tree = tree;
+		this.mus = mus;
+		this.splits = splits;
+		triangleFactor = Math.max(1.0, dist.triangleFactor());
+		labDist = dist instanceof ColorDistanceLab ? (ColorDistanceLab) dist : null;
+		labs = null == labDist ? null : LabColor.toLab(rgbs);
+	}
+
+	@Override
+	public int size() {
+		return rgbs.length;
+	}
+
+	@Override
+	public int closest(int rgb) {
+		int[] positions = new int[1];
+		return 0 == closest(rgb, 1, positions) ? -1 : positions[0];
+	}
+
+	@Override
+	public int closest(int rgb, int k, int[] positions) {
+		if (0 == tree.length || k < 1)
+			return 0;
+		NearestHeap heap = new NearestHeap(Math.min(k, tree.length));
+		int[] evaluations = new int[1];
+		search(rgb, queryLab(rgb), 0, tree.length, heap, evaluations);
+		queries.increment();
+		distances.add(evaluations[0]);
+		if (LOGGER.isTraceEnabled())
+			LOGGER.trace("query=" + Integer.toHexString(rgb & 0xFFFFFF) + ", distance evaluations=" + evaluations[0]);
+		return heap.drain(positions, null);
+	}
+
+	@Override
+	public long getQueryCount() {
+		return queries.sum();
+	}
+
+	@Override
+	public long getDistanceCount() {
+		return distances.sum();
+	}
+
+	@Override
+	public int[] within(int rgb, double radius) {
+		NearestList list = new NearestList();
+		if (radius >= 0 && tree.length > 0) {
+			int[] evaluations = new int[1];
+			search(rgb, queryLab(rgb), 0, tree.length, radius, list, evaluations);
+			queries.increment();
+			distances.add(evaluations[0]);
+		}
+		return list.toPositions();
+	}
+
+	/** Visit the node at lo, keeping it if within the radius, then the subtrees that may reach within the radius. */
+	protected void search(int rgb, double[] lab, int lo, int hi, double radius, NearestList list, int[] evaluations) {
+		if (lo >= hi)
+			return;
+		int vantage = tree[lo];
+		double d = distance(rgb, lab, vantage);
+		evaluations[0]++;
+		if (d <= radius)
+			list.add(d, vantage);
+		if (hi - lo == 1)
+			return;
+		double mu = mus[lo];
+		int split = splits[lo];
+		if (d / triangleFactor - mu <= radius + EPSILON)
+			search(rgb, lab, lo + 1, split, radius, list, evaluations);
+		if (mu / triangleFactor - d <= radius + EPSILON)
+			search(rgb, lab, split, hi, radius, list, evaluations);
+	}
+
+	/** Visit the node at lo, then the subtrees the triangle inequality cannot rule out. */
+	protected void search(int rgb, double[] lab, int lo, int hi, NearestHeap heap, int[] evaluations) {
+		if (lo >= hi)
+			return;
+		int vantage = tree[lo];
+		double d = distance(rgb, lab, vantage);
+		evaluations[0]++;
+		heap.offer(d, vantage);
+		if (hi - lo == 1)
+			return;
+		double mu = mus[lo];
+		int split = splits[lo];
+		// Lower bounds on the distance to any color inside or outside mu.
+		double insideBound = d / triangleFactor - mu;
+		double outsideBound = mu / triangleFactor - d;
+		if (d < mu) {
+			if (insideBound <= heap.worst() + EPSILON)
+				search(rgb, lab, lo + 1, split, heap, evaluations);
+			if (outsideBound <= heap.worst() + EPSILON)
+				search(rgb, lab, split, hi, heap, evaluations);
+		} else {
+			if (outsideBound <= heap.worst() + EPSILON)
+				search(rgb, lab, split, hi, heap, evaluations);
+			if (insideBound <= heap.worst() + EPSILON)
+				search(rgb, lab, lo + 1, split, heap, evaluations);
+		}
+	}
+
+	/** Lab coordinates of the query for a Lab distance, otherwise null. */
+	protected double[] queryLab(int rgb) {
+		return null == labDist ? null : LabColor.toLab(rgb, new double[3]);
+	}
+
+	/** Distance from the query to a position, from the precomputed Lab coordinates when there are some. */
+	protected double distance(int rgb, double[] lab, int position) {
+		if (null == labDist)
+			return dist.distance(rgb, rgbs[position]);
+		return labDist.distance(lab[LabColor.L_POS], lab[LabColor.A_POS], lab[LabColor.B_POS],
+				labs[LabColor.L_POS][position], labs[LabColor.A_POS][position], labs[LabColor.B_POS][position]);
+	}
+
+	/** Use the first color of the range as vantage point and split the rest at the median distance. */
+	protected void build(int lo, int hi, double[] scratch) {
+		if (hi - lo < 1)
+			return;
+		if (hi - lo == 1) {
+			splits[lo] = hi;
+			return;
+		}
+		int vantage = tree[lo];
+		double[] lab = null == labDist ? null : new double[] {
+			labs[LabColor.L_POS][vantage], labs[LabColor.A_POS][vantage], labs[LabColor.B_POS][vantage] };
+		for (int i = lo + 1; i < hi; i++) {
+			scratch[i] = distance(rgbs[vantage], lab, tree[i]);
+		}
+		int split = (lo + 1 + hi) >>> 1;
+		select(scratch, lo + 1, hi - 1, split);
+		mus[lo] = scratch[split];
+		splits[lo] = split;
+		build(lo + 1, split, scratch);
+		build(split, hi, scratch);
+	}
+
+	/** Quickselect on distances so slot k holds the median, smaller distances before, larger after. */
+	protected void select(double[] keys, int left, int right, int k) {
+		while (right > left) {
+			double pivot = keys[(left + right) >>> 1];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (keys[i] < pivot) i++;
+				while (keys[j] > pivot) j--;
+				if (i <= j) {
+					double key = keys[i];
+					keys[i] = keys[j];
+					keys[j] = key;
+					int temp = tree[i];
+					tree[i] = tree[j];
+					tree[j] = temp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,375 @@
+package info.danbecker.colorcalc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs distances of a list of colors, for finding near duplicates in a palette.
+ * <p>
+ * Every color is compared with every later color, the upper triangle of the
+ * distance matrix. The triangle is cut into bands of TILE rows, bands run in
+ * parallel on a fork/join pool. A band walks its columns TILE at a time, so the
+ * colors of a row tile and a column tile stay in cache while the tile is done.
+ * <p>
+ * The result is either the list of pairs within a threshold, which holds only the
+ * matching pairs in memory, or a float matrix file, which is written through
+ * band sized memory maps so the matrix is never held on the heap.
+ * 50,000 colors give 1,249,975,000 pairs, about 5 GB of matrix file.
+ * <p>
+ * Matrix file layout (big endian)
+ * <pre>
+ * int   magic "CCPM"
+ * int   version
+ * int   colors
+ * int   distance name bytes
+ * int[colors] packed RGB colors
+ * float[colors * (colors - 1) / 2] distance of each pair i &lt; j, row by row
+ * byte[distance bytes] UTF-8 class name of the distance
+ * </pre>
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorPairs {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(ColorPairs.class);
+
+	/** Rows and columns of one tile. */
+	public static final int TILE = 256;
+
+	public static final int MAGIC = 0x4343504D; // "CCPM"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 4 * 4;
+
+	protected final int[] rgbs;
+	protected final ColorDistance dist;
+	/** The distance as a Lab distance, or null when it is not one. */
+	protected final ColorDistanceLab labDist;
+	/** Lab coordinates of each position, computed once, when the distance is a Lab distance. */
+	protected final double[][] labs;
+
+	/**
+	 * Pairs over the given colors.
+	 * @param rgbs packed RGB colors, position in the array identifies the color
+	 * @param dist distance algorithm
+	 */
+	public ColorPairs(int[] rgbs, ColorDistance dist) {
+		if (null == rgbs || null == dist)
+			throw new IllegalArgumentException("colors and distance must not be null");
+		this.rgbs = rgbs;
+		this.dist = dist;
+		labDist = dist instanceof ColorDistanceLab ? (ColorDistanceLab) dist : null;
+		labs = null == labDist ? null : LabColor.toLab(rgbs);
+	}
+
+	public int size() {
+		return rgbs.length;
+	}
+
+	/** Number of pairs i &lt; j of the given number of colors. */
+	public static long pairCount(int colors) {
+		return (long) colors * (colors - 1) / 2;
+	}
+
+	/** Index of pair i &lt; j in the row by row upper triangle of the given number of colors. */
+	public static long pairIndex(int colors, int i, int j) {
+		if (i > j)
+			return pairIndex(colors, j, i);
+		return (long) i * colors - (long) i * (i + 1) / 2 + (j - i - 1);
+	}
+
+	/**
+	 * Find all pairs within the threshold distance.
+	 * @param pool fork/join pool to run on
+	 * @param threshold largest distance included
+	 * @return pairs ordered by first, then second position
+	 */
+	public PairList within(ForkJoinPool pool, double threshold) {
+		if (null == pool)
+			throw new IllegalArgumentException("pool must not be null");
+		long start = System.currentTimeMillis();
+		int bands = (rgbs.length + TILE - 1) / TILE;
+		PairList[] results = new PairList[bands];
+		pool.invoke(new BandTask(0, bands, dist.toComparable(threshold), results, null));
+		PairList pairs = new PairList();
+		for (PairList band : results) {
+			pairs.addAll(band);
+		}
+		LOGGER.info("pairs colors=" + rgbs.length + ", within=" + threshold + ", pairs=" + pairs.size()
+				+ ", ms=" + (System.currentTimeMillis() - start));
+		return pairs;
+	}
+
+	/**
+	 * Write the distance of every pair to a matrix file.
+	 * @param pool fork/join pool to run on
+	 * @param file matrix file, replaced if present
+	 * @throws IOException
+	 */
+	public void writeMatrix(ForkJoinPool pool, Path file) throws IOException {
+		if (null == pool || null == file)
+			throw new IllegalArgumentException("pool and file must not be null");
+		long start = System.currentTimeMillis();
+		int colors = rgbs.length;
+		byte[] distanceBytes = dist.getClass().getName().getBytes(StandardCharsets.UTF_8);
+		long matrixStart = matrixPosition(colors);
+		long matrixEnd = matrixStart + 4 * pairCount(colors);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(4 * colors);
+			buffer.asIntBuffer().put(rgbs);
+			// Sizes the file, the matrix between is filled in by the bands.
+			writeFully(channel, ByteBuffer.allocate(HEADER_SIZE), 0);
+			writeFully(channel, buffer, HEADER_SIZE);
+			writeFully(channel, ByteBuffer.wrap(distanceBytes), matrixEnd);
+			int bands = (colors + TILE - 1) / TILE;
+			try {
+				pool.invoke(new BandTask(0, bands, 0.0, null, channel));
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			// Header last, so an interrupted write is never mistaken for a good file.
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(colors).putInt(distanceBytes.length);
+			header.flip();
+			writeFully(channel, header, 0);
+			channel.force(true);
+		}
+		LOGGER.info("pairs matrix=" + file + ", colors=" + colors + ", pairs=" + pairCount(colors)
+				+ ", bytes=" + (matrixEnd + distanceBytes.length) + ", ms=" + (System.currentTimeMillis() - start));
+	}
+
+	/** Byte position of the matrix in a matrix file of the given number of colors. */
+	public static long matrixPosition(int colors) {
+		return HEADER_SIZE + 4L * colors;
+	}
+
+	/**
+	 * Read the distance of one pair from a matrix file.
+	 * @param channel open matrix file
+	 * @param i position of one color
+	 * @param j position of another color
+	 * @return distance of the pair, 0 when i == j
+	 * @throws IOException
+	 */
+	public static float readDistance(FileChannel channel, int i, int j) throws IOException {
+		if (i == j)
+			return 0.0f;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(channel, buffer, 0);
+		if (MAGIC != buffer.getInt(0))
+			throw new IOException("not a color pairs matrix file");
+		if (VERSION != buffer.getInt(4))
+			throw new IOException("unsupported color pairs matrix version " + buffer.getInt(4));
+		int colors = buffer.getInt(8);
+		if (i < 0 || j < 0 || i >= colors || j >= colors)
+			throw new IllegalArgumentException("pair " + i + "," + j + " outside " + colors + " colors");
+		ByteBuffer value = ByteBuffer.allocate(4);
+		readFully(channel, value, matrixPosition(colors) + 4 * pairIndex(colors, i, j));
+		return value.getFloat(0);
+	}
+
+	protected static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	protected static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int count = channel.read(buffer, position);
+			if (-1 == count)
+				throw new IOException("color pairs matrix file is truncated");
+			position += count;
+		}
+	}
+
+	/** Comparable distance of two positions, from the precomputed Lab coordinates when there are some. */
+	protected double comparableDistance(int i, int j, double bound) {
+		if (null == labDist)
+			return dist.comparableDistance(rgbs[i], rgbs[j], bound);
+		return labDist.comparableDistance(labs[LabColor.L_POS][i], labs[LabColor.A_POS][i], labs[LabColor.B_POS][i],
+				labs[LabColor.L_POS][j], labs[LabColor.A_POS][j], labs[LabColor.B_POS][j], bound);
+	}
+
+	/** Distance of two positions, from the precomputed Lab coordinates when there are some. */
+	protected double distance(int i, int j) {
+		if (null == labDist)
+			return dist.distance(rgbs[i], rgbs[j]);
+		return labDist.distance(labs[LabColor.L_POS][i], labs[LabColor.A_POS][i], labs[LabColor.B_POS][i],
+				labs[LabColor.L_POS][j], labs[LabColor.A_POS][j], labs[LabColor.B_POS][j]);
+	}
+
+	/**
+	 * Rows of bands [lo,hi), split in halves down to single bands.
+	 * With a channel the band distances are written to the matrix file,
+	 * otherwise the pairs within the bound go to results by band.
+	 */
+	protected class BandTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		protected final int lo;
+		protected final int hi;
+		protected final double bound;
+		protected final PairList[] results;
+		protected final FileChannel channel;
+
+		protected BandTask(int lo, int hi, double bound, PairList[] results, FileChannel channel) {
+			this.lo = lo;
+			this.hi = hi;
+			this.bound = bound;
+			this.results = results;
+			this.channel = channel;
+		}
+
+		@Override
+		protected void compute() {
+			if (lo >= hi)
+				return;
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BandTask(lo, mid, bound, results, channel), new BandTask(mid, hi, bound, results, channel));
+				return;
+			}
+			if (null == channel) {
+				results[lo] = pairs(lo);
+			} else {
+				try {
+					write(lo);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+
+		/** Pairs of one band within the bound, ordered by first, then second position. */
+		protected PairList pairs(int band) {
+			int i0 = band * TILE;
+			int i1 = Math.min(rgbs.length, i0 + TILE);
+			PairList pairs = new PairList();
+			for (int j0 = i0; j0 < rgbs.length; j0 += TILE) {
+				int j1 = Math.min(rgbs.length, j0 + TILE);
+				for (int i = i0; i < i1; i++) {
+					for (int j = Math.max(j0, i + 1); j < j1; j++) {
+						double comparable = comparableDistance(i, j, bound);
+						if (comparable <= bound)
+							pairs.add(i, j, (float) dist.toDistance(comparable));
+					}
+				}
+			}
+			pairs.sortByFirst(i0, i1);
+			return pairs;
+		}
+
+		/** Write the distances of one band, which are contiguous rows of the matrix. */
+		protected void write(int band) throws IOException {
+			int colors = rgbs.length;
+			int i0 = band * TILE;
+			int i1 = Math.min(colors, i0 + TILE);
+			long first = pairIndex(colors, i0, i0 + 1);
+			long last = i1 < colors ? pairIndex(colors, i1, i1 + 1) : pairCount(colors);
+			if (last <= first)
+				return;
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+					matrixPosition(colors) + 4 * first, 4 * (last - first));
+			for (int j0 = i0; j0 < colors; j0 += TILE) {
+				int j1 = Math.min(colors, j0 + TILE);
+				for (int i = i0; i < i1; i++) {
+					int position = (int) (4 * (pairIndex(colors, i, i + 1) - first));
+					for (int j = Math.max(j0, i + 1); j < j1; j++) {
+						buffer.putFloat(position + 4 * (j - i - 1), (float) distance(i, j));
+					}
+				}
+			}
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Pairs of positions with their distances.
+	 */
+	public static class PairList {
+		public static final int INITIAL_CAPACITY = 16;
+
+		protected int[] firsts = new int[INITIAL_CAPACITY];
+		protected int[] seconds = new int[INITIAL_CAPACITY];
+		protected float[] distances = new float[INITIAL_CAPACITY];
+		protected int size;
+
+		public int size() {
+			return size;
+		}
+
+		public int getFirst(int pair) {
+			return firsts[pair];
+		}
+
+		public int getSecond(int pair) {
+			return seconds[pair];
+		}
+
+		public float getDistance(int pair) {
+			return distances[pair];
+		}
+
+		public void add(int first, int second, float distance) {
+			if (size == firsts.length)
+				ensureCapacity(size + 1);
+			firsts[size] = first;
+			seconds[size] = second;
+			distances[size] = distance;
+			size++;
+		}
+
+		public void addAll(PairList other) {
+			ensureCapacity(size + other.size);
+			System.arraycopy(other.firsts, 0, firsts, size, other.size);
+			System.arraycopy(other.seconds, 0, seconds, size, other.size);
+			System.arraycopy(other.distances, 0, distances, size, other.size);
+			size += other.size;
+		}
+
+		protected void ensureCapacity(int capacity) {
+			if (capacity > firsts.length) {
+				int length = Math.max(capacity, Math.max(INITIAL_CAPACITY, 2 * firsts.length));
+				firsts = Arrays.copyOf(firsts, length);
+				seconds = Arrays.copyOf(seconds, length);
+				distances = Arrays.copyOf(distances, length);
+			}
+		}
+
+		/**
+		 * Stable counting sort by first position, all firsts in [lo,hi).
+		 * Pairs added tile by tile are then ordered by first, then second position.
+		 */
+		protected void sortByFirst(int lo, int hi) {
+			int[] starts = new int[hi - lo + 1];
+			for (int i = 0; i < size; i++) {
+				starts[firsts[i] - lo + 1]++;
+			}
+			for (int i = 1; i < starts.length; i++) {
+				starts[i] += starts[i - 1];
+			}
+			int[] sortedFirsts = new int[size];
+			int[] sortedSeconds = new int[size];
+			float[] sortedDistances = new float[size];
+			for (int i = 0; i < size; i++) {
+				int to = starts[firsts[i] - lo]++;
+				sortedFirsts[to] = firsts[i];
+				sortedSeconds[to] = seconds[i];
+				sortedDistances[to] = distances[i];
+			}
+			firsts = sortedFirsts;
+			seconds = sortedSeconds;
+			distances = sortedDistances;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package info.danbecker.colorcalc;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * A brute force scan kernel for the RGB distances over structure of arrays dictionary channels.
+ * <p>
+ * The dictionary is split once into red, green, and blue int arrays. A query
+ * fills a block of comparable distances in one branch free counted loop over
+ * the channels, which the JIT unrolls and compiles to SIMD instructions where
+ * the hardware has them, then a second loop picks the closest of the block.
+ * <p>
+ * On JDK 17 and later the vector build profile also compiles ColorScanVectorKernel,
+ * which writes the same loops with the incubating jdk.incubator.vector API.
+ * The of method loads it by name when the JVM runs with
+ * "--add-modules jdk.incubator.vector", and otherwise returns this scalar kernel.
+ * <p>
+ * The arithmetic repeats ColorDistanceRGBEuclidean and ColorDistanceRGBWeighted
+ * term by term in the same order, so results are bit for bit the same as theirs.
+ * <p>
+ * Block buffers are kept per thread and shared by all kernels, so a query allocates nothing.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorScanKernel {
+
+	/** Colors whose distances are computed before the closest is picked. */
+	public static final int BLOCK = 512;
+
+	/** Block buffers of each thread. */
+	protected static final ThreadLocal<int[]> SQUARES = ThreadLocal.withInitial(() -> new int[BLOCK]);
+	protected static final ThreadLocal<double[]> COMPARABLES = ThreadLocal.withInitial(() -> new double[BLOCK]);
+
+	/** Constructor of the Vector API kernel, or null when it is not built or its module is not present. */
+	protected static final Constructor<? extends ColorScanKernel> VECTOR_KERNEL = vectorKernel();
+
+	protected final int[] reds;
+	protected final int[] greens;
+	protected final int[] blues;
+	/** The channels as doubles, for the weighted distance only. */
+	protected final double[] redLanes;
+	protected final double[] greenLanes;
+	protected final double[] blueLanes;
+	protected final boolean weighted;
+
+	/**
+	 * Split the given colors into channels.
+	 * @param rgbs packed RGB colors, position in the array is the dictionary position
+	 * @param dist ColorDistanceRGBEuclidean or ColorDistanceRGBWeighted, see supports
+	 */
+	public ColorScanKernel(int[] rgbs, ColorDistance dist) {
+		if (null == rgbs || !supports(dist))
+			throw new IllegalArgumentException("colors must not be null and distance must be an RGB distance");
+		weighted = ColorDistanceRGBWeighted.class == dist.getClass();
+		reds = new int[rgbs.length];
+		greens = new int[rgbs.length];
+		blues = new int[rgbs.length];
+		for (int i = 0; i < rgbs.length; i++) {
+			reds[i] = (rgbs[i] >> 16) & 0xFF;
+			greens[i] = (rgbs[i] >> 8) & 0xFF;
+			blues[i] = rgbs[i] & 0xFF;
+		}
+		redLanes = weighted ? toLanes(reds) : null;
+		greenLanes = weighted ? toLanes(greens) : null;
+		blueLanes = weighted ? toLanes(blues) : null;
+	}
+
+	/**
+	 * A kernel for the given colors, the Vector API kernel when it is available, else this scalar kernel.
+	 * @param rgbs packed RGB colors, position in the array is the dictionary position
+	 * @param dist ColorDistanceRGBEuclidean or ColorDistanceRGBWeighted, see supports
+	 */
+	public static ColorScanKernel of(int[] rgbs, ColorDistance dist) {
+		if (null != VECTOR_KERNEL && null != rgbs && supports(dist)) {
+			try {
+				return VECTOR_KERNEL.newInstance(rgbs, dist);
+			} catch (ReflectiveOperationException e) {
+				// Checked above, fall back to the scalar kernel.
+			}
+		}
+		return new ColorScanKernel(rgbs, dist);
+	}
+
+	/**
+	 * Load the Vector API kernel by name. Incubator classes link lazily, so both
+	 * distances are run once here, and any missing class or method selects the scalar kernel.
+	 */
+	protected static Constructor<? extends ColorScanKernel> vectorKernel() {
+		try {
+			Constructor<? extends ColorScanKernel> constructor = Class.forName("info.danbecker.colorcalc.ColorScanVectorKernel")
+					.asSubclass(ColorScanKernel.class).getConstructor(int[].class, ColorDistance.class);
+			// Longer than the widest vector, so the vector loops run too.
+			int[] rgbs = new int[64];
+			for (ColorDistance dist : new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceRGBWeighted() }) {
+				constructor.newInstance(rgbs, dist).closest(0x7F7F7F);
+			}
+			return constructor;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	protected static double[] toLanes(int[] channel) {
+		double[] lanes = new double[channel.length];
+		for (int i = 0; i < channel.length; i++) {
+			lanes[i] = channel[i];
+		}
+		return lanes;
+	}
+
+	/** Tell whether the kernel computes the given distance. Subclasses may change the formula, so they are not. */
+	public static boolean supports(ColorDistance dist) {
+		return null != dist && (ColorDistanceRGBEuclidean.class == dist.getClass()
+				|| ColorDistanceRGBWeighted.class == dist.getClass());
+	}
+
+	public int size() {
+		return reds.length;
+	}
+
+	/**
+	 * Comparable distances, the squared distances, from the query to positions [lo,hi).
+	 * @param rgb packed RGB query color
+	 * @param comparables receives the comparable distance of position lo + i at i, at least hi - lo long
+	 */
+	public void comparableDistances(int rgb, int lo, int hi, double[] comparables) {
+		if (weighted) {
+			weightedDistances(rgb, lo, hi, comparables);
+		} else {
+			int[] squares = SQUARES.get();
+			for (int from = lo; from < hi; from += BLOCK) {
+				int to = Math.min(hi, from + BLOCK);
+				squaredDistances(rgb, from, to, squares);
+				for (int i = 0; i < to - from; i++) {
+					comparables[from - lo + i] = squares[i];
+				}
+			}
+		}
+	}
+
+	/** Euclidean squared distances in int lanes. */
+	protected void squaredDistances(int rgb, int lo, int hi, int[] squares) {
+		int red = (rgb >> 16) & 0xFF;
+		int green = (rgb >> 8) & 0xFF;
+		int blue = rgb & 0xFF;
+		for (int i = lo; i < hi; i++) {
+			int ΔR = red - reds[i];
+			int ΔG = green - greens[i];
+			int ΔB = blue - blues[i];
+			squares[i - lo] = ΔR * ΔR + ΔG * ΔG + ΔB * ΔB;
+		}
+	}
+
+	/**
+	 * Weighted squared distances in double lanes. Channel sums and squares are
+	 * small integers, exact as doubles, so they equal the int arithmetic of ColorDistanceRGBWeighted.
+	 */
+	protected void weightedDistances(int rgb, int lo, int hi, double[] comparables) {
+		double red = (rgb >> 16) & 0xFF;
+		double green = (rgb >> 8) & 0xFF;
+		double blue = rgb & 0xFF;
+		for (int i = lo; i < hi; i++) {
+			double rbar = ( red + redLanes[i] ) / 2.0;
+			double ΔR = red - redLanes[i];
+			double ΔG = green - greenLanes[i];
+			double ΔB = blue - blueLanes[i];
+			comparables[i - lo] = (2.0 + rbar/256.0) * (ΔR * ΔR) + 4.0 * (ΔG * ΔG) + (2.0 + (255.0-rbar)/256.0) * (ΔB * ΔB);
+		}
+	}
+
+	/**
+	 * Position of the closest color, ties resolve to the lowest position.
+	 * @param rgb packed RGB query color
+	 * @return closest position, -1 when there are no colors
+	 */
+	public int closest(int rgb) {
+		int closest = -1;
+		if (weighted) {
+			double[] comparables = COMPARABLES.get();
+			double minDist = Double.MAX_VALUE;
+			for (int lo = 0; lo < reds.length; lo += BLOCK) {
+				int hi = Math.min(reds.length, lo + BLOCK);
+				weightedDistances(rgb, lo, hi, comparables);
+				for (int i = 0; i < hi - lo; i++) {
+					if (comparables[i] < minDist) {
+						minDist = comparables[i];
+						closest = lo + i;
+					}
+				}
+			}
+		} else {
+			int[] squares = SQUARES.get();
+			int minDist = Integer.MAX_VALUE;
+			for (int lo = 0; lo < reds.length; lo += BLOCK) {
+				int hi = Math.min(reds.length, lo + BLOCK);
+				squaredDistances(rgb, lo, hi, squares);
+				for (int i = 0; i < hi - lo; i++) {
+					if (squares[i] < minDist) {
+						minDist = squares[i];
+						closest = lo + i;
+					}
+				}
+			}
+		}
+		return closest;
+	}
+}
@@ -1,6 +1,7 @@
 package info.danbecker.colorcalc;
 
 import java.awt.Color;
+import java.util.Arrays;
 
 /**
  * ColorUtils
@@ -21,34 +22,117 @@ public class ColorUtils {
 	public static Color toColor(String colorString) {
 		if (null == colorString)
 			return null;
-		colorString = colorString.trim();
-		if (colorString.startsWith("#")) {
-			colorString = colorString.substring("#".length());
+		return new Color(parseRGB(colorString), true);
+	}
+
+	/** Upper case hexadecimal digits by value. */
+	protected static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	/** Value of each ASCII character as a hexadecimal digit, -1 for none. */
+	protected static final byte[] HEX_VALUES = new byte[128];
+	static {
+		Arrays.fill(HEX_VALUES, (byte) -1);
+		for (int i = 0; i < 16; i++) {
+			HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+			HEX_VALUES[Character.toLowerCase(HEX_DIGITS[i])] = (byte) i;
 		}
-		// LOGGER.info( "toColor string=" + colorString );
-		if ( 6 == colorString.length()) {
-			return new Color(Integer.parseInt(colorString.substring(0, 2), 16), Integer.parseInt(colorString.substring(2, 4), 16),
-				Integer.parseInt(colorString.substring(4), 16), 255);
-		} else if ( 8 == colorString.length()) {
-			return new Color(Integer.parseInt(colorString.substring(0, 2), 16), Integer.parseInt(colorString.substring(2, 4), 16),
-					Integer.parseInt(colorString.substring(4, 6), 16), Integer.parseInt(colorString.substring(6), 16));			
-		} else {
-			throw new IllegalArgumentException( "could not handle color string " + colorString);
+	}
+
+	/**
+	 * Return a packed ARGB int from a given RGB or RGBA string in hexadecimal,
+	 * as Color.getRGB would give for toColor of the same string.
+	 * The string is read in place, no substrings or Color objects are created.
+	 * Examples are "#ff7f3f" 0xFFFF7F3F, "808080ff" 0xFF808080
+	 * @throws IllegalArgumentException for a null or badly sized string, NumberFormatException for a bad digit
+	 */
+	public static int parseRGB(String colorString) {
+		if (null == colorString)
+			throw new IllegalArgumentException( "could not handle color string null");
+		return parseRGB(colorString, 0, colorString.length());
+	}
+
+	/**
+	 * Return a packed ARGB int from the RGB or RGBA hexadecimal color at [start,end) of the given text,
+	 * such as a field of an input line. White space around the color and a leading # are skipped.
+	 * @throws IllegalArgumentException for a badly sized color, NumberFormatException for a bad digit
+	 */
+	public static int parseRGB(CharSequence text, int start, int end) {
+		while (start < end && text.charAt(start) <= ' ')
+			start++;
+		while (end > start && text.charAt(end - 1) <= ' ')
+			end--;
+		if (start < end && '#' == text.charAt(start))
+			start++;
+		int length = end - start;
+		if ( 6 != length && 8 != length )
+			throw new IllegalArgumentException( "could not handle color string " + text.subSequence(start, end));
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			int digit = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+			if (digit < 0)
+				throw new NumberFormatException( "could not handle color string " + text.subSequence(start, end));
+			value = (value << 4) | digit;
 		}
+		// RRGGBBAA to AARRGGBB
+		return 6 == length ? 0xFF000000 | value : (value >>> 8) | (value << 24);
 	}
 
 	/** Return a hexadecimal String of RGB from a given color. Example "ff7f3f". */
 	public static String toRGB(Color color) {
 		if (null == color)
 			return null;
-		return String.format("%02X%02X%02X", color.getRed(), color.getGreen(), color.getBlue());
+		return toRGB(color.getRGB());
+	}
+
+	/** Return a hexadecimal String of RGB from a given packed RGB int, alpha is ignored. Example "FF7F3F". */
+	public static String toRGB(int rgb) {
+		char[] chars = new char[6];
+		formatRGB(rgb, chars, 0);
+		return new String(chars);
 	}
 
     /** Return a hexadecimal String of RGBA from a given color. Example "ff7f3fff". */
 	public static String toRGBA(Color color) {
 		if (null == color)
 			return null;
-		return String.format("%s%02X", toRGB(color), color.getAlpha());
+		return toRGBA(color.getRGB());
+	}
+
+	/** Return a hexadecimal String of RGBA from a given packed ARGB int. Example "FF7F3FFF". */
+	public static String toRGBA(int argb) {
+		char[] chars = new char[8];
+		formatRGBA(argb, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * Write the six upper case hexadecimal digits of a packed RGB int into a reusable buffer, alpha is ignored.
+	 * @return offset after the digits
+	 */
+	public static int formatRGB(int rgb, char[] chars, int offset) {
+		for (int shift = 20; shift >= 0; shift -= 4) {
+			chars[offset++] = HEX_DIGITS[(rgb >> shift) & 0xF];
+		}
+		return offset;
+	}
+
+	/**
+	 * Write the eight upper case hexadecimal digits RRGGBBAA of a packed ARGB int into a reusable buffer.
+	 * @return offset after the digits
+	 */
+	public static int formatRGBA(int argb, char[] chars, int offset) {
+		offset = formatRGB(argb, chars, offset);
+		chars[offset++] = HEX_DIGITS[(argb >>> 28) & 0xF];
+		chars[offset++] = HEX_DIGITS[(argb >>> 24) & 0xF];
+		return offset;
+	}
+
+	/** Append the six upper case hexadecimal digits of a packed RGB int, alpha is ignored. */
+	public static StringBuilder appendRGB(StringBuilder builder, int rgb) {
+		for (int shift = 20; shift >= 0; shift -= 4) {
+			builder.append(HEX_DIGITS[(rgb >> shift) & 0xF]);
+		}
+		return builder;
 	}
 
 	/**
@@ -77,7 +161,12 @@ public class ColorUtils {
     /** Returns grayed value of given color. */
     public final static Color luminanceGray( HSLColor hslColor ) {
         // float mono = (0.2125f * color.getRed()) + (0.7154f * color.getGreen()) + (0.0721f * color.getBlue());
-		int lum255 = Math.round(hslColor.getLuminance() * 255.0f / 100f);
+        return luminanceGray( hslColor.getLuminance() );
+    }
+
+    /** Returns grayed value of given luminance percentage. */
+    public final static Color luminanceGray( float luminance ) {
+		int lum255 = Math.round(luminance * 255.0f / 100f);
         return new Color( lum255, lum255, lum255 );
     }
 }
\ No newline at end of file
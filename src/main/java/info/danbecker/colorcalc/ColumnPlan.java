@@ -0,0 +1,382 @@
+package info.danbecker.colorcalc;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The output columns of ColorCalc compiled against the headers of one input file.
+ * <p>
+ * Each column name of the -c option is split into its prefix and field once,
+ * its dictionary rank and its input column are resolved once, and the result
+ * is kept as an extractor that computes the cell from a data row.
+ * Executing the plan on a row is then one loop over the extractors, with no
+ * column name parsing and no header searches.
+ * Colors, HSL values, counts, dictionary positions, and distances are extracted as
+ * typed values, so a row appended to a RowStore makes no strings but those of the input.
+ * See ColorCalc.populateOutputData for the column names understood.
+ * <p>
+ * A plan is immutable and may be shared by threads evaluating rows of the same file.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColumnPlan {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(ColumnPlan.class);
+
+	/** Computes one output cell of a data row. */
+	public interface Extractor {
+		/**
+		 * @param dictionary dictionary of the match
+		 * @param match dictionary match of the row, looked up on first use
+		 * @param data fields of the input row
+		 * @param rgb packed RGB color of the row
+		 * @return cell text or null for none
+		 */
+		String extract( ColorDictionary dictionary, DictionaryMatch match, String[] data, int rgb );
+	}
+
+	/** Computes one output cell of a data row as an int value, RowStore.NULL for none. */
+	public interface IntExtractor {
+		int extract( ColorDictionary dictionary, DictionaryMatch match, String[] data, int rgb );
+	}
+
+	/** Computes one distance cell of a data row, NaN for none. */
+	public interface DistanceExtractor {
+		double extract( ColorDictionary dictionary, DictionaryMatch match, String[] data, int rgb );
+	}
+
+	/** The cell of a column that has no value. */
+	protected static final Extractor NONE = ( dictionary, match, data, rgb ) -> null;
+
+	protected final String[] cols;
+	protected final String[] headers;
+	/** Input position of the row color. */
+	protected final int rgbIndex;
+	/** Closest dictionary colors the columns ask for. */
+	protected final int neighbours;
+	/** Text of each column. */
+	protected final Extractor[] extractors;
+	/** Kind of each column in a RowStore. */
+	protected final RowStore.Kind[] kinds;
+	/** Values of the int kind columns. */
+	protected final IntExtractor[] values;
+	/** Values of the DISTANCE columns. */
+	protected final DistanceExtractor[] distances;
+	/** Log label of each column, null for a column not logged. */
+	protected final String[] labels;
+	/** Columns whose logged HSL value is followed by the RGB it gives back. */
+	protected final boolean[] derivedRGB;
+
+	/**
+	 * Compile the given output columns for rows with the given headers.
+	 * @param cols output column names, such as "Name,RGB,HSL,Dict-Name,Dict-RGB,Dict-Dist"
+	 * @param headers column names of the input rows
+	 * @param radius distance of Within- columns
+	 */
+	public ColumnPlan( String[] cols, String[] headers, double radius ) {
+		this( cols, headers, radius, null );
+	}
+
+	/**
+	 * Compile the given output columns for rows with the given headers.
+	 * @param cols output column names, such as "Name,RGB,HSL,Dict-Name,Dict-RGB,Dict-Dist"
+	 * @param headers column names of the input rows
+	 * @param radius distance of Within- columns
+	 * @param hslTable precomputed HSL of computed HSL columns, null to convert each color
+	 */
+	public ColumnPlan( String[] cols, String[] headers, double radius, HSLTable hslTable ) {
+		this.cols = cols.clone();
+		this.headers = null == headers ? null : headers.clone();
+		rgbIndex = ColorCalc.arrayPosition( headers, Col.RGB.getName() );
+		neighbours = ColorCalc.dictionaryNeighbours( cols );
+		extractors = new Extractor[ cols.length ];
+		kinds = new RowStore.Kind[ cols.length ];
+		values = new IntExtractor[ cols.length ];
+		distances = new DistanceExtractor[ cols.length ];
+		labels = new String[ cols.length ];
+		derivedRGB = new boolean[ cols.length ];
+		for ( int colIndex = 0; colIndex < cols.length; colIndex++ ) {
+			compile( colIndex, cols[ colIndex ], radius, hslTable );
+		}
+	}
+
+	/** Resolve one column into its extractor and log label. */
+	protected void compile( int colIndex, String col, double radius, HSLTable hslTable ) {
+		String prefix = "";
+		int delimLoc = col.indexOf( ColorCalc.PREFIX_DELIM );
+		if ( -1 != delimLoc ) {
+			// Column name has a prefix;
+			prefix = col.substring( 0, delimLoc );
+			col = col.substring( delimLoc + 1 );
+		}
+		boolean input = "".equals( prefix ) || "Input".equals( prefix );
+		boolean within = Col.WITHIN.equals( prefix );
+		int rank = ColorCalc.dictionaryRank( prefix );
+		String prefixed = "".equals( prefix ) ? col : prefix + ColorCalc.PREFIX_DELIM + col;
+		switch ( col ) {
+			case "Name" : {
+				labels[ colIndex ] = prefixed;
+				if ( input ) {
+					int position = ColorCalc.arrayPosition( headers, Col.NAME.getName() );
+					textColumn( colIndex, ( dictionary, match, data, rgb ) -> data[ position ] );
+				} else if ( rank > 0 ) {
+					intColumn( colIndex, RowStore.Kind.NAMES, closest( rank ));
+				} else if ( within ) {
+					textColumn( colIndex, ( dictionary, match, data, rgb ) -> {
+						StringBuilder names = new StringBuilder();
+						for ( int position : match.getWithin( radius )) {
+							if ( names.length() > 0 ) names.append( " " );
+							names.append( dictionary.getNamesText( position ));
+						}
+						return names.toString();
+					});
+				} else {
+					textColumn( colIndex, NONE );
+				}
+				return;
+			}
+			case "RGB" :
+			case "R": case "G": case "B": {
+				labels[ colIndex ] = col;
+				IntExtractor value = null;
+				if ( input ) {
+					// Normalize output (might get rid of #)
+					value = ( dictionary, match, data, rgb ) -> rgb & 0xFFFFFF;
+				} else if ( rank > 0 ) {
+					IntExtractor closest = closest( rank );
+					value = ( dictionary, match, data, rgb ) -> {
+						int position = closest.extract( dictionary, match, data, rgb );
+						return RowStore.NULL == position ? RowStore.NULL : dictionary.getRGB( position );
+					};
+				} else if ( within && "RGB".equals( col )) {
+					textColumn( colIndex, ( dictionary, match, data, rgb ) -> {
+						StringBuilder rgbs = new StringBuilder();
+						for ( int position : match.getWithin( radius )) {
+							if ( rgbs.length() > 0 ) rgbs.append( " " );
+							ColorUtils.appendRGB( rgbs, dictionary.getRGB( position ));
+						}
+						return rgbs.toString();
+					});
+					return;
+				}
+				if ( null == value ) {
+					textColumn( colIndex, NONE );
+					return;
+				}
+				switch ( col ) {
+					case "R": intColumn( colIndex, RowStore.Kind.RED, part( value, color -> ( color >> 16 ) & 0xFF )); break;
+					case "G": intColumn( colIndex, RowStore.Kind.GREEN, part( value, color -> ( color >> 8 ) & 0xFF )); break;
+					case "B": intColumn( colIndex, RowStore.Kind.BLUE, part( value, color -> color & 0xFF )); break;
+					default: intColumn( colIndex, RowStore.Kind.RGB, value );
+				}
+				return;
+			}
+			case "HSL" :
+			case "H" :	case "S" :	case "L" : {
+				labels[ colIndex ] = col;
+				derivedRGB[ colIndex ] = "HSL".equals( col );
+				IntExtractor value = null;
+				if ( input ) {
+					int position = ColorCalc.arrayPosition( headers, Col.HSL.getName() );
+					if ( -1 != position ) {
+						// Should normalize output, but what is the String representation of HSL?
+						Extractor extractor = ( dictionary, match, data, rgb ) -> data[ position ];
+						switch ( col ) {
+							case "H": extractor = part( extractor, 0, 3 ); break;
+							case "S": extractor = part( extractor, 3, 6 ); break;
+							case "L": extractor = part( extractor, 6, -1 ); break;
+						}
+						textColumn( colIndex, extractor );
+						return;
+					} else if ( -1 != rgbIndex ) {
+						// HSL calculated from RGB
+						value = ( dictionary, match, data, rgb ) -> hsl( hslTable, rgb );
+					}
+				} else if ( rank > 0 ) {
+					IntExtractor closest = closest( rank );
+					value = ( dictionary, match, data, rgb ) -> {
+						int position = closest.extract( dictionary, match, data, rgb );
+						return RowStore.NULL == position ? RowStore.NULL : hsl( hslTable, dictionary.getRGB( position ));
+					};
+				}
+				if ( null == value ) {
+					textColumn( colIndex, NONE );
+					return;
+				}
+				switch ( col ) {
+					case "H": intColumn( colIndex, RowStore.Kind.HUE, part( value, HSLColor::hue )); break;
+					case "S": intColumn( colIndex, RowStore.Kind.SAT, part( value, HSLColor::saturation )); break;
+					case "L": intColumn( colIndex, RowStore.Kind.LUM, part( value, HSLColor::luminance )); break;
+					default: intColumn( colIndex, RowStore.Kind.HSL, value );
+				}
+				return;
+			}
+			case "Count" : {
+				if ( within ) {
+					labels[ colIndex ] = prefixed;
+					intColumn( colIndex, RowStore.Kind.COUNT, ( dictionary, match, data, rgb ) -> match.getWithin( radius ).length );
+				} else {
+					// Input Count column is copied like other columns.
+					copyColumn( colIndex, col );
+				}
+				return;
+			}
+			case "Dist" : {
+				if ( rank > 0 ) {
+					labels[ colIndex ] = prefixed;
+					DistanceExtractor distance = ( dictionary, match, data, rgb ) -> match.getDistance( rank );
+					kinds[ colIndex ] = RowStore.Kind.DISTANCE;
+					distances[ colIndex ] = distance;
+					extractors[ colIndex ] = ( dictionary, match, data, rgb ) -> {
+						double value = distance.extract( dictionary, match, data, rgb );
+						return Double.isNaN( value ) ? null : ColorCalc.formatDistance( value );
+					};
+				} else {
+					// Input Dist column is copied like other columns.
+					copyColumn( colIndex, col );
+				}
+				return;
+			}
+			default: {
+				// Copy other columns without processing
+				copyColumn( colIndex, col );
+			}
+		}
+	}
+
+	/** Copy the input column of the given name, NONE when the input has no such column. */
+	protected void copyColumn( int colIndex, String col ) {
+		int position = ColorCalc.arrayPosition( headers, col );
+		if ( -1 != position ) {
+			// Might be the last column with no data.
+			textColumn( colIndex, ( dictionary, match, data, rgb ) -> position < data.length ? data[ position ] : null );
+		} else {
+			LOGGER.error( "Unknown column name " + col );
+			textColumn( colIndex, NONE );
+		}
+	}
+
+	/** A column of strings, NONE for a column without values. */
+	protected void textColumn( int colIndex, Extractor extractor ) {
+		kinds[ colIndex ] = NONE == extractor ? RowStore.Kind.NONE : RowStore.Kind.TEXT;
+		extractors[ colIndex ] = extractor;
+	}
+
+	/** A column of int values of the given kind, its text formatted from the value. */
+	protected void intColumn( int colIndex, RowStore.Kind kind, IntExtractor value ) {
+		kinds[ colIndex ] = kind;
+		values[ colIndex ] = value;
+		extractors[ colIndex ] = ( dictionary, match, data, rgb ) -> RowStore.format( kind, value.extract( dictionary, match, data, rgb ), dictionary );
+	}
+
+	/** Dictionary position of the closest color of the given rank. */
+	protected static IntExtractor closest( int rank ) {
+		return ( dictionary, match, data, rgb ) -> {
+			int closest = match.getClosest( rank );
+			return -1 == closest ? RowStore.NULL : closest;
+		};
+	}
+
+	/** The packed HSL of a color, from the table when there is one. */
+	protected static int hsl( HSLTable hslTable, int rgb ) {
+		return null == hslTable ? HSLColor.rgbToHSL( rgb ) : hslTable.toHSL( rgb );
+	}
+
+	/** A part of the extracted value, such as its hue. */
+	protected static IntExtractor part( IntExtractor value, IntUnaryOperator part ) {
+		return ( dictionary, match, data, rgb ) -> {
+			int whole = value.extract( dictionary, match, data, rgb );
+			return RowStore.NULL == whole ? RowStore.NULL : part.applyAsInt( whole );
+		};
+	}
+
+	/** The characters [begin,end) of the extracted text, end -1 for the rest. */
+	protected static Extractor part( Extractor extractor, int begin, int end ) {
+		if ( NONE == extractor )
+			return NONE;
+		return ( dictionary, match, data, rgb ) -> {
+			String text = extractor.extract( dictionary, match, data, rgb );
+			if ( null == text )
+				return null;
+			return -1 == end ? text.substring( begin ) : text.substring( begin, end );
+		};
+	}
+
+	public int getNeighbours() {
+		return neighbours;
+	}
+
+	/**
+	 * Return the output columns of the given data row.
+	 * Safe to call from several threads once the dictionary and its index are built.
+	 * @param dictionary dictionary of the Dict- and Within- columns
+	 * @param data fields of the input row, ordered as the headers
+	 * @return output row, ordered as the columns
+	 */
+	public String[] execute( ColorDictionary dictionary, String[] data ) {
+		int rgb = rowRGB( data );
+		// One dictionary lookup shared by all Dict- columns of this row.
+		DictionaryMatch match = new DictionaryMatch( dictionary, rgb, neighbours );
+
+		String[] outputRow = new String[ extractors.length ];
+		for ( int colIndex = 0; colIndex < extractors.length; colIndex++ ) {
+			outputRow[ colIndex ] = extractors[ colIndex ].extract( dictionary, match, data, rgb );
+		}
+		if ( LOGGER.isInfoEnabled() ) {
+			LOGGER.info( describe( outputRow ));
+		}
+		return outputRow;
+	}
+
+	/**
+	 * Add the output columns of the given data row to a store, as typed values.
+	 * The store must have the columns of this plan, and may be used by one thread only.
+	 * @param dictionary dictionary of the Dict- and Within- columns
+	 * @param data fields of the input row, ordered as the headers
+	 * @param store store receiving the row
+	 * @return position of the row in the store
+	 */
+	public int append( ColorDictionary dictionary, String[] data, RowStore store ) {
+		int rgb = rowRGB( data );
+		DictionaryMatch match = new DictionaryMatch( dictionary, rgb, neighbours );
+
+		int row = store.addRow();
+		for ( int colIndex = 0; colIndex < kinds.length; colIndex++ ) {
+			switch ( kinds[ colIndex ] ) {
+				case NONE: break;
+				case TEXT: store.setText( row, colIndex, extractors[ colIndex ].extract( dictionary, match, data, rgb )); break;
+				case DISTANCE: store.setDistance( row, colIndex, distances[ colIndex ].extract( dictionary, match, data, rgb )); break;
+				default: store.setInt( row, colIndex, kinds[ colIndex ], values[ colIndex ].extract( dictionary, match, data, rgb ));
+			}
+		}
+		if ( LOGGER.isInfoEnabled() ) {
+			LOGGER.info( describe( store.getRow( row )));
+		}
+		return row;
+	}
+
+	/** The color of a data row, needed to make an output line. */
+	protected int rowRGB( String[] data ) {
+		String rgbString = data[ rgbIndex ];
+		if ( null == rgbString ) {
+			throw new IllegalArgumentException( "missing color on data row " + Arrays.deepToString( data ));
+		}
+		return ColorUtils.parseRGB( rgbString );
+	}
+
+	/** The logged text of an output row. */
+	protected String describe( String[] outputRow ) {
+		StringBuilder loggerInfo = new StringBuilder();
+		for ( int colIndex = 0; colIndex < outputRow.length; colIndex++ ) {
+			if ( null == labels[ colIndex ] )
+				continue;
+			if ( loggerInfo.length() > 0 ) loggerInfo.append( ", " );
+			loggerInfo.append( labels[ colIndex ] + "=" + outputRow[ colIndex ] );
+			if ( derivedRGB[ colIndex ] && null != outputRow[ colIndex ] ) {
+				// append derived RGB
+				loggerInfo.append( ", RGB'=" + ColorUtils.toRGB( HSLColor.hslToRGB( HSLColor.parseHSL( outputRow[ colIndex ] ))));
+			}
+		}
+		return loggerInfo.toString();
+	}
+}
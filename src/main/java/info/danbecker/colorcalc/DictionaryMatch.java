@@ -0,0 +1,136 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The dictionary match for one input row.
+ * <p>
+ * The closest dictionary colors are looked up on first use and shared by
+ * every Dict- prefixed column of the row, so a row costs at most one lookup.
+ * When columns ask for the k-th closest color (Dict2-Name, Dict3-RGB, ...)
+ * all k neighbours come from that same single query.
+ * Within- prefixed columns share one radius query in the same way.
+ * Counters record lookups performed and lookups saved across all rows.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class DictionaryMatch {
+	/** Lookups performed against the dictionary. */
+	protected static final LongAdder lookups = new LongAdder();
+	/** Lookups answered from an earlier column of the same row. */
+	protected static final LongAdder lookupsSaved = new LongAdder();
+
+	protected final ColorDictionary dictionary;
+	protected final int rgb;
+	protected final int neighbours;
+
+	/** Dictionary positions nearest first, null until looked up. */
+	protected int[] positions;
+	protected int count;
+	/** Dictionary positions within withinRadius nearest first, null until looked up. */
+	protected int[] within;
+	protected double withinRadius;
+
+	public DictionaryMatch( ColorDictionary dictionary, int rgb ) {
+		this( dictionary, rgb, 1 );
+	}
+
+	/**
+	 * @param dictionary
+	 * @param rgb input row color, packed RGB
+	 * @param neighbours number of closest colors the row needs
+	 */
+	public DictionaryMatch( ColorDictionary dictionary, int rgb, int neighbours ) {
+		this.dictionary = dictionary;
+		this.rgb = rgb;
+		this.neighbours = Math.max( 1, neighbours );
+	}
+
+	/**
+	 * Return the closest color in the dictionary, looked up once per row.
+	 * @return dictionary position or -1 for none found.
+	 */
+	public int getClosest() {
+		return getClosest( 1 );
+	}
+
+	/**
+	 * Return the k-th closest color in the dictionary, looked up once per row.
+	 * @param rank 1 for the closest, 2 for the next closest, and so on
+	 * @return dictionary position or -1 for none found.
+	 */
+	public int getClosest( int rank ) {
+		resolve();
+		if ( rank < 1 || rank > count )
+			return -1;
+		return positions[ rank - 1 ];
+	}
+
+	/**
+	 * Return the distance from the row color to the k-th closest dictionary color.
+	 * @param rank 1 for the closest, 2 for the next closest, and so on
+	 * @return distance or NaN for none found.
+	 */
+	public double getDistance( int rank ) {
+		int position = getClosest( rank );
+		if ( -1 == position )
+			return Double.NaN;
+		return ColorCalc.dist.distance( rgb, dictionary.getRGB( position ) );
+	}
+
+	/**
+	 * Return all dictionary colors within the radius of the row color, looked up once per row.
+	 * @param radius largest distance included
+	 * @return dictionary positions nearest first, empty for none found.
+	 */
+	public int[] getWithin( double radius ) {
+		if ( null == within || radius != withinRadius ) {
+			within = ColorCalc.colorsWithin( dictionary, rgb, radius );
+			withinRadius = radius;
+		}
+		return within;
+	}
+
+	/** Lookup the neighbours on first use. */
+	protected void resolve() {
+		if ( null != positions ) {
+			lookupsSaved.increment();
+			return;
+		}
+		positions = new int[ neighbours ];
+		if ( null != dictionary ) {
+			if ( 1 == neighbours ) {
+				positions[ 0 ] = ColorCalc.closestColor( dictionary, rgb );
+				count = -1 == positions[ 0 ] ? 0 : 1;
+			} else {
+				count = ColorCalc.closestColors( dictionary, rgb, neighbours, positions );
+			}
+		}
+		lookups.increment();
+	}
+
+	public Color getColor() {
+		return new Color( rgb );
+	}
+
+	public int getRGB() {
+		return rgb;
+	}
+
+	/** Returns count of dictionary lookups performed. */
+	public static long getLookups() {
+		return lookups.sum();
+	}
+
+	/** Returns count of dictionary lookups saved by sharing a row match. */
+	public static long getLookupsSaved() {
+		return lookupsSaved.sum();
+	}
+
+	/** Reset the lookup counters. */
+	public static void resetCounts() {
+		lookups.reset();
+		lookupsSaved.reset();
+	}
+}
@@ -16,7 +16,7 @@ import java.util.Comparator;
  *  
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
-public class GroupComparator implements Comparator<String[]> {
+public class GroupComparator implements Comparator<String[]>, RowStore.RowComparator {
 	public static final org.slf4j.Logger LOGGER = 
 			org.slf4j.LoggerFactory.getLogger(GroupComparator.class);
 	
@@ -112,6 +112,35 @@ public class GroupComparator implements Comparator<String[]> {
 	    return 0;
     }
     
+    /** Compare stored rows as their text rows would compare, without formatting the cells. */
+    @Override
+    public int compare(RowStore store, int row1, int row2) {
+    	if ( null == colHeadings || 0 == colHeadings.length || null == sorts || 0 == sorts.length)
+    		return 0;
+    	if ( null == colNums || 0 == colNums.length || null == comparisons || 0 == comparisons.length|| null == values || 0 == values.length)
+    		return 0;
+
+		for ( int sortIndex = 0; sortIndex < colNums.length; sortIndex++ ) {
+			if ( -1 != colNums[ sortIndex ]) {
+				boolean row1Meets = meets( store, row1, sortIndex );
+				boolean row2Meets = meets( store, row2, sortIndex );
+				if ( row1Meets == row2Meets ) {
+					return 0;
+				}
+				return row1Meets ? 1 : -1;
+			}
+		}
+	    return 0;
+    }
+
+    /** Determines if the stored cell "meets" the comparison and value of the given group sort, as meets on its text. */
+    protected boolean meets( RowStore store, int row, int sortIndex ) {
+    	if ( null == comparisons[ sortIndex ] || store.isNull( row, colNums[ sortIndex ] )) {
+    		return false;
+    	}
+    	return meets( store.compareText( row, colNums[ sortIndex ], values[ sortIndex ] ), comparisons[ sortIndex ] );
+    }
+
     /** Determines if the given data "meets" the comparison and value.
      * For example "0", "LT", "10" meets, and
      * "0", "GT", "10" does not meet.
@@ -128,8 +157,12 @@ public class GroupComparator implements Comparator<String[]> {
     		return false;
     	}
     	
+    	return meets( data.compareTo( value ), comparison );
+    }
+
+    /** Determines if a compareTo result of data and value "meets" the comparison. */
+    protected boolean meets( int compare, String comparison ) {
     	RelOp relOp = RelOp.fromSymbol(comparison);
-    	int compare = data.compareTo( value );
     	switch ( relOp ) {
     	case LT: {
     		if ( compare < 0 ) {
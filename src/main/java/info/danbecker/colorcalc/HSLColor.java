@@ -1,6 +1,8 @@
 package info.danbecker.colorcalc;
 
 import java.awt.Color;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The HSLColor class provides methods to manipulate HSL (Hue, Saturation
@@ -33,6 +35,14 @@ public class HSLColor implements Comparable<HSLColor>{
 	public static final int SAT_POS = 1;
 	public static final int LUM_POS = 2;
 	public static final int ALPHA_POS = 3;
+
+	/** Bit offsets of a packed HSL int, 9 bits of hue 0..360, 8 bits each of saturation and luminance 0..100. */
+	public static final int HUE_SHIFT = 16;
+	public static final int SAT_SHIFT = 8;
+	public static final int LUM_SHIFT = 0;
+
+	/** Largest range of a batch conversion done without splitting further. */
+	public static final int BATCH_THRESHOLD = 4096;
 	
 	private Color rgb;
 	private float[] hsl;
@@ -140,10 +150,19 @@ public class HSLColor implements Comparable<HSLColor>{
 	 * @return the RGB Color object
 	 */
 	public Color adjustShade(float percent) {
-		float multiplier = (100.0f - percent) / 100.0f;
-		float l = Math.max(0.0f, hsl[LUM_POS] * multiplier);
+		return toRGB(hsl[HUE_POS], hsl[SAT_POS], shadeLuminance(hsl[LUM_POS], percent), alpha);
+	}
 
-		return toRGB(hsl[HUE_POS], hsl[SAT_POS], l, alpha);
+	/**
+	 * Luminance of adjustShade, darker by the given relative percent.
+	 *
+	 * @param l       the Luminance value between 0 - 100
+	 * @param percent - the value between 0 - 100
+	 * @return the darker Luminance
+	 */
+	public static float shadeLuminance(float l, float percent) {
+		float multiplier = (100.0f - percent) / 100.0f;
+		return Math.max(0.0f, l * multiplier);
 	}
 
 	/**
@@ -155,10 +174,19 @@ public class HSLColor implements Comparable<HSLColor>{
 	 * @return the RGB Color object
 	 */
 	public Color adjustTone(float percent) {
-		float multiplier = (100.0f + percent) / 100.0f;
-		float l = Math.min(100.0f, hsl[LUM_POS] * multiplier);
+		return toRGB(hsl[HUE_POS], hsl[SAT_POS], toneLuminance(hsl[LUM_POS], percent), alpha);
+	}
 
-		return toRGB(hsl[HUE_POS], hsl[SAT_POS], l, alpha);
+	/**
+	 * Luminance of adjustTone, lighter by the given relative percent.
+	 *
+	 * @param l       the Luminance value between 0 - 100
+	 * @param percent - the value between 0 - 100
+	 * @return the lighter Luminance
+	 */
+	public static float toneLuminance(float l, float percent) {
+		float multiplier = (100.0f + percent) / 100.0f;
+		return Math.min(100.0f, l * multiplier);
 	}
 
 	/**
@@ -245,15 +273,39 @@ public class HSLColor implements Comparable<HSLColor>{
 		// Get RGB values in the range 0 - 1
 
 		float[] rgb = color.getRGBColorComponents(null);
-		float r = rgb[0];
-		float g = rgb[1];
-		float b = rgb[2];
+		return fromRGB(rgb[0], rgb[1], rgb[2], new float[3]);
+	}
 
+	/**
+	 * Convert a packed RGB int to its corresponding HSL values in a caller supplied array.
+	 * The values equal those of fromRGB for a Color of the same int.
+	 *
+	 * @param rgb packed RGB, alpha is ignored
+	 * @param hsl array receiving the 3 HSL values
+	 * @return the given array
+	 */
+	public static float[] fromRGB(int rgb, float[] hsl) {
+		return fromRGB(((rgb >> 16) & 0xFF) / 255f, ((rgb >> 8) & 0xFF) / 255f, (rgb & 0xFF) / 255f, hsl);
+	}
+
+	/**
+	 * Convert RGB components in the range 0 - 1 to HSL values in a caller supplied array.
+	 *
+	 * @return the given array
+	 */
+	protected static float[] fromRGB(float r, float g, float b, float[] hsl) {
 		// Minimum and Maximum RGB values are used in the HSL calculations
 		float min = Math.min(r, Math.min(g, b));
 		float max = Math.max(r, Math.max(g, b));
 
-		// Calculate the Hue
+		hsl[HUE_POS] = rgbHue(r, g, b, min, max);
+		hsl[SAT_POS] = rgbSaturation(min, max) * 100;
+		hsl[LUM_POS] = rgbLuminance(min, max) * 100;
+		return hsl;
+	}
+
+	/** Hue in degrees of RGB components in the range 0 - 1, shared by fromRGB and rgbToHSL. */
+	private static float rgbHue(float r, float g, float b, float min, float max) {
 		float h = 0;
 		if (max == min)
 			h = 0;
@@ -263,20 +315,241 @@ public class HSLColor implements Comparable<HSLColor>{
 			h = (60 * (b - r) / (max - min)) + 120;
 		else if (max == b)
 			h = (60 * (r - g) / (max - min)) + 240;
+		return h;
+	}
 
-		// Calculate the Luminance
-		float l = (max + min) / 2;
+	/** Luminance 0 - 1 of the minimum and maximum RGB components. */
+	private static float rgbLuminance(float min, float max) {
+		return (max + min) / 2;
+	}
 
-		// Calculate the Saturation
+	/** Saturation 0 - 1 of the minimum and maximum RGB components. */
+	private static float rgbSaturation(float min, float max) {
 		float s = 0;
 		if (max == min)
 			s = 0;
-		else if (l <= .5f)
+		else if (rgbLuminance(min, max) <= .5f)
 			s = (max - min) / (max + min);
 		else
 			s = (max - min) / (2 - max - min);
+		return s;
+	}
+
+	/**
+	 * Convert packed RGB ints to HSL values in structure of arrays form,
+	 * hues[i], sats[i], lums[i] as fromRGB(rgbs[i]) would give.
+	 *
+	 * @param rgbs packed RGB colors, alpha is ignored
+	 * @param hues receives the Hue values, at least rgbs.length long
+	 * @param sats receives the Saturation values, at least rgbs.length long
+	 * @param lums receives the Luminance values, at least rgbs.length long
+	 */
+	public static void fromRGB(int[] rgbs, float[] hues, float[] sats, float[] lums) {
+		if (null == rgbs || null == hues || null == sats || null == lums)
+			throw new IllegalArgumentException("colors and HSL arrays must not be null");
+		checkBatch(rgbs.length, rgbs, hues, sats, lums);
+		fromRGB(rgbs, hues, sats, lums, 0, rgbs.length);
+	}
+
+	/**
+	 * Convert packed RGB ints to HSL values in structure of arrays form on a fork/join pool.
+	 * The batch is split in ranges of at most BATCH_THRESHOLD colors, small batches run on the caller.
+	 *
+	 * @see #fromRGB(int[], float[], float[], float[])
+	 */
+	public static void fromRGB(ForkJoinPool pool, int[] rgbs, float[] hues, float[] sats, float[] lums) {
+		if (null == pool || null == rgbs || null == hues || null == sats || null == lums)
+			throw new IllegalArgumentException("pool, colors, and HSL arrays must not be null");
+		checkBatch(rgbs.length, rgbs, hues, sats, lums);
+		pool.invoke(new BatchTask(true, rgbs, hues, sats, lums, 0, rgbs.length));
+	}
+
+	/** Convert positions [lo,hi) of a batch to HSL. */
+	protected static void fromRGB(int[] rgbs, float[] hues, float[] sats, float[] lums, int lo, int hi) {
+		float[] hsl = new float[3];
+		for (int i = lo; i < hi; i++) {
+			fromRGB(rgbs[i], hsl);
+			hues[i] = hsl[HUE_POS];
+			sats[i] = hsl[SAT_POS];
+			lums[i] = hsl[LUM_POS];
+		}
+	}
+
+	/**
+	 * Convert HSL values in structure of arrays form to packed RGB ints with full alpha,
+	 * rgbs[i] as toRGB(hues[i], sats[i], lums[i]).getRGB() would give.
+	 *
+	 * @param hues Hue values in degrees 0 - 360
+	 * @param sats Saturation percentages 0 - 100, at least hues.length long
+	 * @param lums Luminance percentages 0 - 100, at least hues.length long
+	 * @param rgbs receives packed ARGB colors, at least hues.length long
+	 */
+	public static void toRGB(float[] hues, float[] sats, float[] lums, int[] rgbs) {
+		if (null == rgbs || null == hues || null == sats || null == lums)
+			throw new IllegalArgumentException("colors and HSL arrays must not be null");
+		checkBatch(hues.length, rgbs, hues, sats, lums);
+		toRGB(hues, sats, lums, rgbs, 0, hues.length);
+	}
+
+	/**
+	 * Convert HSL values in structure of arrays form to packed RGB ints on a fork/join pool.
+	 * The batch is split in ranges of at most BATCH_THRESHOLD colors, small batches run on the caller.
+	 *
+	 * @see #toRGB(float[], float[], float[], int[])
+	 */
+	public static void toRGB(ForkJoinPool pool, float[] hues, float[] sats, float[] lums, int[] rgbs) {
+		if (null == pool || null == rgbs || null == hues || null == sats || null == lums)
+			throw new IllegalArgumentException("pool, colors, and HSL arrays must not be null");
+		checkBatch(hues.length, rgbs, hues, sats, lums);
+		pool.invoke(new BatchTask(false, rgbs, hues, sats, lums, 0, hues.length));
+	}
+
+	/** Convert positions [lo,hi) of a batch to RGB. */
+	protected static void toRGB(float[] hues, float[] sats, float[] lums, int[] rgbs, int lo, int hi) {
+		for (int i = lo; i < hi; i++) {
+			rgbs[i] = hslToRGB(hues[i], sats[i], lums[i]);
+		}
+	}
+
+	/** Batch arrays must not be null and must hold count values. */
+	protected static void checkBatch(int count, int[] rgbs, float[] hues, float[] sats, float[] lums) {
+		if (rgbs.length < count || hues.length < count || sats.length < count || lums.length < count)
+			throw new IllegalArgumentException("colors and HSL arrays must hold " + count + " entries");
+	}
+
+	/** Converts a range of a batch, splitting it in halves down to BATCH_THRESHOLD. */
+	protected static class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		protected final boolean fromRGB;
+		protected final int[] rgbs;
+		protected final float[] hues;
+		protected final float[] sats;
+		protected final float[] lums;
+		protected final int lo;
+		protected final int hi;
+
+		protected BatchTask(boolean fromRGB, int[] rgbs, float[] hues, float[] sats, float[] lums, int lo, int hi) {
+			this.fromRGB = fromRGB;
+			this.rgbs = rgbs;
+			this.hues = hues;
+			this.sats = sats;
+			this.lums = lums;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= BATCH_THRESHOLD) {
+				if (fromRGB)
+					HSLColor.fromRGB(rgbs, hues, sats, lums, lo, hi);
+				else
+					HSLColor.toRGB(hues, sats, lums, rgbs, lo, hi);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new BatchTask(fromRGB, rgbs, hues, sats, lums, lo, mid),
+					new BatchTask(fromRGB, rgbs, hues, sats, lums, mid, hi));
+		}
+	}
+
+	/**
+	 * Convert a packed RGB int to a packed HSL int of whole degrees and percents,
+	 * the values of toString, without allocating.
+	 *
+	 * @param rgb packed RGB, alpha is ignored
+	 * @return packed HSL, see HUE_SHIFT
+	 */
+	public static int rgbToHSL(int rgb) {
+		float r = ((rgb >> 16) & 0xFF) / 255f;
+		float g = ((rgb >> 8) & 0xFF) / 255f;
+		float b = (rgb & 0xFF) / 255f;
+		float min = Math.min(r, Math.min(g, b));
+		float max = Math.max(r, Math.max(g, b));
+
+		// The helpers of fromRGB, so packed values are the truncated fromRGB values.
+		return packHSL((int) rgbHue(r, g, b, min, max), (int) (rgbSaturation(min, max) * 100), (int) (rgbLuminance(min, max) * 100));
+	}
+
+	/**
+	 * Pack whole HSL values into an int.
+	 *
+	 * @param h Hue in degrees 0 - 360
+	 * @param s Saturation percentage 0 - 100
+	 * @param l Luminance percentage 0 - 100
+	 * @return packed HSL
+	 */
+	public static int packHSL(int h, int s, int l) {
+		return (h << HUE_SHIFT) | (s << SAT_SHIFT) | (l << LUM_SHIFT);
+	}
+
+	/** Hue in degrees of a packed HSL int. */
+	public static int hue(int hsl) {
+		return (hsl >> HUE_SHIFT) & 0x1FF;
+	}
+
+	/** Saturation percentage of a packed HSL int. */
+	public static int saturation(int hsl) {
+		return (hsl >> SAT_SHIFT) & 0xFF;
+	}
 
-		return new float[] { h, s * 100, l * 100 };
+	/** Luminance percentage of a packed HSL int. */
+	public static int luminance(int hsl) {
+		return (hsl >> LUM_SHIFT) & 0xFF;
+	}
+
+	/**
+	 * Convert a packed HSL int to a packed RGB int with full alpha, as toRGB(h, s, l).getRGB()
+	 * would give, without creating a Color.
+	 *
+	 * @param hsl packed HSL, see HUE_SHIFT
+	 * @return packed ARGB
+	 */
+	public static int hslToRGB(int hsl) {
+		return hslToRGB(hue(hsl), saturation(hsl), luminance(hsl));
+	}
+
+	/**
+	 * Convert HSL values to a packed RGB int with full alpha, as toRGB(h, s, l).getRGB()
+	 * would give, without creating a Color.
+	 *
+	 * @param h Hue is specified as degrees in the range 0 - 360.
+	 * @param s Saturation is specified as a percentage in the range 0 - 100.
+	 * @param l Lumanance is specified as a percentage in the range 0 - 100.
+	 * @return packed ARGB
+	 */
+	public static int hslToRGB(float h, float s, float l) {
+		if (s < 0.0f || s > 100.0f) {
+			String message = "Color parameter outside of expected range - Saturation";
+			throw new IllegalArgumentException(message);
+		}
+
+		if (l < 0.0f || l > 100.0f) {
+			String message = "Color parameter outside of expected range - Luminance";
+			throw new IllegalArgumentException(message);
+		}
+
+		// Same arithmetic as toRGB, rounded as the float Color constructor rounds.
+		h = h % 360.0f;
+		h /= 360f;
+		s /= 100f;
+		l /= 100f;
+
+		float q = 0;
+
+		if (l < 0.5)
+			q = l * (1 + s);
+		else
+			q = (l + s) - (s * l);
+
+		float p = 2 * l - q;
+
+		float r = Math.min(Math.max(0, HueToRGB(p, q, h + (1.0f / 3.0f))), 1.0f);
+		float g = Math.min(Math.max(0, HueToRGB(p, q, h)), 1.0f);
+		float b = Math.min(Math.max(0, HueToRGB(p, q, h - (1.0f / 3.0f))), 1.0f);
+
+		return 0xFF000000 | ((int) (r * 255 + 0.5) << 16) | ((int) (g * 255 + 0.5) << 8) | (int) (b * 255 + 0.5);
 	}
 
 	/**
@@ -414,6 +687,49 @@ public class HSLColor implements Comparable<HSLColor>{
 		);
 	}
 
+	/**
+	 * Parse a packed HSL int from text of the form HHHSSSLLL, see fromString,
+	 * read in place without substrings.
+	 *
+	 * @param nineDigits text of at least nine digits
+	 * @return packed HSL, see HUE_SHIFT
+	 * @throws IllegalArgumentException for a hue above 360, or a saturation or luminance above 100
+	 */
+	public static int parseHSL(CharSequence nineDigits) {
+		if ( null == nineDigits || nineDigits.length() < 9 ) {
+			throw new IllegalArgumentException ( "String \"" + nineDigits + "\" should be of form HHHSSSLLL" );
+		}
+		int h = parseThreeDigits(nineDigits, 0);
+		int s = parseThreeDigits(nineDigits, 3);
+		int l = parseThreeDigits(nineDigits, 6);
+		// The packed fields would hold larger values as other colors.
+		if (h > 360) {
+			String message = "Color parameter outside of expected range - Hue";
+			throw new IllegalArgumentException(message);
+		}
+		if (s > 100) {
+			String message = "Color parameter outside of expected range - Saturation";
+			throw new IllegalArgumentException(message);
+		}
+		if (l > 100) {
+			String message = "Color parameter outside of expected range - Luminance";
+			throw new IllegalArgumentException(message);
+		}
+		return packHSL(h, s, l);
+	}
+
+	/** Read the three decimal digits at offset. */
+	protected static int parseThreeDigits(CharSequence text, int offset) {
+		int value = 0;
+		for (int i = offset; i < offset + 3; i++) {
+			int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException( "String \"" + text + "\" should be of form HHHSSSLLL" );
+			value = 10 * value + digit;
+		}
+		return value;
+	}
+
     // Object methods
     public static int compare(final HSLColor hsl1, final HSLColor hsl2) {
     	// Problems if hsla floats bits are NaN. Avoid casts and floatToRawIntBits
@@ -481,7 +797,36 @@ public class HSLColor implements Comparable<HSLColor>{
 	 */
 	public static String toString(Color color) {
 		float [] hsl = HSLColor.fromRGB( color );
-		return String.format("%03d%03d%03d", 
-		   Float.valueOf(hsl[HUE_POS]).intValue(), Float.valueOf(hsl[SAT_POS]).intValue(), Float.valueOf(hsl[LUM_POS]).intValue() );
+		char [] chars = new char[ 9 ];
+		formatHSL( packHSL( (int) hsl[HUE_POS], (int) hsl[SAT_POS], (int) hsl[LUM_POS] ), chars, 0 );
+		return new String( chars );
+	}
+
+	/**
+	 * Convert a packed RGB int to its HSL value string HHHSSSLLL, see toString(Color).
+	 */
+	public static String toString(int rgb) {
+		char [] chars = new char[ 9 ];
+		formatHSL( rgbToHSL( rgb ), chars, 0 );
+		return new String( chars );
+	}
+
+	/**
+	 * Write the nine digits HHHSSSLLL of a packed HSL int into a reusable buffer.
+	 *
+	 * @return offset after the digits
+	 */
+	public static int formatHSL(int hsl, char[] chars, int offset) {
+		offset = formatThreeDigits(hue(hsl), chars, offset);
+		offset = formatThreeDigits(saturation(hsl), chars, offset);
+		return formatThreeDigits(luminance(hsl), chars, offset);
+	}
+
+	/** Write a value 0 - 999 zero padded to three digits. */
+	protected static int formatThreeDigits(int value, char[] chars, int offset) {
+		chars[offset++] = (char) ('0' + value / 100);
+		chars[offset++] = (char) ('0' + value / 10 % 10);
+		chars[offset++] = (char) ('0' + value % 10);
+		return offset;
 	}
 }
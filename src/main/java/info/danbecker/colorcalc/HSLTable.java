@@ -0,0 +1,134 @@
+package info.danbecker.colorcalc;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * A precomputed table of the HSL values of all 2^24 RGB colors.
+ * <p>
+ * Each entry is the packed HSL int of HSLColor.rgbToHSL, whole degrees and percents,
+ * the values of the HSL, H, S, and L columns. The table lives in a memory-mapped file
+ * of 64 MB, so a conversion is a single read with no floating point math, which pays
+ * off when the same colors are converted over and over, as with image pixels.
+ * <p>
+ * File layout (big endian)
+ * <pre>
+ * int   magic "CCHT"
+ * int   version
+ * int   entries, 2^24
+ * int   packing, HUE_SHIFT, SAT_SHIFT, LUM_SHIFT in bytes 1 to 3
+ * 2^24 entries of packed HSL, indexed by 0xRRGGBB
+ * </pre>
+ * A table with a different version or packing is rebuilt.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class HSLTable {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(HSLTable.class);
+
+	public static final int MAGIC = 0x43434854; // "CCHT"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 4 * 4;
+	public static final int TABLE_SIZE = 1 << 24;
+	public static final int PACKING = HSLColor.HUE_SHIFT << 16 | HSLColor.SAT_SHIFT << 8 | HSLColor.LUM_SHIFT;
+
+	protected final IntBuffer table;
+
+	protected HSLTable(IntBuffer table) {
+		this.table = table;
+	}
+
+	/**
+	 * Return the packed HSL of a color, as HSLColor.rgbToHSL gives.
+	 * @param rgb packed RGB, alpha is ignored
+	 */
+	public int toHSL(int rgb) {
+		return table.get(rgb & 0xFFFFFF);
+	}
+
+	/**
+	 * Convert a batch of colors, such as the pixels of an image.
+	 * @param rgbs packed RGB colors, alpha is ignored
+	 * @param hsls receives packed HSL, at least rgbs.length long
+	 */
+	public void toHSL(int[] rgbs, int[] hsls) {
+		if (null == rgbs || null == hsls || hsls.length < rgbs.length)
+			throw new IllegalArgumentException("colors and HSL arrays must not be null, HSL array must hold " + (null == rgbs ? 0 : rgbs.length) + " entries");
+		for (int i = 0; i < rgbs.length; i++) {
+			hsls[i] = table.get(rgbs[i] & 0xFFFFFF);
+		}
+	}
+
+	/**
+	 * Map the table in the given file, building it first when it is missing or stale.
+	 * @param file table file
+	 * @return mapped table
+	 * @throws IOException
+	 */
+	public static HSLTable open(Path file) throws IOException {
+		HSLTable table = map(file);
+		if (null == table) {
+			LOGGER.info("hsl table=" + file + " missing or stale, building");
+			build(file);
+			table = map(file);
+			if (null == table)
+				throw new IOException("hsl table=" + file + " unreadable after build");
+		} else {
+			LOGGER.info("hsl table=" + file + " current, mapped");
+		}
+		return table;
+	}
+
+	/** Map an existing table, or return null when the file is missing or does not match. */
+	protected static HSLTable map(Path file) throws IOException {
+		if (!Files.isRegularFile(file))
+			return null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long expected = HEADER_SIZE + 4L * TABLE_SIZE;
+			if (channel.size() != expected)
+				return null;
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, expected);
+			if (MAGIC != buffer.getInt(0) || VERSION != buffer.getInt(4) || TABLE_SIZE != buffer.getInt(8)
+					|| PACKING != buffer.getInt(12))
+				return null;
+			buffer.position(HEADER_SIZE);
+			return new HSLTable(buffer.slice().asIntBuffer());
+		}
+	}
+
+	/**
+	 * Build the table file, one red slab per task in parallel.
+	 * The header is written last, so an interrupted build is never mistaken for a good table.
+	 */
+	protected static void build(Path file) throws IOException {
+		long start = System.currentTimeMillis();
+		long fileSize = HEADER_SIZE + 4L * TABLE_SIZE;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+			buffer.position(HEADER_SIZE);
+			IntBuffer table = buffer.slice().asIntBuffer();
+			IntStream.range(0, 256).parallel().forEach(red -> {
+				// Absolute puts on disjoint slabs, no shared position.
+				for (int gb = 0; gb < 0x10000; gb++) {
+					int rgb = red << 16 | gb;
+					table.put(rgb, HSLColor.rgbToHSL(rgb));
+				}
+			});
+			buffer.force();
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, TABLE_SIZE);
+			buffer.putInt(12, PACKING);
+			buffer.force();
+		}
+		LOGGER.info("hsl table=" + file + " built in " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
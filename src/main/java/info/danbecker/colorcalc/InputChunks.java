@@ -0,0 +1,286 @@
+package info.danbecker.colorcalc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Reads an input file in memory mapped chunks that are split into lines and fields in parallel.
+ * <p>
+ * The file is cut into chunks of about CHUNK_SIZE bytes, each ending after a
+ * new line, so no line spans two chunks. Each chunk is mapped on its own, which
+ * also allows files over 2 GB, decoded as UTF-8, and split into lines like
+ * Files.lines, at \n, \r, or \r\n. Blank lines are counted and dropped,
+ * comment lines starting with # or // are kept as text, other lines are split
+ * into fields with a LineTokenizer and handed to a row function on the same
+ * thread, so rows can be evaluated while the chunk is still in cache and the
+ * fields need not be kept. Chunks come back in file order, lines in
+ * line order within a chunk, so callers see the file exactly as a sequential read.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class InputChunks {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(InputChunks.class);
+
+	/** Bytes of a chunk before moving to the next line end. */
+	public static final int CHUNK_SIZE = 1 << 22;
+
+	/**
+	 * The lines of one chunk.
+	 * Comments keep their line numbers, counted from the chunk start.
+	 */
+	public static class Chunk {
+		protected String[] headers;
+		protected int lineCount;
+		protected final List<String> comments = new ArrayList<>();
+		protected int[] commentLines = new int[4];
+		protected final List<String[]> rows = new ArrayList<>();
+		protected RowStore store;
+
+		/** Headers of the file, kept on its first chunk, null on others. */
+		public String[] getHeaders() {
+			return headers;
+		}
+
+		public void setHeaders(String[] headers) {
+			this.headers = headers;
+		}
+
+		/** All lines of the chunk, including blank lines. */
+		public int getLineCount() {
+			return lineCount;
+		}
+
+		public List<String> getComments() {
+			return comments;
+		}
+
+		public int getCommentLine(int comment) {
+			return commentLines[comment];
+		}
+
+		public List<String[]> getRows() {
+			return rows;
+		}
+
+		/** Output rows of the chunk, for readers that store typed rows, null when none were added. */
+		public RowStore getStore() {
+			return store;
+		}
+
+		public void setStore(RowStore store) {
+			this.store = store;
+		}
+
+		/** Count a line, after adding its comment or row. */
+		protected void addLine() {
+			lineCount++;
+		}
+
+		protected void addComment(String comment) {
+			if (comments.size() == commentLines.length)
+				commentLines = Arrays.copyOf(commentLines, 2 * commentLines.length);
+			commentLines[comments.size()] = lineCount;
+			comments.add(comment);
+		}
+
+		protected void addRow(String[] row) {
+			rows.add(row);
+		}
+	}
+
+	/**
+	 * Fields of the first line that is neither blank nor a comment, read sequentially.
+	 * @return fields, or null when there is no such line
+	 */
+	public static String[] firstRow(Path file) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			for (String line = reader.readLine(); null != line; line = reader.readLine()) {
+				if (!LineTokenizer.isBlank(line) && !isComment(line))
+					return LineTokenizer.split(line);
+			}
+		}
+		return null;
+	}
+
+	/** Tell whether an input line is a comment. */
+	public static boolean isComment(CharSequence line) {
+		int length = line.length();
+		return length > 0 && ('#' == line.charAt(0) || (length > 1 && '/' == line.charAt(0) && '/' == line.charAt(1)));
+	}
+
+	/**
+	 * Read the file in parallel chunks.
+	 * @param file input file
+	 * @param pool pool that parses the chunks
+	 * @param chunkSize bytes of a chunk before moving to the next line end
+	 * @return chunks in file order
+	 * @throws IOException for an unreadable file or bad UTF-8
+	 */
+	public static List<Chunk> read(Path file, ForkJoinPool pool, int chunkSize) throws IOException {
+		return read(file, pool, chunkSize, row -> row);
+	}
+
+	/**
+	 * Read the file in parallel chunks, turning the field rows into other rows as they are parsed.
+	 * @param file input file
+	 * @param pool pool that parses the chunks
+	 * @param chunkSize bytes of a chunk before moving to the next line end
+	 * @param rows takes the fields of a line, returns the row to keep or null to drop it, called from pool threads
+	 * @return chunks in file order
+	 * @throws IOException for an unreadable file or bad UTF-8
+	 */
+	public static List<Chunk> read(Path file, ForkJoinPool pool, int chunkSize, Function<String[], String[]> rows) throws IOException {
+		if (null == rows)
+			throw new IllegalArgumentException("row function must not be null");
+		return read(file, pool, chunkSize, (chunk, fields) -> {
+			String[] row = rows.apply(fields);
+			if (null != row)
+				chunk.addRow(row);
+		});
+	}
+
+	/**
+	 * Read the file in parallel chunks, handing the fields of each line to a consumer that adds
+	 * what it keeps to the chunk, such as rows of the chunk store.
+	 * @param file input file
+	 * @param pool pool that parses the chunks
+	 * @param chunkSize bytes of a chunk before moving to the next line end
+	 * @param rows takes the chunk and the fields of a line, called from pool threads, one thread per chunk
+	 * @return chunks in file order
+	 * @throws IOException for an unreadable file or bad UTF-8
+	 */
+	public static List<Chunk> read(Path file, ForkJoinPool pool, int chunkSize, BiConsumer<Chunk, String[]> rows) throws IOException {
+		if (null == file || null == pool || null == rows || chunkSize < 1)
+			throw new IllegalArgumentException("file and pool must not be null and chunk size must be positive");
+		long start = System.currentTimeMillis();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long[] bounds = chunkBounds(channel, chunkSize);
+			List<Callable<Chunk>> tasks = new ArrayList<>(bounds.length - 1);
+			for (int i = 0; i + 1 < bounds.length; i++) {
+				long from = bounds[i];
+				long to = bounds[i + 1];
+				tasks.add(() -> parse(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from), rows));
+			}
+			List<Chunk> chunks = new ArrayList<>(tasks.size());
+			for (Future<Chunk> future : pool.invokeAll(tasks)) {
+				chunks.add(get(future));
+			}
+			LOGGER.debug("input=" + file + ", bytes=" + bounds[bounds.length - 1] + ", chunks=" + chunks.size()
+					+ ", ms=" + (System.currentTimeMillis() - start));
+			return chunks;
+		}
+	}
+
+	/**
+	 * Result of a finished task. An IOException anywhere in the cause chain is rethrown,
+	 * the pool wraps checked exceptions of a Callable, otherwise the runtime exception or error.
+	 */
+	protected static <T> T get(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted", e);
+		} catch (ExecutionException e) {
+			for (Throwable cause = e.getCause(); null != cause; cause = cause.getCause()) {
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Chunk start offsets and the file size. Every chunk but the last ends after a \n.
+	 * A line longer than the chunk size makes one longer chunk.
+	 */
+	protected static long[] chunkBounds(FileChannel channel, int chunkSize) throws IOException {
+		long size = channel.size();
+		long[] bounds = new long[16];
+		int count = 0;
+		bounds[count++] = 0;
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long position = 0;
+		while (size - position > chunkSize) {
+			long search = position + chunkSize - 1;
+			long end = -1;
+			while (-1 == end && search < size) {
+				buffer.clear();
+				int read = channel.read(buffer, search);
+				if (read < 1)
+					break;
+				for (int i = 0; i < read; i++) {
+					if ('\n' == buffer.get(i)) {
+						end = search + i + 1;
+						break;
+					}
+				}
+				search += read;
+			}
+			if (-1 == end || end >= size)
+				break;
+			if (count == bounds.length)
+				bounds = Arrays.copyOf(bounds, 2 * count);
+			bounds[count++] = end;
+			position = end;
+		}
+		if (count == bounds.length)
+			bounds = Arrays.copyOf(bounds, count + 1);
+		bounds[count++] = size;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/** Decode and split one chunk. */
+	protected static Chunk parse(MappedByteBuffer bytes, BiConsumer<Chunk, String[]> rows) throws IOException {
+		CharBuffer decoded = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+		char[] chars = decoded.array();
+		int offset = decoded.arrayOffset() + decoded.position();
+		int length = offset + decoded.remaining();
+		Chunk chunk = new Chunk();
+		LineTokenizer tokenizer = new LineTokenizer();
+		int lineStart = offset;
+		while (lineStart < length) {
+			int lineEnd = lineStart;
+			while (lineEnd < length && '\n' != chars[lineEnd] && '\r' != chars[lineEnd]) {
+				lineEnd++;
+			}
+			String line = new String(chars, lineStart, lineEnd - lineStart);
+			if (LineTokenizer.isBlank(line)) {
+				// Ignore white space lines
+			} else if (isComment(line)) {
+				chunk.addComment(line);
+			} else {
+				tokenizer.tokenize(line);
+				rows.accept(chunk, tokenizer.tokens());
+			}
+			chunk.addLine();
+			if (lineEnd + 1 < length && '\r' == chars[lineEnd] && '\n' == chars[lineEnd + 1])
+				lineEnd++;
+			lineStart = lineEnd + 1;
+		}
+		return chunk;
+	}
+}
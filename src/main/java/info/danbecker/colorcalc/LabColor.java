@@ -0,0 +1,127 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+import java.util.Locale;
+
+/**
+ * Conversion of sRGB colors to CIELAB (L*a*b*) under the D65 white point.
+ * <p>
+ * sRGB components are linearized, converted to CIE XYZ, then to L*a*b*
+ * as described in https://en.wikipedia.org/wiki/CIELAB_color_space.
+ * L is lightness 0 (black) to 100 (white), a is green (-) to red (+),
+ * b is blue (-) to yellow (+).
+ * <p>
+ * The linearization of each 8 bit component is looked up in a table.
+ * Many colors are converted at once into structure of arrays form,
+ * one primitive array per coordinate, so distances over a dictionary
+ * read Lab values instead of converting on every comparison.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class LabColor {
+
+	/** Positions in returned Lab arrays */
+	public static final int L_POS = 0;
+	public static final int A_POS = 1;
+	public static final int B_POS = 2;
+
+	/** D65 reference white */
+	public static final double XN = 0.95047;
+	public static final double YN = 1.00000;
+	public static final double ZN = 1.08883;
+
+	/** sRGB component 0..255 to linear 0..1 */
+	protected static final double[] LINEAR = new double[256];
+	static {
+		for (int i = 0; i < LINEAR.length; i++) {
+			double c = i / 255.0;
+			LINEAR[i] = c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+		}
+	}
+
+	protected static final double EPSILON = 216.0 / 24389.0; // (6/29)^3
+	protected static final double KAPPA = 24389.0 / 27.0; // (29/3)^3
+
+	private LabColor() {
+	}
+
+	/**
+	 * Convert a packed RGB color to Lab.
+	 * @param rgb packed RGB color 0xRRGGBB (alpha is ignored)
+	 * @param lab receives L, a, b at L_POS, A_POS, B_POS
+	 * @return the given lab array
+	 */
+	public static double[] toLab(int rgb, double[] lab) {
+		double fy = fy(rgb);
+		lab[L_POS] = lightness(fy);
+		lab[A_POS] = a(fx(rgb), fy);
+		lab[B_POS] = b(fy, fz(rgb));
+		return lab;
+	}
+
+	/** Companded relative X of a packed RGB color, a scalar step of toLab for callers without an array. */
+	public static double fx(int rgb) {
+		return f((0.4124564 * LINEAR[(rgb >> 16) & 0xFF] + 0.3575761 * LINEAR[(rgb >> 8) & 0xFF] + 0.1804375 * LINEAR[rgb & 0xFF]) / XN);
+	}
+
+	/** Companded relative Y of a packed RGB color. */
+	public static double fy(int rgb) {
+		return f((0.2126729 * LINEAR[(rgb >> 16) & 0xFF] + 0.7151522 * LINEAR[(rgb >> 8) & 0xFF] + 0.0721750 * LINEAR[rgb & 0xFF]) / YN);
+	}
+
+	/** Companded relative Z of a packed RGB color. */
+	public static double fz(int rgb) {
+		return f((0.0193339 * LINEAR[(rgb >> 16) & 0xFF] + 0.1191920 * LINEAR[(rgb >> 8) & 0xFF] + 0.9503041 * LINEAR[rgb & 0xFF]) / ZN);
+	}
+
+	/** L of the companded relative Y. */
+	public static double lightness(double fy) {
+		return 116.0 * fy - 16.0;
+	}
+
+	/** a of the companded relative X and Y. */
+	public static double a(double fx, double fy) {
+		return 500.0 * (fx - fy);
+	}
+
+	/** b of the companded relative Y and Z. */
+	public static double b(double fy, double fz) {
+		return 200.0 * (fy - fz);
+	}
+
+	/**
+	 * Convert a Color to Lab.
+	 * @param color
+	 * @return new array of L, a, b
+	 */
+	public static double[] toLab(Color color) {
+		return toLab(color.getRGB(), new double[3]);
+	}
+
+	/**
+	 * Convert many packed RGB colors to Lab in structure of arrays form.
+	 * @param rgbs packed RGB colors
+	 * @return arrays of L, a, and b at L_POS, A_POS, B_POS, each rgbs.length long
+	 */
+	public static double[][] toLab(int[] rgbs) {
+		double[][] labs = new double[3][rgbs.length];
+		double[] lab = new double[3];
+		for (int i = 0; i < rgbs.length; i++) {
+			toLab(rgbs[i], lab);
+			labs[L_POS][i] = lab[L_POS];
+			labs[A_POS][i] = lab[A_POS];
+			labs[B_POS][i] = lab[B_POS];
+		}
+		return labs;
+	}
+
+	/** CIELAB companding of a relative XYZ value. */
+	protected static double f(double t) {
+		return t > EPSILON ? Math.cbrt(t) : (KAPPA * t + 16.0) / 116.0;
+	}
+
+	/** Returns a readable "L=53.24,a=80.09,b=67.20" string of a Lab array, with points in any locale. */
+	public static String toString(double[] lab) {
+		return String.format(Locale.ROOT, "L=%.2f,a=%.2f,b=%.2f", lab[L_POS], lab[A_POS], lab[B_POS]);
+	}
+}
@@ -0,0 +1,131 @@
+package info.danbecker.colorcalc;
+
+import java.util.Arrays;
+
+/**
+ * Splits input and dictionary lines into fields without regular expressions.
+ * <p>
+ * Fields are delimited by two or more white space characters, a tab, or a comma,
+ * the ColorCalc.WORD_DELIM rule, and split exactly as a Scanner with that delimiter
+ * would: one delimiter before the first field is skipped, a delimiter right after
+ * another gives an empty field, a single space belongs to the field.
+ * White space is that of the regular expression \s, space, tab, new line,
+ * vertical tab, form feed, and carriage return.
+ * <p>
+ * A tokenizer keeps the field offsets of the last line in arrays reused from line
+ * to line, so splitting allocates nothing but the field strings asked for.
+ * A tokenizer is not thread safe, use one per thread.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class LineTokenizer {
+	public static final int INITIAL_CAPACITY = 16;
+
+	protected CharSequence line;
+	protected int[] starts = new int[INITIAL_CAPACITY];
+	protected int[] ends = new int[INITIAL_CAPACITY];
+	protected int count;
+
+	/**
+	 * Find the fields of the given line.
+	 * @param line text line without line terminator
+	 * @return number of fields
+	 */
+	public int tokenize(CharSequence line) {
+		this.line = line;
+		count = 0;
+		int length = line.length();
+		int position = delimiterEnd(line, 0, length);
+		if (-1 == position)
+			position = 0;
+		while (position < length) {
+			int delimiter = position;
+			int delimiterEnd = -1;
+			while (delimiter < length && -1 == (delimiterEnd = delimiterEnd(line, delimiter, length))) {
+				delimiter++;
+			}
+			add(position, delimiter);
+			if (delimiter == length)
+				break;
+			position = delimiterEnd;
+		}
+		return count;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	/** Offset of the first character of a field in the line. */
+	public int start(int field) {
+		return starts[field];
+	}
+
+	/** Offset after the last character of a field in the line. */
+	public int end(int field) {
+		return ends[field];
+	}
+
+	/** The text of a field. */
+	public String token(int field) {
+		return line.subSequence(starts[field], ends[field]).toString();
+	}
+
+	/** The text of all fields. */
+	public String[] tokens() {
+		String[] tokens = new String[count];
+		for (int field = 0; field < count; field++) {
+			tokens[field] = token(field);
+		}
+		return tokens;
+	}
+
+	/** Split a line with a new tokenizer, for occasional use. */
+	public static String[] split(CharSequence line) {
+		LineTokenizer tokenizer = new LineTokenizer();
+		tokenizer.tokenize(line);
+		return tokenizer.tokens();
+	}
+
+	/** Tell whether the line is empty or only white space. */
+	public static boolean isBlank(CharSequence line) {
+		for (int i = 0; i < line.length(); i++) {
+			if (!Character.isWhitespace(line.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	/** White space of the regular expression \s. */
+	protected static boolean isSpace(char c) {
+		return ' ' == c || '\t' == c || '\n' == c || '\u000B' == c || '\f' == c || '\r' == c;
+	}
+
+	/**
+	 * End of the delimiter starting at position, two or more white space, a tab, or a comma.
+	 * @return offset after the delimiter, or -1 when no delimiter starts at position
+	 */
+	protected static int delimiterEnd(CharSequence line, int position, int length) {
+		if (position >= length)
+			return -1;
+		char c = line.charAt(position);
+		if (isSpace(c) && position + 1 < length && isSpace(line.charAt(position + 1))) {
+			int end = position + 2;
+			while (end < length && isSpace(line.charAt(end))) {
+				end++;
+			}
+			return end;
+		}
+		return '\t' == c || ',' == c ? position + 1 : -1;
+	}
+
+	protected void add(int start, int end) {
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, 2 * count);
+			ends = Arrays.copyOf(ends, 2 * count);
+		}
+		starts[count] = start;
+		ends[count] = end;
+		count++;
+	}
+}
@@ -0,0 +1,108 @@
+package info.danbecker.colorcalc;
+
+/**
+ * A bounded max-heap of the k nearest dictionary positions seen so far.
+ * <p>
+ * Candidates are ordered by distance, then by position, so equal distances
+ * resolve to the lowest position just like the linear scan.
+ * The root is the worst candidate kept, which is what a search prunes against.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class NearestHeap {
+
+	protected final int capacity;
+	protected final double[] distances;
+	protected final int[] positions;
+	protected int size;
+
+	public NearestHeap(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity=" + capacity + " must be positive");
+		this.capacity = capacity;
+		distances = new double[capacity];
+		positions = new int[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	/** Distance of the worst candidate kept, or Double.MAX_VALUE until the heap is full. */
+	public double worst() {
+		return isFull() ? distances[0] : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Keep the candidate if the heap is not full or it beats the worst candidate.
+	 * @return true if the candidate was kept
+	 */
+	public boolean offer(double distance, int position) {
+		if (size < capacity) {
+			int child = size++;
+			// Sift up
+			while (child > 0) {
+				int parent = (child - 1) >>> 1;
+				if (!after(distance, position, distances[parent], positions[parent]))
+					break;
+				distances[child] = distances[parent];
+				positions[child] = positions[parent];
+				child = parent;
+			}
+			distances[child] = distance;
+			positions[child] = position;
+			return true;
+		}
+		if (!after(distances[0], positions[0], distance, position))
+			return false;
+		siftDown(distance, position, size);
+		return true;
+	}
+
+	/**
+	 * Empty the heap into the given array, nearest first.
+	 * @param out receives positions, must hold size() entries
+	 * @param outDistances optional, receives distances
+	 * @return count of positions written
+	 */
+	public int drain(int[] out, double[] outDistances) {
+		int count = size;
+		for (int i = count - 1; i >= 0; i--) {
+			out[i] = positions[0];
+			if (null != outDistances)
+				outDistances[i] = distances[0];
+			int last = --size;
+			if (last > 0)
+				siftDown(distances[last], positions[last], last);
+		}
+		return count;
+	}
+
+	/** Place the given candidate at the root and sift it down within the first n entries. */
+	protected void siftDown(double distance, int position, int n) {
+		int parent = 0;
+		while (true) {
+			int child = 2 * parent + 1;
+			if (child >= n)
+				break;
+			if (child + 1 < n && after(distances[child + 1], positions[child + 1], distances[child], positions[child]))
+				child++;
+			if (!after(distances[child], positions[child], distance, position))
+				break;
+			distances[parent] = distances[child];
+			positions[parent] = positions[child];
+			parent = child;
+		}
+		distances[parent] = distance;
+		positions[parent] = position;
+	}
+
+	/** Returns true if candidate 1 orders after (is worse than) candidate 2. */
+	protected static boolean after(double distance1, int position1, double distance2, int position2) {
+		return distance1 > distance2 || (distance1 == distance2 && position1 > position2);
+	}
+}
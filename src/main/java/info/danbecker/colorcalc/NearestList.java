@@ -0,0 +1,49 @@
+package info.danbecker.colorcalc;
+
+import java.util.Arrays;
+
+/**
+ * An unbounded list of dictionary positions with their distances, for radius queries.
+ * <p>
+ * Candidates are collected in any order and sorted nearest first on request,
+ * ordered by distance, then by position, like NearestHeap.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class NearestList {
+	public static final int INITIAL_CAPACITY = 16;
+
+	protected double[] distances = new double[INITIAL_CAPACITY];
+	protected int[] positions = new int[INITIAL_CAPACITY];
+	protected int size;
+
+	public int size() {
+		return size;
+	}
+
+	public void add(double distance, int position) {
+		if (size == positions.length) {
+			distances = Arrays.copyOf(distances, 2 * size);
+			positions = Arrays.copyOf(positions, 2 * size);
+		}
+		distances[size] = distance;
+		positions[size] = position;
+		size++;
+	}
+
+	/**
+	 * Positions sorted nearest first.
+	 * @return new array of size() positions
+	 */
+	public int[] toPositions() {
+		int[] sorted = new int[size];
+		if (size > 0) {
+			NearestHeap heap = new NearestHeap(size);
+			for (int i = 0; i < size; i++) {
+				heap.offer(distances[i], positions[i]);
+			}
+			heap.drain(sorted, null);
+		}
+		return sorted;
+	}
+}
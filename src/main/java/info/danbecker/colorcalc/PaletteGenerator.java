@@ -0,0 +1,265 @@
+package info.danbecker.colorcalc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Generates palettes of tints, shades, and tones from base colors.
+ * <p>
+ * Each base color is adjusted by every step, as the HSLColor adjust methods would,
+ * giving one palette color per base color and step. A step is an operation and an amount,
+ * or a ramp of amounts, written as
+ * <pre>
+ * hue120        adjustHue, absolute degrees
+ * sat50         adjustSaturation, absolute percent
+ * lum75         adjustLuminance, absolute percent
+ * shade25       adjustShade, darker by a relative percent
+ * tone10..90/20 adjustTone, lighter by 10, 30, 50, 70, and 90 percent
+ * </pre>
+ * The resource BasicTints are tone50 of BasicSats, BasicShades are shade50, and BasicTones are sat50,
+ * give or take the rounding of the hand made files.
+ * <p>
+ * Base colors are converted to HSL once into a float array per task, and each step goes
+ * straight to a packed RGB with HSLColor.hslToRGB, so no HSLColor or Color is created per step.
+ * Base colors are spread over the common fork join pool.
+ * The palette is written as a text dictionary with Name, RGB, and HSL columns, or as a
+ * compiled dictionary when the file name ends with COMPILED_SUFFIX.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class PaletteGenerator {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(PaletteGenerator.class);
+
+	public static final String COMPILED_SUFFIX = ".ccd";
+	public static final String RANGE_DELIM = "..";
+	public static final String STEP_DELIM = "/";
+
+	/** Adjust operations of HSLColor, computed to packed RGB. */
+	public enum Op {
+		HUE("hue") {
+			@Override
+			public int apply(float[] hsl, float amount) {
+				return HSLColor.hslToRGB(amount, hsl[HSLColor.SAT_POS], hsl[HSLColor.LUM_POS]);
+			}
+		},
+		SAT("sat") {
+			@Override
+			public int apply(float[] hsl, float amount) {
+				return HSLColor.hslToRGB(hsl[HSLColor.HUE_POS], amount, hsl[HSLColor.LUM_POS]);
+			}
+		},
+		LUM("lum") {
+			@Override
+			public int apply(float[] hsl, float amount) {
+				return HSLColor.hslToRGB(hsl[HSLColor.HUE_POS], hsl[HSLColor.SAT_POS], amount);
+			}
+		},
+		SHADE("shade") {
+			@Override
+			public int apply(float[] hsl, float amount) {
+				return HSLColor.hslToRGB(hsl[HSLColor.HUE_POS], hsl[HSLColor.SAT_POS], HSLColor.shadeLuminance(hsl[HSLColor.LUM_POS], amount));
+			}
+		},
+		TONE("tone") {
+			@Override
+			public int apply(float[] hsl, float amount) {
+				return HSLColor.hslToRGB(hsl[HSLColor.HUE_POS], hsl[HSLColor.SAT_POS], HSLColor.toneLuminance(hsl[HSLColor.LUM_POS], amount));
+			}
+		};
+
+		private final String name;
+
+		Op(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Adjust a color.
+		 * @param hsl HSL values of the base color, as HSLColor.fromRGB gives
+		 * @param amount degrees or percent of the adjustment
+		 * @return packed ARGB with full alpha
+		 */
+		public abstract int apply(float[] hsl, float amount);
+
+		/** Return the operation of the given name, or null. */
+		public static Op fromName(String name) {
+			for (Op op : values()) {
+				if (op.name.equalsIgnoreCase(name))
+					return op;
+			}
+			return null;
+		}
+	}
+
+	/** One adjustment of the base colors. */
+	public static class Step {
+		protected final Op op;
+		protected final float amount;
+
+		public Step(Op op, float amount) {
+			if (null == op)
+				throw new IllegalArgumentException("step operation must not be null");
+			if (amount < 0.0f || ((Op.SAT == op || Op.LUM == op) && amount > 100.0f))
+				throw new IllegalArgumentException("step " + op.getName() + " amount " + amount + " out of range");
+			this.op = op;
+			this.amount = amount;
+		}
+
+		public Op getOp() {
+			return op;
+		}
+
+		public float getAmount() {
+			return amount;
+		}
+
+		public int apply(float[] hsl) {
+			return op.apply(hsl, amount);
+		}
+
+		/** Name suffix of the palette colors of this step, such as "tone 50". */
+		@Override
+		public String toString() {
+			return op.getName() + " " + formatAmount(amount);
+		}
+	}
+
+	/**
+	 * Parse step specifications, such as "tone50", or a ramp "shade10..90/20".
+	 * @param specs step specifications, each one step or a ramp
+	 * @return steps, in the given order, ramps expanded
+	 * @throws IllegalArgumentException for an unknown operation or a bad amount
+	 */
+	public static Step[] parseSteps(String[] specs) {
+		if (null == specs)
+			throw new IllegalArgumentException("step specifications must not be null");
+		List<Step> steps = new ArrayList<>();
+		for (String spec : specs) {
+			int amountLoc = 0;
+			while (amountLoc < spec.length() && Character.isLetter(spec.charAt(amountLoc))) {
+				amountLoc++;
+			}
+			Op op = Op.fromName(spec.substring(0, amountLoc));
+			if (null == op)
+				throw new IllegalArgumentException("step " + spec + " has unknown operation, use hue, sat, lum, shade, or tone");
+			String amounts = spec.substring(amountLoc);
+			try {
+				int rangeLoc = amounts.indexOf(RANGE_DELIM);
+				if (-1 == rangeLoc) {
+					steps.add(new Step(op, Float.parseFloat(amounts)));
+					continue;
+				}
+				int stepLoc = amounts.indexOf(STEP_DELIM, rangeLoc);
+				float from = Float.parseFloat(amounts.substring(0, rangeLoc));
+				float to = Float.parseFloat(amounts.substring(rangeLoc + RANGE_DELIM.length(), -1 == stepLoc ? amounts.length() : stepLoc));
+				float by = -1 == stepLoc ? 1.0f : Float.parseFloat(amounts.substring(stepLoc + STEP_DELIM.length()));
+				if (by <= 0.0f || to < from)
+					throw new IllegalArgumentException("step " + spec + " needs a positive step and an ascending range");
+				// Counted rather than accumulated, so fractional steps do not drift.
+				int count = (int) Math.floor((to - from) / by + 1e-4) + 1;
+				for (int i = 0; i < count; i++) {
+					steps.add(new Step(op, from + i * by));
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("step " + spec + " has a bad amount", e);
+			}
+		}
+		return steps.toArray(new Step[0]);
+	}
+
+	/**
+	 * Generate the palette colors of all base colors and steps, base colors in parallel.
+	 * @param bases packed RGB base colors, alpha is ignored
+	 * @param steps adjustments of each base color
+	 * @return packed ARGB palette colors, those of base b at b * steps.length, in step order
+	 */
+	public static int[] generate(int[] bases, Step[] steps) {
+		if (null == bases || null == steps)
+			throw new IllegalArgumentException("base colors and steps must not be null");
+		int[] palette = new int[bases.length * steps.length];
+		IntStream.range(0, bases.length).parallel().forEach(base -> {
+			float[] hsl = HSLColor.fromRGB(bases[base], new float[3]);
+			int offset = base * steps.length;
+			for (int step = 0; step < steps.length; step++) {
+				palette[offset + step] = steps[step].apply(hsl);
+			}
+		});
+		return palette;
+	}
+
+	/**
+	 * Generate the palette of all dictionary colors and write it to a file.
+	 * @param file palette file, a compiled dictionary when it ends with COMPILED_SUFFIX, otherwise text
+	 * @param dictionary base colors, each named by its first name
+	 * @param steps adjustments of each base color
+	 * @return number of palette colors
+	 * @throws IOException
+	 */
+	public static int write(Path file, ColorDictionary dictionary, Step[] steps) throws IOException {
+		long start = System.currentTimeMillis();
+		int[] bases = dictionary.getRGBs();
+		int[] palette = generate(bases, steps);
+		String[] baseNames = new String[bases.length];
+		for (int base = 0; base < bases.length; base++) {
+			baseNames[base] = 0 == dictionary.getNameCount(base) ? ColorUtils.toRGB(bases[base]) : dictionary.getNames(base).get(0);
+		}
+		if (file.toString().endsWith(COMPILED_SUFFIX)) {
+			ColorDictionary compiled = new ColorDictionary();
+			for (int i = 0; i < palette.length; i++) {
+				compiled.add(palette[i], name(baseNames, steps, i));
+			}
+			ColorDictionaryFile.write(file, compiled);
+		} else {
+			writeText(file, baseNames, steps, palette);
+		}
+		LOGGER.info("palette=" + file + ", bases=" + bases.length + ", steps=" + steps.length
+				+ ", colors=" + palette.length + ", ms=" + (System.currentTimeMillis() - start));
+		return palette.length;
+	}
+
+	/** Write the palette as a text dictionary, each row formatted into one reused buffer. */
+	protected static void writeText(Path file, String[] baseNames, Step[] steps, int[] palette) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("# Palette generated by ColorCalc, steps=" + Arrays.toString(steps));
+			writer.newLine();
+			writer.write("# RGB coded as hexadecimal integers, HSL coded as decimal integers (degree,percents)");
+			writer.newLine();
+			writer.write("Name\tRGB\tHSL");
+			writer.newLine();
+			char[] fields = new char[1 + 1 + 6 + 1 + 9];
+			fields[0] = '\t';
+			for (int i = 0; i < palette.length; i++) {
+				writer.write(name(baseNames, steps, i));
+				int offset = 1;
+				fields[offset++] = '#';
+				offset = ColorUtils.formatRGB(palette[i], fields, offset);
+				fields[offset++] = '\t';
+				offset = HSLColor.formatHSL(HSLColor.rgbToHSL(palette[i]), fields, offset);
+				writer.write(fields, 0, offset);
+				writer.newLine();
+			}
+		}
+	}
+
+	/** Name of palette color i, the base name followed by the step. */
+	protected static String name(String[] baseNames, Step[] steps, int i) {
+		return baseNames[i / steps.length] + " " + steps[i % steps.length];
+	}
+
+	/** Amount text, whole amounts without a fraction. */
+	protected static String formatAmount(float amount) {
+		return amount == (int) amount ? Integer.toString((int) amount) : Float.toString(amount);
+	}
+}
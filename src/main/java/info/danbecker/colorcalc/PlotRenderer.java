@@ -14,7 +14,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.imageio.ImageIO;
 
@@ -57,7 +57,7 @@ public class PlotRenderer {
 	}
 
 	// Returns a generated image.
-	public static BufferedImage renderImage(Dimension size, List<String[]> data, String[] colNames) {
+	public static BufferedImage renderImage(Dimension size, RowStore data, String[] colNames) {
 		if (( null == size) || (size.width < 1) || (size.height < 1))
 			return null;
 
@@ -119,31 +119,38 @@ public class PlotRenderer {
 			ColorUtils.toColor("#000000"),
 			ColorUtils.toColor("#FFFFFF") 
 		};
-		for ( Color color : basics ) {
-			HSLColor hslColor = new HSLColor( color );
-			Point point = pointFromHSL( size, borderWidth, hslColor );
-			// LOGGER.debug( "HSL=" + hslColor.toString() + ", rgb=" + hslColor.getRGB() +  ", xy=" + point);
-			g2d.setColor(hslColor.getRGB());
-			g2d.fillOval( point.x, point.y, sampleWidth, sampleWidth); // x, y, width, height
-			g2d.setColor( ColorUtils.luminanceGray(hslColor) );
-			g2d.drawOval( point.x, point.y, sampleWidth, sampleWidth); // x, y, width, height
+		// Convert all colors to HSL and back in batches, then draw.
+		int[] basicRGBs = new int[ basics.length ];
+		for ( int i = 0; i < basics.length; i++ ) {
+			basicRGBs[ i ] = basics[ i ].getRGB();
 		}
-		
-		for ( String[] row: data ) {
-			for ( String colName: colNames ) {
-				switch ( colName ) {
-				case "HSL": {
-					HSLColor hslColor = HSLColor.fromString( row[ hslPosition ] );
-					// LOGGER.info(  "rowString=" + row[hslPosition]+ ", HSL=" + hslColor.toString() );
-					Point point = pointFromHSL( size, borderWidth, hslColor );					
-					g2d.setColor(hslColor.getRGB());
-					g2d.fillOval( point.x, point.y, sampleWidth, sampleWidth); // x, y, width, height
-					g2d.setColor( ColorUtils.luminanceGray(hslColor) );
-					g2d.drawOval( point.x, point.y, sampleWidth, sampleWidth); // x, y, width, height
-					break;
-				}
-				}
-			}			
+		float[] hues = new float[ basics.length ];
+		float[] sats = new float[ basics.length ];
+		float[] lums = new float[ basics.length ];
+		HSLColor.fromRGB( basicRGBs, hues, sats, lums );
+		for ( int i = 0; i < basics.length; i++ ) {
+			drawSample( g2d, pointFromHSL( size, borderWidth, hues[ i ], sats[ i ] ), sampleWidth, basics[ i ], lums[ i ] );
+		}
+
+		hues = new float[ data.size() ];
+		sats = new float[ data.size() ];
+		lums = new float[ data.size() ];
+		int rowi;
+		for ( rowi = 0; rowi < data.size(); rowi++ ) {
+			// Packed HSL of computed columns, parsed only for copied text.
+			int hsl = data.getHSL( rowi, hslPosition );
+			if ( RowStore.NULL == hsl ) {
+				throw new IllegalArgumentException( "column " + colNames[ hslPosition ] + " of row " + rowi + " has no value to plot" );
+			}
+			hues[ rowi ] = HSLColor.hue( hsl );
+			sats[ rowi ] = HSLColor.saturation( hsl );
+			lums[ rowi ] = HSLColor.luminance( hsl );
+		}
+		int[] rgbs = new int[ data.size() ];
+		HSLColor.toRGB( ForkJoinPool.commonPool(), hues, sats, lums, rgbs );
+		for ( rowi = 0; rowi < rgbs.length; rowi++ ) {
+			// LOGGER.info(  "HSL=" + hues[ rowi ] + "," + sats[ rowi ] + "," + lums[ rowi ] );
+			drawSample( g2d, pointFromHSL( size, borderWidth, hues[ rowi ], sats[ rowi ] ), sampleWidth, new Color( rgbs[ rowi ] ), lums[ rowi ] );
 		}
 		
 	    // Graphics context no longer needed so dispose it
@@ -153,16 +160,21 @@ public class PlotRenderer {
 	}    
 
 	public final static Point pointFromHSL( Dimension size, int borderWidth, HSLColor hslColor ) {
-		if ( null == size ) 
-			throw new IllegalArgumentException( "Size=" + size );
 		if ( null == hslColor) 
 			throw new IllegalArgumentException( "HSL=" +  hslColor );
+		return pointFromHSL( size, borderWidth, hslColor.getHue(), hslColor.getSaturation() );
+	}
+
+	/** Plot position of the given hue (angle) and saturation (radius). */
+	public final static Point pointFromHSL( Dimension size, int borderWidth, float hue, float saturation ) {
+		if ( null == size ) 
+			throw new IllegalArgumentException( "Size=" + size );
 			
 		int min = Math.min( size.width, size.height);
 		int radius = min/2 - borderWidth;
 		Point center = new Point( size.width/2, size.height/2);
 		// Cartesian based on 0-360,0-100
-		double [] cart = toCartesian(hslColor);
+		double [] cart = toCartesian( hue, saturation );
 		return new Point( (int) Math.round((cart[0] * radius / 100.0) + center.x - 2*borderWidth), (int)Math.round((cart[ 1 ] * radius / 100.0) + center.y - 2*borderWidth));
 	}
 
@@ -175,13 +187,26 @@ public class PlotRenderer {
     
     /** Convert a polar HSL hue (angle) and saturation (radius) to Cartesian. */
     public final static double [] toCartesian( HSLColor hslColor ) {
-        double radiant = hslColor.getHue() * (Math.PI/180);
+        return toCartesian( hslColor.getHue(), hslColor.getSaturation() );
+    }
+
+    /** Convert a polar hue (angle) and saturation (radius) to Cartesian. */
+    public final static double [] toCartesian( float hue, float saturation ) {
+        double radiant = hue * (Math.PI/180);
         
         return new double[] { 
-        	hslColor.getSaturation() * Math.cos(radiant),
-        	hslColor.getSaturation() * Math.sin(radiant)
+        	saturation * Math.cos(radiant),
+        	saturation * Math.sin(radiant)
         };
     }
+
+    /** Draw one color sample, outlined in the gray of its luminance. */
+    protected static void drawSample( Graphics2D g2d, Point point, int sampleWidth, Color color, float luminance ) {
+		g2d.setColor( color );
+		g2d.fillOval( point.x, point.y, sampleWidth, sampleWidth); // x, y, width, height
+		g2d.setColor( ColorUtils.luminanceGray( luminance ) );
+		g2d.drawOval( point.x, point.y, sampleWidth, sampleWidth); // x, y, width, height
+    }
 	
     public final static Shape translate( Shape shape, int x, int y ) {
 		AffineTransform at = AffineTransform.getTranslateInstance(x, y);
@@ -0,0 +1,499 @@
+package info.danbecker.colorcalc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The output rows of ColorCalc, stored column by column in primitive arrays.
+ * <p>
+ * Each column has a kind, set by the first value stored in it. Colors, their parts,
+ * HSL values, counts, and dictionary positions are ints, distances are doubles, and
+ * names and pass-through fields are codes into a string pool of the store, so a
+ * repeated string is kept once. A row is a position in the column arrays rather than
+ * an object, and cell text is formatted only when asked for, at write time.
+ * When files give a column different kinds, such as an HSL column copied from one
+ * file and computed for another, the column falls back to TEXT.
+ * <p>
+ * Rows are compared without formatting their cells, in the order of their text,
+ * so sorting and grouping give the same order as sorting the output text.
+ * <p>
+ * A store is not thread safe, readers fill one store per chunk and add them in order.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class RowStore {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger(RowStore.class);
+
+	/** The int cell of no value. */
+	public static final int NULL = Integer.MIN_VALUE;
+	public static final int INITIAL_CAPACITY = 64;
+
+	/** Value and text of a column. */
+	public enum Kind {
+		/** No values, every cell is null. */
+		NONE,
+		/** Strings, kept as string pool codes. */
+		TEXT,
+		/** Packed RGB, six hexadecimal digits. */
+		RGB,
+		/** Color parts 0 - 255, two hexadecimal digits. */
+		RED, GREEN, BLUE,
+		/** Packed HSL, HHHSSSLLL. */
+		HSL,
+		/** HSL parts, three decimal digits. */
+		HUE, SAT, LUM,
+		/** A count, decimal. */
+		COUNT,
+		/** Dictionary position, the names text of the color. */
+		NAMES,
+		/** Double distance, as ColorCalc.formatDistance. */
+		DISTANCE;
+
+		/** Tell whether the kind has fixed width text, ordered as its int values. */
+		public boolean isFixedWidth() {
+			return RGB.ordinal() <= ordinal() && ordinal() <= LUM.ordinal();
+		}
+	}
+
+	/** Orders rows of a store. */
+	public interface RowComparator {
+		int compare(RowStore store, int row1, int row2);
+	}
+
+	protected final String[] cols;
+	protected final ColorDictionary dictionary;
+	protected final Kind[] kinds;
+	/** Int values or string codes of each column, null for NONE and DISTANCE columns. */
+	protected final int[][] ints;
+	/** Values of each DISTANCE column. */
+	protected final double[][] doubles;
+	protected final List<String> strings = new ArrayList<>();
+	protected final Map<String, Integer> codes = new HashMap<>();
+	protected int size;
+	protected int capacity = INITIAL_CAPACITY;
+	/** Text of one fixed width cell, reused. */
+	protected final char[] cellChars = new char[9];
+
+	/**
+	 * An empty store.
+	 * @param cols output column names
+	 * @param dictionary dictionary of NAMES columns, may be null when there are none
+	 */
+	public RowStore(String[] cols, ColorDictionary dictionary) {
+		this.cols = null == cols ? new String[0] : cols.clone();
+		this.dictionary = dictionary;
+		kinds = new Kind[this.cols.length];
+		Arrays.fill(kinds, Kind.NONE);
+		ints = new int[this.cols.length][];
+		doubles = new double[this.cols.length][];
+	}
+
+	/** A store of the given text rows, every column TEXT. */
+	public static RowStore of(String[] cols, Iterable<String[]> rows) {
+		RowStore store = new RowStore(cols, null);
+		for (String[] row : rows) {
+			store.add(row);
+		}
+		return store;
+	}
+
+	public String[] getCols() {
+		return cols.clone();
+	}
+
+	public Kind getKind(int col) {
+		return kinds[col];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return 0 == size;
+	}
+
+	/** Remove all rows, columns go back to NONE. */
+	public void clear() {
+		size = 0;
+		Arrays.fill(kinds, Kind.NONE);
+		Arrays.fill(ints, null);
+		Arrays.fill(doubles, null);
+		strings.clear();
+		codes.clear();
+	}
+
+	/**
+	 * Add a row with every cell null.
+	 * @return position of the row
+	 */
+	public int addRow() {
+		ensureCapacity(size + 1);
+		for (int col = 0; col < cols.length; col++) {
+			if (Kind.DISTANCE == kinds[col])
+				doubles[col][size] = Double.NaN;
+			else if (Kind.NONE != kinds[col])
+				ints[col][size] = NULL;
+		}
+		return size++;
+	}
+
+	/**
+	 * Add a row of text cells, cells past the columns are dropped.
+	 * @return position of the row
+	 */
+	public int add(String[] row) {
+		int position = addRow();
+		for (int col = 0; col < Math.min(row.length, cols.length); col++) {
+			setText(position, col, row[col]);
+		}
+		return position;
+	}
+
+	/** Set a cell to a string, or to null. */
+	public void setText(int row, int col, String text) {
+		if (null == text && Kind.NONE == kinds[col])
+			return;
+		prepare(col, Kind.TEXT);
+		ints[col][row] = null == text ? NULL : code(text);
+	}
+
+	/** Set a cell to an int value of the given kind, or to NULL. */
+	public void setInt(int row, int col, Kind kind, int value) {
+		if (NULL == value && Kind.NONE == kinds[col])
+			return;
+		if (kind == prepare(col, kind))
+			ints[col][row] = value;
+		else
+			ints[col][row] = NULL == value ? NULL : code(format(kind, value, dictionary));
+	}
+
+	/** Set a cell to a distance, or to NaN for null. */
+	public void setDistance(int row, int col, double distance) {
+		if (Double.isNaN(distance) && Kind.NONE == kinds[col])
+			return;
+		if (Kind.DISTANCE == prepare(col, Kind.DISTANCE))
+			doubles[col][row] = distance;
+		else
+			ints[col][row] = Double.isNaN(distance) ? NULL : code(ColorCalc.formatDistance(distance));
+	}
+
+	public boolean isNull(int row, int col) {
+		switch (kinds[col]) {
+			case NONE: return true;
+			case DISTANCE: return Double.isNaN(doubles[col][row]);
+			default: return NULL == ints[col][row];
+		}
+	}
+
+	/** The int value of a cell, NULL for null. Not for TEXT cells, whose values are string codes. */
+	public int getInt(int row, int col) {
+		return null == ints[col] ? NULL : ints[col][row];
+	}
+
+	/** The distance of a DISTANCE cell, NaN for null. */
+	public double getDistance(int row, int col) {
+		return null == doubles[col] ? Double.NaN : doubles[col][row];
+	}
+
+	/** The text of a cell, as written to the output, or null. */
+	public String getText(int row, int col) {
+		switch (kinds[col]) {
+			case NONE:
+				return null;
+			case TEXT: {
+				int code = ints[col][row];
+				return NULL == code ? null : strings.get(code);
+			}
+			case DISTANCE: {
+				double distance = doubles[col][row];
+				return Double.isNaN(distance) ? null : ColorCalc.formatDistance(distance);
+			}
+			default:
+				return format(kinds[col], ints[col][row], dictionary);
+		}
+	}
+
+	/** The text of every cell of a row. */
+	public String[] getRow(int row) {
+		String[] texts = new String[cols.length];
+		for (int col = 0; col < cols.length; col++) {
+			texts[col] = getText(row, col);
+		}
+		return texts;
+	}
+
+	/**
+	 * The packed RGB of a cell, alpha cleared, from the value of an RGB cell or parsed from text.
+	 * @return packed RGB, or NULL for null
+	 */
+	public int getRGB(int row, int col) {
+		if (Kind.RGB == kinds[col])
+			return ints[col][row];
+		String text = getText(row, col);
+		return null == text ? NULL : ColorUtils.parseRGB(text) & 0xFFFFFF;
+	}
+
+	/**
+	 * The packed HSL of a cell, from the value of an HSL cell or parsed from text.
+	 * @return packed HSL, or NULL for null
+	 */
+	public int getHSL(int row, int col) {
+		if (Kind.HSL == kinds[col])
+			return ints[col][row];
+		String text = getText(row, col);
+		return null == text ? NULL : HSLColor.parseHSL(text);
+	}
+
+	/**
+	 * The text of an int value of the given kind.
+	 * @param dictionary dictionary of NAMES values
+	 * @return text, or null for NULL
+	 */
+	public static String format(Kind kind, int value, ColorDictionary dictionary) {
+		if (NULL == value)
+			return null;
+		if (kind.isFixedWidth()) {
+			char[] chars = new char[9];
+			return new String(chars, 0, format(kind, value, chars));
+		}
+		switch (kind) {
+			case COUNT: return Integer.toString(value);
+			case NAMES: return dictionary.getNamesText(value);
+			default: throw new IllegalArgumentException("kind " + kind + " has no int text");
+		}
+	}
+
+	/** Write the text of a fixed width value, return its length. */
+	protected static int format(Kind kind, int value, char[] chars) {
+		switch (kind) {
+			case RGB:
+				return ColorUtils.formatRGB(value, chars, 0);
+			case RED: case GREEN: case BLUE:
+				chars[0] = ColorUtils.HEX_DIGITS[(value >> 4) & 0xF];
+				chars[1] = ColorUtils.HEX_DIGITS[value & 0xF];
+				return 2;
+			case HSL:
+				return HSLColor.formatHSL(value, chars, 0);
+			default:
+				return HSLColor.formatThreeDigits(value, chars, 0);
+		}
+	}
+
+	/**
+	 * Compare two cells of a column as their text compares, a null cell after any other.
+	 * Fixed width values and dictionary positions compare without formatting.
+	 */
+	public int compare(int row1, int row2, int col) {
+		boolean null1 = isNull(row1, col);
+		boolean null2 = isNull(row2, col);
+		if (null1 || null2)
+			return null1 == null2 ? 0 : (null1 ? 1 : -1);
+		Kind kind = kinds[col];
+		if (kind.isFixedWidth())
+			return Integer.compare(ints[col][row1], ints[col][row2]);
+		switch (kind) {
+			case TEXT:
+				return strings.get(ints[col][row1]).compareTo(strings.get(ints[col][row2]));
+			case NAMES:
+				return dictionary.getNamesText(ints[col][row1]).compareTo(dictionary.getNamesText(ints[col][row2]));
+			case DISTANCE:
+				return compareDistance(doubles[col][row1], doubles[col][row2]);
+			default:
+				return getText(row1, col).compareTo(getText(row2, col));
+		}
+	}
+
+	/**
+	 * Compare distances as their text compares.
+	 * Distances under 999 compare by their written hundredths, others and those
+	 * too near a rounding half compare as text, so distances written the same compare equal.
+	 */
+	protected static int compareDistance(double distance1, double distance2) {
+		if (distance1 == distance2)
+			return 0;
+		long hundredths1 = hundredths(distance1);
+		long hundredths2 = hundredths(distance2);
+		if (-1 != hundredths1 && -1 != hundredths2)
+			return Long.compare(hundredths1, hundredths2);
+		return ColorCalc.formatDistance(distance1).compareTo(ColorCalc.formatDistance(distance2));
+	}
+
+	/** Hundredths of a distance as formatDistance writes them, or -1 when not certain. */
+	protected static long hundredths(double distance) {
+		if (!(distance >= 0.0 && distance < 999.0))
+			return -1;
+		double scaled = distance * 100.0;
+		double fraction = scaled - Math.floor(scaled);
+		if (Math.abs(fraction - 0.5) < 1e-6)
+			return -1;
+		return (long) Math.floor(scaled + 0.5);
+	}
+
+	/**
+	 * Compare the text of a cell with a value, as String.compareTo.
+	 * Fixed width cells are formatted into a reused buffer.
+	 * @throws NullPointerException for a null cell
+	 */
+	public int compareText(int row, int col, String value) {
+		if (isNull(row, col))
+			throw new NullPointerException("cell " + row + "," + col + " is null");
+		if (!kinds[col].isFixedWidth())
+			return getText(row, col).compareTo(value);
+		int length = format(kinds[col], ints[col][row], cellChars);
+		int common = Math.min(length, value.length());
+		for (int i = 0; i < common; i++) {
+			if (cellChars[i] != value.charAt(i))
+				return cellChars[i] - value.charAt(i);
+		}
+		return length - value.length();
+	}
+
+	/**
+	 * Add all rows of another store with the same columns.
+	 * Columns of different kinds become TEXT.
+	 */
+	public void addAll(RowStore other) {
+		if (other.cols.length != cols.length)
+			throw new IllegalArgumentException("stores have " + cols.length + " and " + other.cols.length + " columns");
+		ensureCapacity(size + other.size);
+		int[] otherCodes = null;
+		for (int col = 0; col < cols.length; col++) {
+			Kind kind = other.kinds[col];
+			if (Kind.NONE == kind) {
+				if (Kind.DISTANCE == kinds[col])
+					Arrays.fill(doubles[col], size, size + other.size, Double.NaN);
+				else if (Kind.NONE != kinds[col])
+					Arrays.fill(ints[col], size, size + other.size, NULL);
+			} else if (kind != prepare(col, kind)) {
+				for (int row = 0; row < other.size; row++) {
+					String text = other.getText(row, col);
+					ints[col][size + row] = null == text ? NULL : code(text);
+				}
+			} else if (Kind.TEXT == kind) {
+				if (null == otherCodes) {
+					// Codes of the other pool in this one, one lookup per string.
+					otherCodes = new int[other.strings.size()];
+					for (int code = 0; code < otherCodes.length; code++) {
+						otherCodes[code] = code(other.strings.get(code));
+					}
+				}
+				for (int row = 0; row < other.size; row++) {
+					int code = other.ints[col][row];
+					ints[col][size + row] = NULL == code ? NULL : otherCodes[code];
+				}
+			} else if (Kind.DISTANCE == kind) {
+				System.arraycopy(other.doubles[col], 0, doubles[col], size, other.size);
+			} else {
+				System.arraycopy(other.ints[col], 0, ints[col], size, other.size);
+			}
+		}
+		size += other.size;
+	}
+
+	/**
+	 * Sort the rows, stable, so rows comparing equal keep their order.
+	 * A bottom up merge sort of row positions, then each column is moved once.
+	 */
+	public void sort(RowComparator comparator) {
+		int[] order = new int[size];
+		for (int row = 0; row < size; row++) {
+			order[row] = row;
+		}
+		int[] merged = new int[size];
+		for (int width = 1; width < size; width *= 2) {
+			for (int lo = 0; lo < size; lo += 2 * width) {
+				int mid = Math.min(lo + width, size);
+				int hi = Math.min(lo + 2 * width, size);
+				int left = lo;
+				int right = mid;
+				for (int to = lo; to < hi; to++) {
+					if (left < mid && (right >= hi || comparator.compare(this, order[left], order[right]) <= 0))
+						merged[to] = order[left++];
+					else
+						merged[to] = order[right++];
+				}
+			}
+			int[] swap = order;
+			order = merged;
+			merged = swap;
+		}
+		for (int col = 0; col < cols.length; col++) {
+			if (null != ints[col]) {
+				int[] values = new int[capacity];
+				for (int row = 0; row < size; row++) {
+					values[row] = ints[col][order[row]];
+				}
+				ints[col] = values;
+			}
+			if (null != doubles[col]) {
+				double[] values = new double[capacity];
+				for (int row = 0; row < size; row++) {
+					values[row] = doubles[col][order[row]];
+				}
+				doubles[col] = values;
+			}
+		}
+	}
+
+	/**
+	 * Make a column hold values of the given kind. A NONE column takes the kind,
+	 * a column of another kind becomes TEXT.
+	 * @return kind the column holds
+	 */
+	protected Kind prepare(int col, Kind kind) {
+		Kind current = kinds[col];
+		if (current == kind)
+			return kind;
+		if (Kind.NONE == current) {
+			if (Kind.DISTANCE == kind) {
+				doubles[col] = new double[capacity];
+				Arrays.fill(doubles[col], 0, size, Double.NaN);
+			} else {
+				ints[col] = new int[capacity];
+				Arrays.fill(ints[col], 0, size, NULL);
+			}
+			kinds[col] = kind;
+			return kind;
+		}
+		if (Kind.TEXT != current) {
+			int[] texts = new int[capacity];
+			for (int row = 0; row < size; row++) {
+				String text = getText(row, col);
+				texts[row] = null == text ? NULL : code(text);
+			}
+			LOGGER.debug("column " + cols[col] + " of kind " + current + " and " + kind + " kept as text");
+			kinds[col] = Kind.TEXT;
+			ints[col] = texts;
+			doubles[col] = null;
+		}
+		return Kind.TEXT;
+	}
+
+	/** Pool code of a string, added when new. */
+	protected int code(String text) {
+		Integer code = codes.get(text);
+		if (null == code) {
+			code = strings.size();
+			strings.add(text);
+			codes.put(text, code);
+		}
+		return code;
+	}
+
+	protected void ensureCapacity(int rows) {
+		if (rows <= capacity)
+			return;
+		capacity = Math.max(rows, capacity + (capacity >> 1));
+		for (int col = 0; col < cols.length; col++) {
+			if (null != ints[col])
+				ints[col] = Arrays.copyOf(ints[col], capacity);
+			if (null != doubles[col])
+				doubles[col] = Arrays.copyOf(doubles[col], capacity);
+		}
+	}
+}
@@ -8,7 +8,7 @@ import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.imageio.ImageIO;
 import javax.imageio.stream.FileImageOutputStream;
@@ -41,13 +41,13 @@ public class Visualize extends AbstractAnalysis {
 	public static final float BLOB_SIZE = 15.0f; // Size of scatter plot blob
 	public static final float BLOB_ALPHA = 0.75f; // Transparency of blob
 	
-	protected List<String[]> data;
+	protected RowStore data;
 	protected String[] cols;
 	
     protected Coord3d[] points;
     protected Color[] colors;
 
-	public Visualize( final List<String []> data, final String [] cols ) {
+	public Visualize( final RowStore data, final String [] cols ) {
 		if ( null != data ) {
 			this.data = data;	
 			this.cols = cols;
@@ -115,30 +115,36 @@ public class Visualize extends AbstractAnalysis {
 	        points = new Coord3d[data.size()];
 	        colors = new Color[data.size()];
 
+	        int rgbCol = ColorCalc.arrayPosition( cols, Col.RGB.getName() );
+	        if ( -1 == rgbCol ) 
+	        	return;
+	        int[] rgbs = new int[ data.size() ];
 	        for ( int rowi = 0; rowi < data.size(); rowi++ ) {
-	        	String[] row = data.get(rowi);
-	        	for (int coli = 0; coli< cols.length; coli++) {
-					String cell = null;
-					if ( coli < row.length) cell = row[ coli ]; // might have empty cols
-					
-					if (cols[ coli ].equals("RGB") ) {
-						java.awt.Color color = ColorUtils.toColor( cell );
-						HSLColor hsl = new HSLColor(color); // hue=0.360,sat=0..100,lum-0..100
-						// Scale our HSL hue range of 0..360 to 0..2pi
-						// Scale our HSL saturation range of 0.0..100.0 to 0.0..1.0
-						// Scale our HSL luminance range of 0.0..100.0 to -0.5..0.5
-						float hslf[] = hsl.getHSL(); // HSLColor domain
-						float hslpf[] = new float[] { hslf[HUE_POS] * (float)Math.PI / 180.0f, 
-							hslf[SAT_POS]/100.0f/2.0f, hslf[LUM_POS]/100.0f-0.5f, }; // Jzy3d domain
-						// LOGGER.info ("Vis hsl=" + String.format( "%f,%f,%f", hslf[HUE],hslf[SAT],hslf[LUM]));
-						// x reps azimuth (radians 0..2pi), y reps elevation angle, and z reps range.
-						Coord3d hslp = new Coord3d( hslpf[HUE_POS], Math.atan2(hslpf[LUM_POS], hslpf[SAT_POS]), 
-							Math.sqrt(hslpf[LUM_POS]*hslpf[LUM_POS] + hslpf[SAT_POS]*hslpf[SAT_POS])); 
-						points[ rowi ] = hslp.cartesian();
-						// points[ rowi ] = new Coord3d( color.getRed(), color.getGreen(), color.getBlue() ); // RGB box
-						colors[ rowi ] = new Color( color.getRed()/255.0f, color.getGreen()/255.0f, color.getBlue()/255.0f, BLOB_ALPHA);
-					}
-				}
+				// Packed RGB of the column, indexed rather than walked.
+				rgbs[ rowi ] = data.getRGB( rowi, rgbCol );
+				if ( RowStore.NULL == rgbs[ rowi ] )
+					throw new IllegalArgumentException( "column " + cols[ rgbCol ] + " of row " + rowi + " has no value to visualize" );
+	        }
+	        // hue=0.360,sat=0..100,lum-0..100
+	        float[] hues = new float[ rgbs.length ];
+	        float[] sats = new float[ rgbs.length ];
+	        float[] lums = new float[ rgbs.length ];
+	        HSLColor.fromRGB( ForkJoinPool.commonPool(), rgbs, hues, sats, lums );
+
+	        for ( int rowi = 0; rowi < rgbs.length; rowi++ ) {
+				// Scale our HSL hue range of 0..360 to 0..2pi
+				// Scale our HSL saturation range of 0.0..100.0 to 0.0..1.0
+				// Scale our HSL luminance range of 0.0..100.0 to -0.5..0.5
+				float hslpf[] = new float[] { hues[ rowi ] * (float)Math.PI / 180.0f, 
+					sats[ rowi ]/100.0f/2.0f, lums[ rowi ]/100.0f-0.5f, }; // Jzy3d domain
+				// LOGGER.info ("Vis hsl=" + String.format( "%f,%f,%f", hues[ rowi ], sats[ rowi ], lums[ rowi ]));
+				// x reps azimuth (radians 0..2pi), y reps elevation angle, and z reps range.
+				Coord3d hslp = new Coord3d( hslpf[HUE_POS], Math.atan2(hslpf[LUM_POS], hslpf[SAT_POS]), 
+					Math.sqrt(hslpf[LUM_POS]*hslpf[LUM_POS] + hslpf[SAT_POS]*hslpf[SAT_POS])); 
+				points[ rowi ] = hslp.cartesian();
+				// points[ rowi ] = new Coord3d( color.getRed(), color.getGreen(), color.getBlue() ); // RGB box
+				int rgb = rgbs[ rowi ];
+				colors[ rowi ] = new Color( ((rgb >> 16) & 0xFF)/255.0f, ((rgb >> 8) & 0xFF)/255.0f, (rgb & 0xFF)/255.0f, BLOB_ALPHA);
 	        }
 		}
 	}
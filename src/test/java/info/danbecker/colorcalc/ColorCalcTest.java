@@ -6,7 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
-// import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -16,12 +16,16 @@ import static org.mockito.Mockito.verify;
 import java.awt.Color;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -111,6 +115,7 @@ public class ColorCalcTest {
 	}
 
 	@Test
+	@SuppressWarnings("deprecation")
     public void testPopulateOutputData() {
 		/** Take the given data line and populate the columns of the output file
 		 *  from the dictionary and calculations 
@@ -132,6 +137,11 @@ public class ColorCalcTest {
 		assertTrue( 0 == outputData.size(), "output data empty");
 		ColorCalc.populateOutputData( outputData, dictionary, cols, headers, dictionaryHeaders, data);
 		assertTrue( 1 == outputData.size(), "output data populated");
+		// The map is converted on every call, so a color added to it is found by the next call.
+		dictionary.put( new Color( 0xFF1000 ), Arrays.asList("fred"));
+		ColorCalc.populateOutputData( outputData, dictionary, new String[] {"Dict-Name"}, headers, dictionaryHeaders, new String[] { "FF1000", "Red", "Fred"});
+		assertEquals( "[fred]", outputData.remove( 1 )[ 0 ], "map change seen");
+		dictionary.remove( new Color( 0xFF1000 ));
 		// Name=Bright Red, RGB=FF0000, HSL=000100050, RGB'=FF0000, Dict-Name=[red], RGB=FF0000
 		String [] returnedData = outputData.get(0);
 		LOGGER.debug( "returned data=" + Arrays.deepToString(returnedData));
@@ -144,6 +154,68 @@ public class ColorCalcTest {
 			case 4: assertEquals( "FF0000", returnedData[ col ], "dict rgb"); break;
 			}
 		}
+
+		// Dict- columns of one row share a single dictionary lookup.
+		DictionaryMatch.resetCounts();
+		String [] dictCols = new String[] {"Name","Dict-Name","Dict-RGB","Dict-HSL","Dict-H"};
+		ColorDictionary colors = ColorDictionary.fromMap( dictionary );
+		ColorCalc.populateOutputData( outputData, colors, dictCols, headers, dictionaryHeaders, data);
+		assertEquals( 1, DictionaryMatch.getLookups(), "dictionary lookups");
+		assertEquals( 3, DictionaryMatch.getLookupsSaved(), "dictionary lookups saved");
+		returnedData = outputData.get(1);
+		assertEquals( "[red]", returnedData[ 1 ], "dict name");
+		assertEquals( "FF0000", returnedData[ 2 ], "dict rgb");
+		assertEquals( "000100050", returnedData[ 3 ], "dict hsl");
+		assertEquals( "000", returnedData[ 4 ], "dict h");
+
+		// k nearest dictionary colors and distances come from one lookup.
+		DictionaryMatch.resetCounts();
+		ColorCalc.dist = new ColorDistanceRGBEuclidean();
+		String [] nearCols = new String[] {"Name","Dict-Name","Dict-Dist","Dict2-Name","Dict2-RGB","Dict3-RGB","Dict4-Name","Dict4-R"};
+		ColorCalc.populateOutputData( outputData, colors, nearCols, headers, dictionaryHeaders, new String[] { "FF1000", "Red", "Fred"});
+		assertEquals( 1, DictionaryMatch.getLookups(), "k nearest lookups");
+		returnedData = outputData.get(2);
+		assertEquals( "[red]", returnedData[ 1 ], "dict name");
+		assertEquals( "016.00", returnedData[ 2 ], "dict dist");
+		assertEquals( null, returnedData[ 6 ], "no fourth name");
+		assertEquals( null, returnedData[ 7 ], "no fourth red");
+		assertTrue( !returnedData[ 4 ].equals( returnedData[ 5 ] ), "second and third differ");
+
+		// All dictionary colors within the radius, nearest first.
+		ColorDictionary nearby = ColorDictionary.fromMap( dictionary );
+		nearby.add( 0xF01010, "scarlet" );
+		ColorCalc.buildDictionaryIndex( nearby, "KDTree" );
+		ColorCalc.radius = 25.0;
+		String [] withinCols = new String[] {"Name","Within-Name","Within-RGB","Within-Count","Within-HSL"};
+		ColorCalc.populateOutputData( outputData, nearby, withinCols, headers, dictionaryHeaders, new String[] { "FF1000", "Red", "Fred"});
+		returnedData = outputData.get(3);
+		assertEquals( "[red] [scarlet]", returnedData[ 1 ], "within names");
+		assertEquals( "FF0000 F01010", returnedData[ 2 ], "within rgb");
+		assertEquals( "2", returnedData[ 3 ], "within count");
+		assertEquals( null, returnedData[ 4 ], "within hsl");
+		ColorCalc.radius = 10.0;
+		ColorCalc.populateOutputData( outputData, nearby, withinCols, headers, dictionaryHeaders, new String[] { "FF1000", "Red", "Fred"});
+		assertEquals( "0", outputData.get(4)[ 3 ], "none within");
+		assertEquals( 0, ColorCalc.colorsWithin( null, 0xFF0000, 10.0 ).length, "within null dictionary");
+	}
+
+	@Test
+    public void testDictionaryRank() {
+		assertEquals( 0, ColorCalc.dictionaryRank( "" ), "no prefix");
+		assertEquals( 0, ColorCalc.dictionaryRank( "Input" ), "input prefix");
+		assertEquals( 1, ColorCalc.dictionaryRank( "Dict" ), "dict prefix");
+		assertEquals( 3, ColorCalc.dictionaryRank( "Dict3" ), "dict3 prefix");
+		assertEquals( 0, ColorCalc.dictionaryRank( "Dictx" ), "dictx prefix");
+		assertEquals( 3, ColorCalc.dictionaryNeighbours( new String[] { "Name", "Dict-Name", "Dict3-RGB", "Dict2-Dist" }), "neighbours");
+		assertEquals( "007.50", ColorCalc.formatDistance( 7.5 ), "format distance");
+		// A decimal comma would split the field of a comma separated file.
+		Locale locale = Locale.getDefault();
+		try {
+			Locale.setDefault( Locale.GERMANY );
+			assertEquals( "012.34", ColorCalc.formatDistance( 12.34 ), "format distance in any locale");
+		} finally {
+			Locale.setDefault( locale );
+		}
 	}
 
 	@Test
@@ -170,6 +242,31 @@ public class ColorCalcTest {
 				new AbstractMap.SimpleEntry<Color,List<String>>(Color.BLUE, Arrays.asList("blue")).equals(ColorCalc.closestColor(dictionary, Color.BLUE)),
 				"dictionary blue"
 				);
+
+		// Indexed dictionary should agree with the linear scan.
+		ColorDictionary indexed = ColorDictionary.fromMap( dictionary );
+		indexed.add( Color.CYAN.getRGB(), "cyan" );
+		ColorCalc.dist = new ColorDistanceRGBEuclidean();
+		assertEquals( -1, ColorCalc.closestColor( (ColorDictionary) null, Color.CYAN.getRGB()), "dictionary null position");
+		assertEquals( indexed.indexOf( Color.GREEN.getRGB()), ColorCalc.closestColor( indexed, 0x10F020 ), "unindexed position");
+		assertTrue( ColorCalc.buildDictionaryIndex( indexed, "KDTree" ) instanceof ColorIndexKDTree, "index built");
+		assertEquals( indexed.indexOf( Color.CYAN.getRGB()), ColorCalc.closestColor( indexed, Color.CYAN.getRGB()), "indexed cyan");
+		assertEquals( indexed.indexOf( Color.GREEN.getRGB()), ColorCalc.closestColor( indexed, 0x10F020 ), "indexed green");
+		assertEquals( Color.GREEN, ColorCalc.closestColor(dictionary, Color.CYAN).getKey(), "unindexed green");
+		assertTrue( ColorCalc.buildDictionaryIndex( indexed, "None" ) instanceof ColorIndexLinear, "index none");
+		int[] positions = new int[ 3 ];
+		assertEquals( 3, ColorCalc.closestColors( indexed, Color.CYAN.getRGB(), 3, positions ), "k nearest count");
+		assertEquals( indexed.indexOf( Color.CYAN.getRGB()), positions[ 0 ], "k nearest first");
+
+		// Batch of packed colors
+		int[] batch = new int[] { Color.CYAN.getRGB(), 0x10F020, 0x0000F0 };
+		int[] batchPositions = new int[ batch.length ];
+		float[] batchDistances = new float[ batch.length ];
+		ColorCalc.closestColors( indexed, batch, batchPositions, batchDistances );
+		assertArrayEquals( new int[] { indexed.indexOf( Color.CYAN.getRGB()), indexed.indexOf( Color.GREEN.getRGB()), indexed.indexOf( Color.BLUE.getRGB())}, 
+			batchPositions, "batch positions");
+		assertEquals( 0.0f, batchDistances[ 0 ], "batch exact distance");
+		assertEquals( 15.0f, batchDistances[ 2 ], 1e-4f, "batch blue distance");
 	}
 
 	@Test
@@ -194,7 +291,7 @@ public class ColorCalcTest {
 		
 	    // Populate headers
 	    assertTrue( null == ColorCalc.dictionaryHeaders );
-		ColorCalc.addToDictionary( null, null, "Name  RGB	Foo");
+		ColorCalc.addToDictionary( (Map<Color,List<String>>) null, null, "Name  RGB	Foo");
 		assertTrue( Arrays.deepEquals( new String[] { "Name", "RGB", "Foo" }, ColorCalc.dictionaryHeaders)  );
 		
 		// Add to dictionary
@@ -204,7 +301,7 @@ public class ColorCalcTest {
 		assertArrayEquals( new String[] { "Pure Red" }, dictionaryNames.get( Color.RED ).toArray(new String[0]));
 
 		// Assert no null exception thrown
-		ColorCalc.addToDictionary( null, ColorCalc.dictionaryHeaders, "Pure Red   #FF0000	Fred");
+		ColorCalc.addToDictionary( (Map<Color,List<String>>) null, ColorCalc.dictionaryHeaders, "Pure Red   #FF0000	Fred");
 
 		// assertThrows( NullPointerException.class, () -> { ColorCalc.addToDictionary( null, dictionaryHeaders, line); });
 	}
@@ -229,4 +326,83 @@ public class ColorCalcTest {
 		verify(writer, times(2)).write("7f7f7f");
 		verify(writer, times(3)).write(System.getProperty("line.separator"));
 	}
+
+	@Test
+    public void testReadInputs() throws IOException {
+		// Two files with the columns in a different order, read concurrently, merged in order.
+		Path first = Files.createTempFile( "ColorCalcTest", ".txt" );
+		Path second = Files.createTempFile( "ColorCalcTest", ".txt" );
+		String[] cols = ColorCalc.cols;
+		RowStore outputData = ColorCalc.outputData;
+		BufferedWriter writer = ColorCalc.writer;
+		String comment = ColorCalc.comment;
+		StringWriter comments = new StringWriter();
+		try {
+			Files.write( first, Arrays.asList( "# First", "Name\tRGB", "Red\tFF0000", "", "Green\t00FF00" ));
+			Files.write( second, Arrays.asList( "# Second", "RGB\tName", "0000FF\tBlue", "# Last" ));
+			ColorCalc.cols = new String[] { "Name", "RGB" };
+			ColorCalc.outputData = new RowStore( ColorCalc.cols, ColorCalc.dictionary );
+			ColorCalc.writer = new BufferedWriter( comments );
+			ColorCalc.comment = "remark";
+			ColorCalc.table = false;
+
+			for ( boolean parallelIns : new boolean[] { false, true } ) {
+				ColorCalc.parallelIns = parallelIns;
+				ColorCalc.outputData.clear();
+				assertEquals( 9, ColorCalc.readInputs( new String[] { first.toString(), second.toString() }), "line count");
+				assertEquals( 3, ColorCalc.outputData.size(), "rows");
+				assertArrayEquals( new String[] { "Red", "FF0000" }, ColorCalc.outputData.getRow( 0 ), "first file row 1");
+				assertArrayEquals( new String[] { "Green", "00FF00" }, ColorCalc.outputData.getRow( 1 ), "first file row 2");
+				assertArrayEquals( new String[] { "Blue", "0000FF" }, ColorCalc.outputData.getRow( 2 ), "second file row");
+				assertEquals( RowStore.Kind.RGB, ColorCalc.outputData.getKind( 1 ), "typed color column");
+			}
+			ColorCalc.writer.flush();
+			String nl = System.getProperty("line.separator");
+			String once = "# First" + nl + "# remark" + nl + "# Second" + nl + "# Last" + nl;
+			assertEquals( once + once, comments.toString(), "comments in order");
+		} finally {
+			ColorCalc.cols = cols;
+			ColorCalc.outputData = outputData;
+			ColorCalc.writer = writer;
+			ColorCalc.comment = comment;
+			ColorCalc.parallelIns = false;
+			ColorCalc.headers = null;
+			Files.deleteIfExists( first );
+			Files.deleteIfExists( second );
+		}
+	}
+
+	@Test
+    public void testWritePairs() throws IOException {
+		Path pairFile = Files.createTempFile( "ColorCalcTest", ".txt" );
+		ColorDistance dist = ColorCalc.dist;
+		try {
+			ColorCalc.dist = new ColorDistanceRGBEuclidean();
+			// Dictionary colors, names joined without commas.
+			ColorDictionary dictionary = new ColorDictionary();
+			dictionary.add( 0xFF0000, "red" );
+			dictionary.add( 0xFF0000, "scarlet" );
+			dictionary.add( 0xF01010, null );
+			String [] cols = new String[] { "RGB" };
+			ColorCalc.writePairs( new RowStore( cols, null ), cols, dictionary, 30.0, pairFile.toString() );
+			List<String> lines = Files.readAllLines( pairFile );
+			assertEquals( "Name,RGB,Pair-Name,Pair-RGB,Pair-Dist", lines.get( 0 ), "pair headers");
+			assertEquals( "red; scarlet,FF0000,,F01010,027.15", lines.get( 1 ), "dictionary pair");
+			assertEquals( 5, LineTokenizer.split( lines.get( 1 )).length, "pair fields");
+
+			// Output rows without a Name column have empty names.
+			RowStore rows = RowStore.of( cols, Arrays.asList( new String[][] { { "FF0000" }, { "F01010" } } ));
+			ColorCalc.writePairs( rows, cols, dictionary, 30.0, pairFile.toString() );
+			assertEquals( ",FF0000,,F01010,027.15", Files.readAllLines( pairFile ).get( 1 ), "row pair");
+
+			// A row without a color names the column and row.
+			RowStore missing = RowStore.of( cols, Arrays.asList( new String[][] { { "FF0000" }, { null } } ));
+			IllegalArgumentException e = assertThrows( IllegalArgumentException.class, () -> {
+				ColorCalc.writePairs( missing, cols, dictionary, 30.0, pairFile.toString() ); });
+			assertEquals( "column RGB of row 1 has no value to pair", e.getMessage(), "missing color");
+		} finally {
+			ColorCalc.dist = dist;
+			Files.deleteIfExists( pairFile );
+		}
+	}
 }
\ No newline at end of file
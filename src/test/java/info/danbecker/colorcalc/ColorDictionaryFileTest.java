@@ -0,0 +1,105 @@
+package info.danbecker.colorcalc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColorDictionaryFileTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( ColorDictionaryFileTest.class);
+
+	@TempDir
+	protected Path tempDir;
+
+	/** A dictionary with some colors of several names and some names on several colors. */
+	public static ColorDictionary sampleDictionary() {
+		Random random = new Random( 7 );
+		ColorDictionary dictionary = new ColorDictionary();
+		for ( int i = 0; i < 300; i++ ) {
+			int rgb = random.nextInt( 0x1000000 );
+			dictionary.add( rgb, "Color " + i );
+			if ( 0 == i % 3 )
+				dictionary.add( rgb, "Grün " + ( i % 10 ));
+		}
+		return dictionary;
+	}
+
+	@Test
+    public void testRoundTrip() throws IOException {
+		ColorDictionary dictionary = sampleDictionary();
+		dictionary.setIndex( new ColorIndexKDTree( dictionary.getRGBs() ));
+		Path file = tempDir.resolve( "sample.ccd" );
+		ColorDictionaryFile.write( file, dictionary );
+		assertTrue( ColorDictionaryFile.isCompiled( file ), "compiled");
+
+		ColorDictionary read = ColorDictionaryFile.read( file, new ColorDistanceRGBEuclidean() );
+		assertEquals( dictionary.size(), read.size(), "size");
+		assertEquals( dictionary.nameSize(), read.nameSize(), "name size");
+		assertArrayEquals( dictionary.getRGBs(), read.getRGBs(), "colors");
+		for ( int position = 0; position < dictionary.size(); position++ ) {
+			assertEquals( dictionary.getNames( position ), read.getNames( position ), "names " + position);
+			assertEquals( position, read.indexOf( dictionary.getRGB( position )), "indexOf " + position);
+		}
+		assertTrue( read.getIndex() instanceof ColorIndexKDTree, "kd tree index");
+		Random random = new Random( 11 );
+		for ( int i = 0; i < 500; i++ ) {
+			int rgb = random.nextInt( 0x1000000 );
+			assertEquals( dictionary.getIndex().closest( rgb ), read.getIndex().closest( rgb ), "closest " + Integer.toHexString( rgb ));
+		}
+
+		// Still usable for adding after reading.
+		int position = read.add( 0x123456, "Added" );
+		read.add( read.getRGB( 0 ), "Another" );
+		assertEquals( position, read.indexOf( 0x123456 ), "added");
+		assertEquals( "Another", read.getNames( 0 ).get( read.getNameCount( 0 ) - 1 ), "added name");
+	}
+
+	@Test
+    public void testVPTree() throws IOException {
+		ColorDictionary dictionary = sampleDictionary();
+		ColorDistance weighted = new ColorDistanceRGBWeighted();
+		dictionary.setIndex( new ColorIndexVPTree( dictionary.getRGBs(), weighted ));
+		Path file = tempDir.resolve( "vptree.ccd" );
+		ColorDictionaryFile.write( file, dictionary );
+
+		ColorDictionary read = ColorDictionaryFile.read( file, weighted );
+		assertTrue( read.getIndex() instanceof ColorIndexVPTree, "vp tree index");
+		Random random = new Random( 13 );
+		for ( int i = 0; i < 500; i++ ) {
+			int rgb = random.nextInt( 0x1000000 );
+			assertEquals( dictionary.getIndex().closest( rgb ), read.getIndex().closest( rgb ), "closest " + Integer.toHexString( rgb ));
+		}
+
+		// A tree for another distance is not used.
+		ColorDictionary other = ColorDictionaryFile.read( file, new ColorDistanceRGBEuclidean() );
+		assertTrue( null == other.getIndex(), "stale index dropped");
+		assertEquals( dictionary.size(), other.size(), "size without index");
+	}
+
+	@Test
+    public void testInvalid() throws IOException {
+		Path text = tempDir.resolve( "text.txt" );
+		Files.write( text, Arrays.asList( "Name  RGB", "Red  #FF0000" ));
+		assertTrue( !ColorDictionaryFile.isCompiled( text ), "text file");
+		assertTrue( !ColorDictionaryFile.isCompiled( tempDir.resolve( "missing.ccd" )), "missing file");
+		assertThrows( IOException.class, () -> { ColorDictionaryFile.read( text, new ColorDistanceRGBEuclidean() ); });
+
+		ColorDictionary dictionary = new ColorDictionary();
+		dictionary.add( 0xFF0000, "Red" );
+		Path file = tempDir.resolve( "red.ccd" );
+		ColorDictionaryFile.write( file, dictionary );
+		assertTrue( null == ColorDictionaryFile.read( file, new ColorDistanceRGBEuclidean() ).getIndex(), "no index");
+		byte[] bytes = Files.readAllBytes( file );
+		Files.write( file, Arrays.copyOf( bytes, bytes.length - 1 ));
+		assertThrows( IOException.class, () -> { ColorDictionaryFile.read( file, new ColorDistanceRGBEuclidean() ); });
+	}
+}
@@ -0,0 +1,139 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColorDictionaryTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( ColorDictionaryTest.class);
+
+	@Test
+    public void testAdd() {
+		ColorDictionary dictionary = new ColorDictionary();
+		assertEquals( 0, dictionary.size(), "empty");
+		assertEquals( -1, dictionary.indexOf( 0xFF0000 ), "empty indexOf");
+
+		assertEquals( 0, dictionary.add( 0xFF0000, "Red" ), "red position");
+		assertEquals( 1, dictionary.add( 0x00FF00, "Green" ), "green position");
+		// Alpha is ignored, names merge, duplicate names are dropped.
+		assertEquals( 0, dictionary.add( 0x80FF0000, "Pure Red" ), "merge position");
+		assertEquals( 0, dictionary.add( 0xFF0000, "Red" ), "duplicate position");
+		assertEquals( 2, dictionary.size(), "size");
+		assertEquals( 3, dictionary.nameSize(), "name size");
+		assertEquals( 2, dictionary.getNameCount( 0 ), "red names");
+		assertEquals( Arrays.asList( "Red", "Pure Red" ), dictionary.getNames( 0 ), "red names order");
+		assertEquals( "[Red, Pure Red]", dictionary.getNamesText( 0 ), "red names text");
+		assertEquals( Color.GREEN, dictionary.getColor( 1 ), "green color");
+		assertEquals( 0x00FF00, dictionary.getRGB( 1 ), "green rgb");
+		assertEquals( 1, dictionary.indexOf( Color.GREEN.getRGB() ), "green indexOf");
+
+		// Names text follows later additions.
+		dictionary.add( 0x00FF00, "Lime" );
+		assertEquals( "[Green, Lime]", dictionary.getNamesText( 1 ), "green names text");
+	}
+
+	@Test
+    public void testGrowAndTrim() {
+		ColorDictionary dictionary = new ColorDictionary();
+		int count = 5 * ColorDictionary.INITIAL_CAPACITY;
+		for ( int i = 0; i < count; i++ ) {
+			dictionary.add( i * 101, "color" + i );
+		}
+		// Interleave a second name per color so the name lists are not contiguous.
+		for ( int i = 0; i < count; i++ ) {
+			dictionary.add( i * 101, "alias" + ( i % 7 ));
+		}
+		dictionary.trim();
+		assertEquals( count, dictionary.size(), "size");
+		assertEquals( count + 7, dictionary.nameSize(), "name size");
+		for ( int i = 0; i < count; i++ ) {
+			assertEquals( i, dictionary.indexOf( i * 101 ), "indexOf " + i);
+			assertEquals( Arrays.asList( "color" + i, "alias" + ( i % 7 )), dictionary.getNames( i ), "names " + i);
+		}
+		int[] rgbs = dictionary.getRGBs();
+		assertEquals( count, rgbs.length, "rgbs length");
+		assertEquals( 101, rgbs[ 1 ], "rgbs value");
+
+		// Still usable after trim.
+		assertEquals( count, dictionary.add( 0xFFFFFF, "White" ), "add after trim");
+		assertEquals( count, dictionary.indexOf( 0xFFFFFF ), "indexOf after trim");
+		new ColorDictionary().trim();
+	}
+
+	@Test
+    public void testFromMap() {
+		Map<Color,List<String>> map = new LinkedHashMap<>();
+		map.put( Color.RED, Arrays.asList( "red", "pure red" ));
+		map.put( Color.BLUE, Arrays.asList( "blue" ));
+		ColorDictionary dictionary = ColorDictionary.fromMap( map );
+		assertEquals( 2, dictionary.size(), "size");
+		assertArrayEquals( new int[] { 0xFF0000, 0x0000FF }, dictionary.getRGBs(), "map order");
+		assertEquals( "[red, pure red]", dictionary.getNamesText( 0 ), "red names");
+		assertEquals( 0, ColorDictionary.fromMap( null ).size(), "null map");
+
+		ColorDictionary other = new ColorDictionary();
+		other.add( 0x0000FF, "navy" );
+		other.add( 0x00FF00, "green" );
+		dictionary.addAll( other );
+		assertEquals( 3, dictionary.size(), "addAll size");
+		assertEquals( "[blue, navy]", dictionary.getNamesText( 1 ), "addAll merge");
+		assertTrue( null == dictionary.getIndex(), "index reset");
+	}
+
+	@Test
+    public void testProbe() {
+		ColorDictionary dictionary = new ColorDictionary();
+		dictionary.add( 0xFF0000, "Red" );
+		dictionary.add( 0x00FF00, "Green" );
+		assertEquals( 1, dictionary.probe( Color.GREEN.getRGB() ), "probe hit");
+		assertEquals( -1, dictionary.probe( 0x00FE00 ), "probe miss");
+		assertEquals( 1, dictionary.getExactHits(), "hits");
+		assertEquals( 1, dictionary.getExactMisses(), "misses");
+
+		// Closest color takes the fast path for exact colors only.
+		ColorCalc.dist = new ColorDistanceRGBEuclidean();
+		ColorCalc.buildDictionaryIndex( dictionary, "KDTree" );
+		dictionary.resetCounts();
+		assertEquals( 0, ColorCalc.closestColor( dictionary, 0xFF0000 ), "closest exact");
+		assertEquals( 1, ColorCalc.closestColor( dictionary, 0x10F010 ), "closest near");
+		int[] positions = new int[ 4 ];
+		float[] distances = new float[ 4 ];
+		ColorCalc.closestColors( dictionary, new int[] { 0x00FF00, 0x00FF00, 0xF00000, 0x00FF00 }, positions, distances );
+		assertArrayEquals( new int[] { 1, 1, 0, 1 }, positions, "batch positions");
+		assertEquals( 0.0f, distances[ 0 ], "batch exact distance");
+		assertEquals( 15.0f, distances[ 2 ], 1e-4f, "batch near distance");
+		assertEquals( 4, dictionary.getExactHits(), "closest hits");
+		assertEquals( 2, dictionary.getExactMisses(), "closest misses");
+	}
+
+	@Test
+    public void testLinearIndex() {
+		ColorDictionary dictionary = new ColorDictionary();
+		dictionary.add( 0xFF0000, "Red" );
+		dictionary.add( 0x0000FF, "Blue" );
+		ColorDistance euclidean = new ColorDistanceRGBEuclidean();
+		ColorIndex linear = dictionary.getLinearIndex( euclidean );
+		assertTrue( linear == dictionary.getLinearIndex( euclidean ), "scan reused");
+		assertEquals( 1, linear.closest( 0x1010F0 ), "closest");
+
+		ColorDistance lab = new ColorDistanceCIE76();
+		ColorIndex labLinear = dictionary.getLinearIndex( lab );
+		assertTrue( linear != labLinear, "scan per distance");
+		assertTrue( labLinear == dictionary.getLinearIndex( lab ), "lab scan reused");
+
+		// An added color makes a new scan that includes it.
+		dictionary.add( 0x00FF00, "Green" );
+		ColorIndex added = dictionary.getLinearIndex( lab );
+		assertTrue( labLinear != added, "scan dropped");
+		assertEquals( 3, added.size(), "scan size");
+		assertEquals( 2, added.closest( 0x10F010 ), "added closest");
+	}
+}
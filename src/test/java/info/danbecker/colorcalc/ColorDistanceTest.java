@@ -5,6 +5,7 @@ import java.awt.Color;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ColorDistanceTest {	
 	public static final org.slf4j.Logger LOGGER = 
@@ -33,4 +34,91 @@ public class ColorDistanceTest {
 		assertEquals( 219.97, euclidean.distance( DANGRAY, Color.BLACK ), TOLERANCE);
 		
 	}
+
+	@Test
+    public void testLabDistance() {
+		Color DANGRAY = ColorUtils.toColor( "#7f7f7f" );		
+		ColorDistanceLab cie76 = new ColorDistanceCIE76();
+		ColorDistanceLab cie94 = new ColorDistanceCIE94();
+		ColorDistanceLab ciede2000 = new ColorDistanceCIEDE2000();
+		for ( ColorDistance dist : new ColorDistance[] { cie76, cie94, ciede2000 } ) {
+			assertEquals( Double.MAX_VALUE, dist.distance( DANGRAY, null ), TOLERANCE);
+			assertEquals( 0.0, dist.distance( DANGRAY, DANGRAY ), TOLERANCE);
+			assertEquals( dist.distance( Color.RED, Color.ORANGE ), dist.distance( Color.ORANGE, Color.RED ), 1e-9);
+		}
+		// Red L=53.24,a=80.09,b=67.20 and black L=0,a=0,b=0
+		assertEquals( 53.24 * 53.24 + 80.09 * 80.09 + 67.20 * 67.20, Math.pow( cie76.distance( Color.RED, Color.BLACK ), 2 ), 1.0);
+		// With a neutral color both chroma weights are 1, CIE94 is CIE76.
+		assertEquals( cie76.distance( 50.0, 0.0, 0.0, 40.0, 20.0, -30.0 ), cie94.distance( 50.0, 0.0, 0.0, 40.0, 20.0, -30.0 ), 1e-9);
+		assertTrue( cie94.distance( Color.RED, Color.ORANGE ) < cie76.distance( Color.RED, Color.ORANGE ), "chroma weighting");
+
+		// Test data of Sharma, Wu, and Dalal, "The CIEDE2000 Color-Difference Formula" (2005)
+		double[][] sharma = new double[][] {
+			{ 50.0000, 2.6772, -79.7751, 50.0000, 0.0000, -82.7485, 2.0425 },
+			{ 50.0000, 0.0000, 0.0000, 50.0000, -1.0000, 2.0000, 2.3669 },
+			{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0009, 7.1792 },
+			{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0010, 7.1792 },
+			{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0011, 7.2195 },
+			{ 50.0000, 2.5000, 0.0000, 73.0000, 25.0000, -18.0000, 27.1492 },
+			{ 60.2574, -34.0099, 36.2677, 60.4626, -34.1751, 39.4387, 1.2644 },
+			{ 2.0776, 0.0795, -1.1350, 0.9033, -0.0636, -0.5514, 0.9082 },
+		};
+		for ( double[] pair : sharma ) {
+			assertEquals( pair[ 6 ], ciede2000.distance( pair[ 0 ], pair[ 1 ], pair[ 2 ], pair[ 3 ], pair[ 4 ], pair[ 5 ] ), 1e-4, 
+				"CIEDE2000 " + java.util.Arrays.toString( pair ));
+			assertEquals( pair[ 6 ], ciede2000.distance( pair[ 3 ], pair[ 4 ], pair[ 5 ], pair[ 0 ], pair[ 1 ], pair[ 2 ] ), 1e-4, 
+				"CIEDE2000 reversed " + java.util.Arrays.toString( pair ));
+		}
+	}
+
+	@Test
+    public void testComparableDistance() {
+		ColorDistance[] distances = new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceRGBWeighted(),
+			new ColorDistanceCIE76(), new ColorDistanceCIE94(), new ColorDistanceCIEDE2000() };
+		java.util.Random random = new java.util.Random( 31 );
+		for ( ColorDistance dist : distances ) {
+			String name = dist.getClass().getSimpleName();
+			assertEquals( Double.MAX_VALUE, dist.comparableDistance( Color.RED, null ), TOLERANCE);
+			assertEquals( Double.MAX_VALUE, dist.comparableDistance( null, Color.RED, 10.0 ), TOLERANCE);
+			for ( int i = 0; i < 2000; i++ ) {
+				Color color1 = new Color( random.nextInt( 0x1000000 ));
+				Color color2 = new Color( random.nextInt( 0x1000000 ));
+				Color color3 = new Color( random.nextInt( 0x1000000 ));
+				double comparable = dist.comparableDistance( color1, color2 );
+				assertEquals( dist.distance( color1, color2 ), dist.toDistance( comparable ), 1e-9, name + " to distance");
+				assertEquals( comparable, dist.toComparable( dist.toDistance( comparable )), 1e-6, name + " to comparable");
+				// Same order as the distance.
+				double other = dist.comparableDistance( color1, color3 );
+				assertEquals( Double.compare( dist.distance( color1, color2 ), dist.distance( color1, color3 )), Double.compare( comparable, other ), name + " order");
+				// Exact within the bound, above the bound otherwise.
+				assertEquals( comparable, dist.comparableDistance( color1, color2, comparable ), name + " at bound");
+				assertEquals( comparable, dist.comparableDistance( color1, color2, 2 * comparable + 1 ), name + " within bound");
+				double bound = comparable * random.nextDouble();
+				if ( bound < comparable )
+					assertTrue( dist.comparableDistance( color1, color2, bound ) > bound, name + " beyond bound");
+			}
+		}
+	}
+
+	@Test
+    public void testPackedDistance() {
+		ColorDistance[] distances = new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceRGBWeighted(),
+			new ColorDistanceCIE76(), new ColorDistanceCIE94(), new ColorDistanceCIEDE2000() };
+		java.util.Random random = new java.util.Random( 37 );
+		for ( ColorDistance dist : distances ) {
+			String name = dist.getClass().getSimpleName();
+			for ( int i = 0; i < 2000; i++ ) {
+				// Alpha is ignored by the packed overloads.
+				int rgb1 = random.nextInt();
+				int rgb2 = random.nextInt();
+				Color color1 = new Color( rgb1 );
+				Color color2 = new Color( rgb2 );
+				double comparable = dist.comparableDistance( color1, color2 );
+				assertEquals( dist.distance( color1, color2 ), dist.distance( rgb1, rgb2 ), name + " distance");
+				assertEquals( comparable, dist.comparableDistance( rgb1, rgb2 ), name + " comparable");
+				double bound = comparable * random.nextDouble();
+				assertEquals( dist.comparableDistance( color1, color2, bound ), dist.comparableDistance( rgb1, rgb2, bound ), name + " bounded");
+			}
+		}
+	}
 }
@@ -0,0 +1,277 @@
+package info.danbecker.colorcalc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColorIndexTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( ColorIndexTest.class);
+
+	public static final int QUERIES = 2000;
+
+	@TempDir
+	protected Path tempDir;
+
+	protected int[] rgbs;
+
+	@BeforeEach
+    public void setup() {
+		// Fixed seed, coarse components so there are many equal distance ties.
+		Random random = new Random( 42 );
+		rgbs = new int[ 500 ];
+		for ( int i = 0; i < rgbs.length; i++ ) {
+			rgbs[ i ] = (random.nextInt( 16 ) * 17) << 16 | (random.nextInt( 16 ) * 17) << 8 | (random.nextInt( 16 ) * 17);
+		}
+	}
+
+	/** Linear scan reference, first strictly closer color wins. */
+	public static int linearClosest( int[] rgbs, int rgb ) {
+		int closest = -1;
+		int minDist = Integer.MAX_VALUE;
+		for ( int i = 0; i < rgbs.length; i++ ) {
+			int distance = ColorIndexKDTree.distanceSquared( rgb, rgbs[ i ]);
+			if ( distance < minDist ) {
+				minDist = distance;
+				closest = i;
+			}
+		}
+		return closest;
+	}
+
+	@Test
+    public void testKDTree() {
+		assertEquals( -1, new ColorIndexKDTree( new int[ 0 ] ).closest( 0x7F7F7F ), "empty");
+		assertEquals( 0, new ColorIndexKDTree( new int[] { 0xFF0000 } ).closest( 0x0000FF ), "single");
+
+		ColorIndex index = new ColorIndexKDTree( rgbs );
+		assertEquals( rgbs.length, index.size(), "size");
+		Random random = new Random( 7 );
+		for ( int q = 0; q < QUERIES; q++ ) {
+			int rgb = random.nextInt( 0x1000000 );
+			assertEquals( linearClosest( rgbs, rgb ), index.closest( rgb ), "closest to " + Integer.toHexString( rgb ));
+		}
+		for ( int i = 0; i < rgbs.length; i++ ) {
+			assertEquals( linearClosest( rgbs, rgbs[ i ] ), index.closest( rgbs[ i ] ), "exact " + i);
+		}
+	}
+
+	/** Linear sort reference for k nearest, distance then position. */
+	public static int[] linearClosest( int[] rgbs, int rgb, int k ) {
+		Integer[] order = new Integer[ rgbs.length ];
+		for ( int i = 0; i < order.length; i++ ) order[ i ] = i;
+		java.util.Arrays.sort( order, (a, b) -> {
+			int compare = Integer.compare( ColorIndexKDTree.distanceSquared( rgb, rgbs[ a ]), ColorIndexKDTree.distanceSquared( rgb, rgbs[ b ]));
+			return 0 != compare ? compare : Integer.compare( a, b );
+		});
+		int[] closest = new int[ Math.min( k, order.length ) ];
+		for ( int i = 0; i < closest.length; i++ ) closest[ i ] = order[ i ];
+		return closest;
+	}
+
+	@Test
+    public void testKNearest() {
+		int k = 5;
+		int[] positions = new int[ k ];
+		ColorIndex kdTree = new ColorIndexKDTree( rgbs );
+		ColorIndex linear = new ColorIndexLinear( rgbs, new ColorDistanceRGBEuclidean() );
+		Random random = new Random( 17 );
+		for ( int q = 0; q < QUERIES; q++ ) {
+			int rgb = random.nextInt( 0x1000000 );
+			int[] expected = linearClosest( rgbs, rgb, k );
+			assertEquals( k, kdTree.closest( rgb, k, positions ), "k-d tree count");
+			assertArrayEquals( expected, positions, "k-d tree " + Integer.toHexString( rgb ));
+			assertEquals( k, linear.closest( rgb, k, positions ), "linear count");
+			assertArrayEquals( expected, positions, "linear " + Integer.toHexString( rgb ));
+			assertEquals( kdTree.closest( rgb ), positions[ 0 ], "first of k is closest");
+		}
+		int[] two = new int[] { 0x000000, 0xFFFFFF };
+		assertEquals( 2, new ColorIndexKDTree( two ).closest( 0x101010, k, positions ), "fewer than k");
+		assertEquals( 0, positions[ 0 ], "fewer than k nearest");
+		assertEquals( 1, positions[ 1 ], "fewer than k farthest");
+	}
+
+	@Test
+    public void testVPTree() {
+		ColorDistance[] distances = new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceRGBWeighted(),
+			new ColorDistanceCIE76(), new ColorDistanceCIE94(), new ColorDistanceCIEDE2000() };
+		int k = 3;
+		int[] expected = new int[ k ];
+		int[] positions = new int[ k ];
+		for ( ColorDistance dist : distances ) {
+			assertEquals( -1, new ColorIndexVPTree( new int[ 0 ], dist ).closest( 0x7F7F7F ), "empty");
+			ColorIndex linear = new ColorIndexLinear( rgbs, dist );
+			ColorIndex vpTree = new ColorIndexVPTree( rgbs, dist );
+			Random random = new Random( 19 );
+			for ( int q = 0; q < QUERIES; q++ ) {
+				int rgb = random.nextInt( 0x1000000 );
+				String message = dist.getClass().getSimpleName() + " " + Integer.toHexString( rgb );
+				assertEquals( linear.closest( rgb ), vpTree.closest( rgb ), "closest " + message);
+				linear.closest( rgb, k, expected );
+				vpTree.closest( rgb, k, positions );
+				assertArrayEquals( expected, positions, "k nearest " + message);
+			}
+			assertEquals( 2 * QUERIES, vpTree.getQueryCount(), "query count");
+			assertEquals( linear.getQueryCount() * rgbs.length, linear.getDistanceCount(), "linear distance count");
+			if ( Double.isInfinite( dist.triangleFactor() ))
+				assertEquals( linear.getDistanceCount(), vpTree.getDistanceCount(), "no pruning without a triangle bound");
+			else
+				assertTrue( vpTree.getDistanceCount() < linear.getDistanceCount(), "fewer distance evaluations than linear");
+			LOGGER.info( dist.getClass().getSimpleName() + " distance evaluations per query vp tree=" 
+				+ vpTree.getDistanceCount() / vpTree.getQueryCount() + ", linear=" + rgbs.length );
+		}
+	}
+
+	@Test
+    public void testUnbounded() {
+		// Distances without a proven triangle bound get an exact index, checked against a brute force scan.
+		ColorDistance saved = ColorCalc.dist;
+		try {
+			for ( ColorDistance dist : new ColorDistance[] { new ColorDistanceCIE94(), new ColorDistanceCIEDE2000() } ) {
+				assertTrue( Double.isInfinite( dist.triangleFactor() ), "unbounded " + dist.getClass().getSimpleName());
+				ColorCalc.dist = dist;
+				ColorDictionary dictionary = new ColorDictionary();
+				for ( int rgb : rgbs ) {
+					dictionary.add( rgb, null );
+				}
+				int[] positions = dictionary.getRGBs();
+				for ( String indexName : new String[] { "KDTree", "VPTree" } ) {
+					ColorIndex index = ColorCalc.buildDictionaryIndex( dictionary, indexName );
+					assertTrue( index instanceof ColorIndexLinear, indexName + " scans " + dist.getClass().getSimpleName());
+				}
+				ColorIndex vpTree = new ColorIndexVPTree( positions, dist );
+				Random random = new Random( 23 );
+				for ( int q = 0; q < QUERIES; q++ ) {
+					int rgb = random.nextInt( 0x1000000 );
+					int closest = -1;
+					double minDist = Double.MAX_VALUE;
+					for ( int i = 0; i < positions.length; i++ ) {
+						double distance = dist.distance( rgb, positions[ i ]);
+						if ( distance < minDist ) {
+							minDist = distance;
+							closest = i;
+						}
+					}
+					String message = dist.getClass().getSimpleName() + " " + Integer.toHexString( rgb );
+					assertEquals( minDist, dist.distance( rgb, positions[ dictionary.getIndex().closest( rgb ) ]), 1e-9, "index " + message);
+					assertEquals( minDist, dist.distance( rgb, positions[ vpTree.closest( rgb ) ]), 1e-9, "vp tree " + message);
+					assertEquals( closest, vpTree.closest( rgb ), "vp tree position " + message);
+				}
+			}
+		} finally {
+			ColorCalc.dist = saved;
+		}
+	}
+
+	@Test
+    public void testLinear() {
+		assertEquals( -1, new ColorIndexLinear( new int[ 0 ], new ColorDistanceRGBEuclidean() ).closest( 0x7F7F7F ), "empty");
+		ColorIndex index = new ColorIndexLinear( rgbs, new ColorDistanceRGBEuclidean() );
+		Random random = new Random( 11 );
+		for ( int q = 0; q < QUERIES; q++ ) {
+			int rgb = random.nextInt( 0x1000000 );
+			assertEquals( linearClosest( rgbs, rgb ), index.closest( rgb ), "closest to " + Integer.toHexString( rgb ));
+		}
+	}
+
+	@Test
+    public void testLUT() throws IOException {
+		int[] small = new int[] { 0xFF0000, 0x00FF00, 0x0000FF, 0x7F7F7F, 0x000000, 0xFFFFFF, 0xFF0000 };
+		ColorDistance dist = new ColorDistanceRGBWeighted();
+		ColorIndex base = new ColorIndexLinear( small, dist );
+		Path file = tempDir.resolve( "dict.txt" + ColorIndexLUT.SUFFIX );
+		ColorIndex lut = ColorIndexLUT.open( file, small, dist, base );
+		assertTrue( Files.isRegularFile( file ), "table file");
+		assertEquals( small.length, lut.size(), "size");
+		Random random = new Random( 13 );
+		for ( int q = 0; q < QUERIES; q++ ) {
+			int rgb = random.nextInt( 0x1000000 );
+			assertEquals( base.closest( rgb ), lut.closest( rgb ), "closest to " + Integer.toHexString( rgb ));
+		}
+		assertEquals( 0, lut.closest( 0xFF0000 ), "duplicate color resolves to first");
+
+		// Same dictionary maps the existing file, a changed dictionary rebuilds it.
+		long modified = Files.getLastModifiedTime( file ).toMillis();
+		assertEquals( 3, ColorIndexLUT.open( file, small, dist, base ).closest( 0x808080 ), "reopened");
+		assertEquals( modified, Files.getLastModifiedTime( file ).toMillis(), "not rebuilt");
+		assertNotEquals( ColorIndexLUT.checksum( small, dist ), ColorIndexLUT.checksum( small, new ColorDistanceRGBEuclidean() ), "distance in checksum");
+		int[] changed = new int[] { 0x7F7F7F, 0xFF0000 };
+		ColorIndex rebuilt = ColorIndexLUT.open( file, changed, dist, new ColorIndexLinear( changed, dist ) );
+		assertEquals( 0, rebuilt.closest( 0x808080 ), "rebuilt gray");
+		assertEquals( 1, rebuilt.closest( 0xF00000 ), "rebuilt red");
+	}
+
+	@Test
+    public void testBatch() {
+		int count = 5 * ClosestColorTask.THRESHOLD + 17;
+		int[] queries = new int[ count ];
+		Random random = new Random( 23 );
+		for ( int i = 0; i < count; i++ ) {
+			queries[ i ] = random.nextInt( 0x1000000 );
+		}
+		int[] positions = new int[ count ];
+		float[] distances = new float[ count ];
+		ColorDistance dist = new ColorDistanceRGBEuclidean();
+		ForkJoinPool pool = new ForkJoinPool( 4 );
+		ClosestColorTask.invoke( pool, new ColorIndexKDTree( rgbs ), rgbs, dist, queries, positions, distances );
+		for ( int i = 0; i < count; i++ ) {
+			int expected = linearClosest( rgbs, queries[ i ] );
+			assertEquals( expected, positions[ i ], "batch " + Integer.toHexString( queries[ i ] ));
+			assertEquals( (float) Math.sqrt( ColorIndexKDTree.distanceSquared( queries[ i ], rgbs[ expected ] )), distances[ i ], 1e-4f, "batch distance " + i);
+		}
+
+		// Distances are optional, an empty dictionary gives -1.
+		ClosestColorTask.invoke( pool, new ColorIndexVPTree( rgbs, dist ), rgbs, null, queries, positions, null );
+		assertEquals( linearClosest( rgbs, queries[ count - 1 ] ), positions[ count - 1 ], "batch without distances");
+		ClosestColorTask.invoke( pool, new ColorIndexLinear( new int[ 0 ], dist ), new int[ 0 ], dist, new int[] { 0x7F7F7F }, positions, distances );
+		assertEquals( -1, positions[ 0 ], "empty dictionary");
+		assertTrue( Float.isNaN( distances[ 0 ] ), "empty dictionary distance");
+		assertThrows( IllegalArgumentException.class, () -> { 
+			ClosestColorTask.invoke( pool, new ColorIndexKDTree( rgbs ), rgbs, dist, queries, new int[ 1 ], null ); });
+		pool.shutdown();
+	}
+
+	@Test
+    public void testWithin() {
+		double[] radii = new double[] { 0.0, 17.0, 30.0, 60.5 };
+		ColorDistance[] distances = new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceRGBWeighted() };
+		for ( ColorDistance dist : distances ) {
+			ColorIndex linear = new ColorIndexLinear( rgbs, dist );
+			ColorIndex vpTree = new ColorIndexVPTree( rgbs, dist );
+			ColorIndex kdTree = dist instanceof ColorDistanceRGBEuclidean ? new ColorIndexKDTree( rgbs ) : null;
+			Random random = new Random( 29 );
+			for ( int q = 0; q < QUERIES / 4; q++ ) {
+				// Every other query is a dictionary color, so radius 0 finds something.
+				int rgb = 0 == q % 2 ? random.nextInt( 0x1000000 ) : rgbs[ random.nextInt( rgbs.length ) ];
+				for ( double radius : radii ) {
+					String message = dist.getClass().getSimpleName() + " " + Integer.toHexString( rgb ) + " radius " + radius;
+					int[] expected = linear.within( rgb, radius );
+					for ( int position : expected ) {
+						assertTrue( dist.distance( new java.awt.Color( rgb ), new java.awt.Color( rgbs[ position ] )) <= radius, "inside " + message);
+					}
+					if ( expected.length > 0 ) {
+						assertEquals( linear.closest( rgb ), expected[ 0 ], "nearest first " + message);
+					}
+					assertArrayEquals( expected, vpTree.within( rgb, radius ), "vp tree " + message);
+					if ( null != kdTree ) 
+						assertArrayEquals( expected, kdTree.within( rgb, radius ), "k-d tree " + message);
+				}
+			}
+			assertTrue( vpTree.getDistanceCount() < linear.getDistanceCount(), "fewer distance evaluations than linear");
+		}
+		assertEquals( 0, new ColorIndexKDTree( rgbs ).within( 0x7F7F7F, -1.0 ).length, "negative radius");
+		assertEquals( 0, new ColorIndexVPTree( new int[ 0 ], new ColorDistanceRGBEuclidean() ).within( 0x7F7F7F, 10.0 ).length, "empty");
+		assertEquals( rgbs.length, new ColorIndexKDTree( rgbs ).within( 0x7F7F7F, 500.0 ).length, "everything");
+	}
+}
@@ -0,0 +1,90 @@
+package info.danbecker.colorcalc;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColorPairsTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( ColorPairsTest.class);
+
+	/** Colors spanning several bands and a partial last band, with some near duplicates. */
+	protected static int[] randomColors( int count, long seed ) {
+		Random random = new Random( seed );
+		int[] rgbs = new int[ count ];
+		for ( int i = 0; i < count; i++ ) {
+			rgbs[ i ] = 0 == i % 5 && i > 0 ? rgbs[ random.nextInt( i ) ] ^ 0x010201 : random.nextInt( 0x1000000 );
+		}
+		return rgbs;
+	}
+
+	@Test
+    public void testPairIndex() {
+		assertEquals( 0, ColorPairs.pairCount( 1 ), "one color");
+		assertEquals( 1249975000L, ColorPairs.pairCount( 50000 ), "50k colors");
+		int colors = 7;
+		long expected = 0;
+		for ( int i = 0; i < colors; i++ ) {
+			for ( int j = i + 1; j < colors; j++ ) {
+				assertEquals( expected, ColorPairs.pairIndex( colors, i, j ), "pair " + i + "," + j);
+				assertEquals( expected, ColorPairs.pairIndex( colors, j, i ), "pair " + j + "," + i);
+				expected++;
+			}
+		}
+		assertEquals( ColorPairs.pairCount( colors ), expected, "pair count");
+	}
+
+	@Test
+    public void testWithin() {
+		int[] rgbs = randomColors( 2 * ColorPairs.TILE + 37, 41 );
+		ColorDistance[] distances = new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceCIEDE2000() };
+		double[] thresholds = new double[] { 20.0, 5.0 };
+		for ( int d = 0; d < distances.length; d++ ) {
+			ColorDistance dist = distances[ d ];
+			ColorPairs.PairList pairs = new ColorPairs( rgbs, dist ).within( ForkJoinPool.commonPool(), thresholds[ d ] );
+			int pair = 0;
+			for ( int i = 0; i < rgbs.length; i++ ) {
+				for ( int j = i + 1; j < rgbs.length; j++ ) {
+					double distance = dist.distance( rgbs[ i ], rgbs[ j ] );
+					if ( distance <= thresholds[ d ] ) {
+						assertEquals( i, pairs.getFirst( pair ), "first " + pair);
+						assertEquals( j, pairs.getSecond( pair ), "second " + pair);
+						assertEquals( distance, pairs.getDistance( pair ), 1e-4, "distance " + pair);
+						pair++;
+					}
+				}
+			}
+			assertEquals( pair, pairs.size(), dist.getClass().getSimpleName() + " pairs");
+			assertTrue( pair > rgbs.length / 10, "near duplicates found");
+		}
+		assertEquals( 0, new ColorPairs( new int[ 0 ], distances[ 0 ] ).within( ForkJoinPool.commonPool(), 10.0 ).size(), "empty");
+	}
+
+	@Test
+    public void testMatrix() throws Exception {
+		int[] rgbs = randomColors( ColorPairs.TILE + 9, 43 );
+		ColorDistance dist = new ColorDistanceCIE76();
+		Path file = Files.createTempFile( "ColorPairsTest", ".cpm" );
+		try {
+			new ColorPairs( rgbs, dist ).writeMatrix( ForkJoinPool.commonPool(), file );
+			assertEquals( ColorPairs.matrixPosition( rgbs.length ) + 4 * ColorPairs.pairCount( rgbs.length )
+				+ dist.getClass().getName().length(), Files.size( file ), "file size");
+			try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ )) {
+				for ( int i = 0; i < rgbs.length; i++ ) {
+					for ( int j = 0; j < rgbs.length; j++ ) {
+						assertEquals( (float) dist.distance( rgbs[ i ], rgbs[ j ] ), ColorPairs.readDistance( channel, i, j ), 1e-4, "pair " + i + "," + j);
+					}
+				}
+			}
+		} finally {
+			Files.deleteIfExists( file );
+		}
+	}
+}
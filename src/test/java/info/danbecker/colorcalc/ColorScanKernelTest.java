@@ -0,0 +1,82 @@
+package info.danbecker.colorcalc;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColorScanKernelTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( ColorScanKernelTest.class);
+
+	@Test
+    public void testSupports() {
+		assertTrue( ColorScanKernel.supports( new ColorDistanceRGBEuclidean() ), "euclidean");
+		assertTrue( ColorScanKernel.supports( new ColorDistanceRGBWeighted() ), "weighted");
+		assertTrue( !ColorScanKernel.supports( new ColorDistanceCIE76() ), "lab");
+		assertTrue( !ColorScanKernel.supports( null ), "null");
+		assertThrows( IllegalArgumentException.class, () -> new ColorScanKernel( new int[ 1 ], new ColorDistanceCIE94() ));
+		assertEquals( -1, new ColorScanKernel( new int[ 0 ], new ColorDistanceRGBEuclidean() ).closest( 0x123456 ), "empty");
+		assertThrows( IllegalArgumentException.class, () -> ColorScanKernel.of( new int[ 1 ], new ColorDistanceCIE94() ));
+		assertEquals( -1, ColorScanKernel.of( new int[ 0 ], new ColorDistanceRGBWeighted() ).closest( 0x123456 ), "of empty");
+	}
+
+	@Test
+    public void testBitExact() {
+		// The scalar kernel, and the Vector API kernel when the tests run with its module.
+		Random random = new Random( 47 );
+		// Several blocks and a partial block, with duplicate colors for ties.
+		int[] rgbs = new int[ 2 * ColorScanKernel.BLOCK + 71 ];
+		for ( int i = 0; i < rgbs.length; i++ ) {
+			rgbs[ i ] = 0 == i % 9 && i > 0 ? rgbs[ i / 2 ] : random.nextInt();
+		}
+		ColorDistance[] distances = new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceRGBWeighted() };
+		for ( ColorDistance dist : distances ) {
+			for ( ColorScanKernel kernel : new ColorScanKernel[] { new ColorScanKernel( rgbs, dist ), ColorScanKernel.of( rgbs, dist ) } ) {
+				String name = kernel.getClass().getSimpleName() + " " + dist.getClass().getSimpleName();
+				double[] comparables = new double[ rgbs.length ];
+				for ( int q = 0; q < 500; q++ ) {
+					int rgb = 0 == q % 4 ? rgbs[ random.nextInt( rgbs.length ) ] : random.nextInt();
+					kernel.comparableDistances( rgb, 0, rgbs.length, comparables );
+					int closest = -1;
+					double minDist = Double.MAX_VALUE;
+					for ( int i = 0; i < rgbs.length; i++ ) {
+						double comparable = dist.comparableDistance( rgb, rgbs[ i ] );
+						assertEquals( Double.doubleToLongBits( comparable ), Double.doubleToLongBits( comparables[ i ] ), name + " comparable " + i);
+						assertEquals( Double.doubleToLongBits( dist.distance( rgb, rgbs[ i ] )),
+							Double.doubleToLongBits( dist.toDistance( comparables[ i ] )), name + " distance " + i);
+						if ( comparable < minDist ) {
+							minDist = comparable;
+							closest = i;
+						}
+					}
+					assertEquals( closest, kernel.closest( rgb ), name + " closest");
+				}
+			}
+		}
+	}
+
+	@Test
+    public void testThreads() {
+		// Block buffers are per thread, parallel queries match sequential ones.
+		Random random = new Random( 53 );
+		int[] rgbs = new int[ ColorScanKernel.BLOCK + 33 ];
+		for ( int i = 0; i < rgbs.length; i++ ) {
+			rgbs[ i ] = random.nextInt();
+		}
+		int[] queries = random.ints( 20000 ).toArray();
+		for ( ColorDistance dist : new ColorDistance[] { new ColorDistanceRGBEuclidean(), new ColorDistanceRGBWeighted() } ) {
+			ColorScanKernel kernel = ColorScanKernel.of( rgbs, dist );
+			int[] expected = new int[ queries.length ];
+			for ( int q = 0; q < queries.length; q++ ) {
+				expected[ q ] = kernel.closest( queries[ q ] );
+			}
+			int[] actual = IntStream.range( 0, queries.length ).parallel().map( q -> kernel.closest( queries[ q ] )).toArray();
+			assertArrayEquals( expected, actual, dist.getClass().getSimpleName() + " parallel closest");
+		}
+	}
+}
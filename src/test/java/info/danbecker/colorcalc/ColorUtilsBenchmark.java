@@ -0,0 +1,78 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Times the hexadecimal color codec of ColorUtils against the String based
+ * code it replaced, trim, substring, Integer.parseInt, and String.format.
+ * Run with main, optionally giving the number of colors, default 1000000.
+ * <p>
+ * Each pass parses and formats every color, the best of several passes is reported
+ * so JIT compilation and collection pauses are left out.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ColorUtilsBenchmark {
+	public static final int PASSES = 7;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		Random random = new Random(17);
+		String[] hexes = new String[count];
+		int[] rgbs = new int[count];
+		for (int i = 0; i < count; i++) {
+			rgbs[i] = random.nextInt(0x1000000);
+			hexes[i] = (0 == (i & 1) ? "#" : "") + String.format("%06x", rgbs[i]);
+		}
+
+		long sum = 0;
+		long stringParse = Long.MAX_VALUE, tableParse = Long.MAX_VALUE;
+		long stringFormat = Long.MAX_VALUE, tableFormat = Long.MAX_VALUE;
+		char[] chars = new char[6];
+		for (int pass = 0; pass < PASSES; pass++) {
+			long start = System.nanoTime();
+			for (String hex : hexes) {
+				sum += stringToColor(hex).getRGB();
+			}
+			stringParse = Math.min(stringParse, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (String hex : hexes) {
+				sum += ColorUtils.parseRGB(hex);
+			}
+			tableParse = Math.min(tableParse, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (int rgb : rgbs) {
+				sum += String.format("%02X%02X%02X", (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF).length();
+			}
+			stringFormat = Math.min(stringFormat, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (int rgb : rgbs) {
+				sum += ColorUtils.formatRGB(rgb, chars, 0) + chars[5];
+			}
+			tableFormat = Math.min(tableFormat, System.nanoTime() - start);
+		}
+		System.out.println("colors=" + count + ", checksum=" + sum);
+		report("parse  string", stringParse, count);
+		report("parse  table ", tableParse, count);
+		report("format string", stringFormat, count);
+		report("format table ", tableFormat, count);
+	}
+
+	/** The earlier toColor, kept for comparison. */
+	protected static Color stringToColor(String colorString) {
+		colorString = colorString.trim();
+		if (colorString.startsWith("#"))
+			colorString = colorString.substring(1);
+		return new Color(Integer.parseInt(colorString.substring(0, 2), 16),
+				Integer.parseInt(colorString.substring(2, 4), 16),
+				Integer.parseInt(colorString.substring(4, 6), 16));
+	}
+
+	protected static void report(String name, long nanos, int count) {
+		System.out.println(String.format("%s %8.1f ms %6.1f ns/color", name, nanos / 1e6, (double) nanos / count));
+	}
+}
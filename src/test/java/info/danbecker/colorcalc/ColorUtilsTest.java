@@ -5,6 +5,7 @@ import java.awt.Color;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ColorUtilsTest {	
@@ -27,6 +28,16 @@ public class ColorUtilsTest {
 		assertEquals( "7F7F7F7F", ColorUtils.toRGBA(DANGRAYCLEAR));
 		assertTrue( null == ColorUtils.toRGBA( null ) );
 		
+		// packed
+		assertEquals( 0xFF7F7F7F, ColorUtils.parseRGB( "#7f7f7f" ));
+		assertEquals( 0x80FF7F3F, ColorUtils.parseRGB( " ff7f3f80 " ));
+		assertEquals( DANGRAYCLEAR.getRGB(), ColorUtils.parseRGB( "#7f7f7f7f" ));
+		assertEquals( "FF7F3F", ColorUtils.toRGB( 0x80FF7F3F ));
+		assertEquals( "00000A", ColorUtils.toRGB( 10 ));
+		assertThrows( IllegalArgumentException.class, () -> ColorUtils.parseRGB( null ));
+		assertThrows( IllegalArgumentException.class, () -> ColorUtils.parseRGB( "#7f7f" ));
+		assertThrows( NumberFormatException.class, () -> ColorUtils.parseRGB( "#7g7f7f" ));
+
 		// toANSI
 		assertTrue( null == ColorUtils.toANSIRGB( null, true ) );
 		String ansi = ColorUtils.toANSIRGB( ColorUtils.toColor("#7f7f7f7f"), true );
@@ -56,4 +67,27 @@ public class ColorUtilsTest {
 		assertEquals( 0x80, gray.getBlue() );
 		assertEquals( 0xff, gray.getAlpha() );
 	}
+
+	@Test
+    public void testHexCodec() {
+		// Every digit of both cases, compared with the JDK parse and format.
+		String line = "Name\t#0a1B2c\t3D4e5Fa9\tz";
+		assertEquals( 0xFF0A1B2C, ColorUtils.parseRGB( line, 4, 12 ), "field with # and tab");
+		assertEquals( 0xA93D4E5F, ColorUtils.parseRGB( line, 13, 21 ), "rgba field");
+		assertThrows( IllegalArgumentException.class, () -> ColorUtils.parseRGB( line, 0, 4 ));
+		assertThrows( NumberFormatException.class, () -> ColorUtils.parseRGB( "\u00e9F7F7F" ));
+		for ( int rgb = 0; rgb < 0x1000000; rgb += 0x010307 ) {
+			String hex = String.format( "%06X", rgb );
+			assertEquals( hex, ColorUtils.toRGB( rgb ), "toRGB " + hex);
+			assertEquals( 0xFF000000 | rgb, ColorUtils.parseRGB( hex.toLowerCase() ), "parseRGB " + hex);
+			assertEquals( hex, ColorUtils.appendRGB( new StringBuilder(), rgb ).toString(), "appendRGB " + hex);
+			int argb = ( rgb << 8 ) | ( rgb & 0xFF );
+			assertEquals( String.format( "%06X%02X", argb & 0xFFFFFF, argb >>> 24 ), ColorUtils.toRGBA( argb ), "toRGBA " + hex);
+			assertEquals( argb, ColorUtils.parseRGB( ColorUtils.toRGBA( argb )), "parseRGB rgba " + hex);
+		}
+		char[] chars = new char[ 16 ];
+		assertEquals( 7, ColorUtils.formatRGB( 0x7F3F1F, chars, 1 ));
+		assertEquals( 15, ColorUtils.formatRGBA( 0x807F3F1F, chars, 7 ));
+		assertEquals( "7F3F1F7F3F1F80", new String( chars, 1, 14 ));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package info.danbecker.colorcalc;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColumnPlanTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( ColumnPlanTest.class);
+
+	@Test
+    public void testExecute() {
+		ColorCalc.dist = new ColorDistanceRGBEuclidean();
+		ColorDictionary dictionary = new ColorDictionary();
+		dictionary.add( 0xFF0000, "red" );
+		dictionary.add( 0x00FF00, "green" );
+		dictionary.add( 0xF01010, "scarlet" );
+
+		String [] cols = new String[] { "Name","RGB","R","G","B","HSL","H","S","L","Owner",
+			"Dict-Name","Dict-B","Dict-Dist","Dict2-Name","Within-Count","Foo-Name","Input-Name","Missing" };
+		// The same columns from files ordering their columns differently.
+		String [][] headers = new String[][] { { "RGB","Name","Owner" }, { "Owner","Name","RGB" } };
+		String [][] data = new String[][] { { "#FF1000","Red","Fred" }, { "Fred","Red","FF1000" } };
+		for ( int file = 0; file < headers.length; file++ ) {
+			ColumnPlan plan = new ColumnPlan( cols, headers[ file ], 25.0 );
+			assertEquals( 2, plan.getNeighbours(), "neighbours");
+			String [] row = plan.execute( dictionary, data[ file ] );
+			assertArrayEquals( new String[] { "Red","FF1000","FF","10","00",
+				HSLColor.toString( new java.awt.Color( 0xFF1000 )), "003", "100", "050", "Fred",
+				"[red]","00","016.00","[scarlet]","2",null,"Red",null }, row, "row of file " + file);
+			ColorCalc.radius = 25.0;
+			assertArrayEquals( row, ColorCalc.outputRow( dictionary, cols, headers[ file ], null, data[ file ] ), "outputRow of file " + file);
+			ColorCalc.radius = 10.0;
+
+			// Typed cells give the same text.
+			RowStore store = new RowStore( cols, dictionary );
+			assertEquals( 0, plan.append( dictionary, data[ file ], store ), "appended row");
+			assertArrayEquals( row, store.getRow( 0 ), "stored row of file " + file);
+			assertEquals( RowStore.Kind.HSL, store.getKind( 5 ), "hsl kind");
+			assertEquals( RowStore.Kind.NAMES, store.getKind( 10 ), "dictionary position kind");
+			assertEquals( RowStore.Kind.DISTANCE, store.getKind( 12 ), "distance kind");
+			assertEquals( RowStore.Kind.NONE, store.getKind( 15 ), "unknown prefix kind");
+		}
+
+		// Input HSL column is copied rather than computed.
+		ColumnPlan plan = new ColumnPlan( new String[] { "HSL", "L", "Owner" }, new String[] { "Name", "RGB", "HSL", "Owner" }, 10.0 );
+		assertArrayEquals( new String[] { "120100025", "025", null }, plan.execute( dictionary, new String[] { "Dark", "008000", "120100025" }), "input hsl, short row");
+		assertEquals( 0, plan.getNeighbours(), "no neighbours");
+
+		assertThrows( IllegalArgumentException.class, () -> { plan.execute( dictionary, new String[] { "Dark", null, "120100025" }); });
+
+		// Only Within counts, a Count of a dictionary rank copies the input Count column, not the distance.
+		String [] countCols = new String[] { "Dict-Count", "Dict2-Count", "Within-Count", "Count", "Dict-Dist" };
+		ColumnPlan countPlan = new ColumnPlan( countCols, new String[] { "Name", "RGB", "Count" }, 25.0 );
+		String [] countData = new String[] { "Red", "FF1000", "7" };
+		assertArrayEquals( new String[] { "7", "7", "2", "7", "016.00" }, countPlan.execute( dictionary, countData ), "count columns");
+		RowStore store = new RowStore( countCols, dictionary );
+		countPlan.append( dictionary, countData, store );
+		assertEquals( RowStore.Kind.TEXT, store.getKind( 0 ), "copied count kind");
+		assertEquals( RowStore.Kind.COUNT, store.getKind( 2 ), "within count kind");
+	}
+}
@@ -2,10 +2,12 @@ package info.danbecker.colorcalc;
 
 import java.awt.Color;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HSLColorTest {
@@ -102,4 +104,73 @@ public class HSLColorTest {
 		assertTrue( 0 != REDHSL.hashCode());
 		assertTrue( REDHSL.hashCode() != REDTRANSHSL.hashCode());
 	}
-}	
+
+	@Test
+    public void testPacked() {
+		// Packed conversions give the same values as the Color based ones.
+		float[] hsl = new float[ 3 ];
+		char[] chars = new char[ 10 ];
+		for ( int rgb = 0; rgb < 0x1000000; rgb += 0x00F0F1 ) {
+			Color color = new Color( rgb );
+			assertTrue( Arrays.equals( HSLColor.fromRGB( color ), HSLColor.fromRGB( rgb, hsl )), "fromRGB " + rgb );
+			String nineDigits = HSLColor.toString( color );
+			assertEquals( nineDigits, HSLColor.toString( rgb ), "toString " + rgb );
+			int packed = HSLColor.rgbToHSL( rgb );
+			assertEquals( packed, HSLColor.parseHSL( nineDigits ), "parseHSL " + nineDigits );
+			assertEquals( 10, HSLColor.formatHSL( packed, chars, 1 ));
+			assertEquals( nineDigits, new String( chars, 1, 9 ), "formatHSL " + rgb );
+		}
+		for ( int h = 0; h <= 360; h += 7 ) {
+			for ( int s = 0; s <= 100; s += 3 ) {
+				for ( int l = 0; l <= 100; l += 3 ) {
+					int packed = HSLColor.packHSL( h, s, l );
+					assertEquals( h, HSLColor.hue( packed ));
+					assertEquals( s, HSLColor.saturation( packed ));
+					assertEquals( l, HSLColor.luminance( packed ));
+					assertEquals( HSLColor.toRGB( h, s, l ).getRGB(), HSLColor.hslToRGB( packed ), "hslToRGB " + h + "," + s + "," + l );
+				}
+			}
+		}
+		assertEquals( HSLColor.packHSL( 360, 100, 7 ), HSLColor.parseHSL( "360100007" ));
+		assertThrows( NumberFormatException.class, () -> HSLColor.parseHSL( "36010000x" ));
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.parseHSL( "36010000" ));
+		// Out of range parts would pack as other colors.
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.parseHSL( "512050050" ));
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.parseHSL( "361050050" ));
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.parseHSL( "120101050" ));
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.parseHSL( "120050999" ));
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.hslToRGB( 0f, 101f, 50f ));
+	}
+
+	@Test
+    public void testBatch() {
+		// Sequential below the threshold, parallel over several ranges.
+		for ( int count : new int[] { 0, 37, 3 * HSLColor.BATCH_THRESHOLD + 11 } ) {
+			int[] rgbs = new int[ count ];
+			for ( int i = 0; i < count; i++ ) {
+				rgbs[ i ] = 0xFF000000 | ( i * 0x9E3779B1 >>> 8 );
+			}
+			float[][] hsls = new float[][] { new float[ count ], new float[ count ], new float[ count ] };
+			float[][] parallelHSLs = new float[][] { new float[ count ], new float[ count ], new float[ count ] };
+			HSLColor.fromRGB( rgbs, hsls[ HSLColor.HUE_POS ], hsls[ HSLColor.SAT_POS ], hsls[ HSLColor.LUM_POS ] );
+			HSLColor.fromRGB( ForkJoinPool.commonPool(), rgbs, parallelHSLs[ HSLColor.HUE_POS ], parallelHSLs[ HSLColor.SAT_POS ], parallelHSLs[ HSLColor.LUM_POS ] );
+			int[] backRGBs = new int[ count ];
+			int[] parallelRGBs = new int[ count ];
+			HSLColor.toRGB( hsls[ HSLColor.HUE_POS ], hsls[ HSLColor.SAT_POS ], hsls[ HSLColor.LUM_POS ], backRGBs );
+			HSLColor.toRGB( ForkJoinPool.commonPool(), hsls[ HSLColor.HUE_POS ], hsls[ HSLColor.SAT_POS ], hsls[ HSLColor.LUM_POS ], parallelRGBs );
+			for ( int i = 0; i < count; i++ ) {
+				float[] hsl = HSLColor.fromRGB( new Color( rgbs[ i ] ));
+				for ( int pos = HSLColor.HUE_POS; pos <= HSLColor.LUM_POS; pos++ ) {
+					assertEquals( hsl[ pos ], hsls[ pos ][ i ], HSLColor.TOLERANCE, "fromRGB " + i );
+					assertEquals( hsl[ pos ], parallelHSLs[ pos ][ i ], HSLColor.TOLERANCE, "parallel fromRGB " + i );
+				}
+				int rgb = HSLColor.toRGB( hsl ).getRGB();
+				assertEquals( rgb, backRGBs[ i ], "toRGB " + i );
+				assertEquals( rgb, parallelRGBs[ i ], "parallel toRGB " + i );
+				assertEquals( rgbs[ i ], rgb, "round trip " + i );
+			}
+		}
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.fromRGB( new int[ 2 ], new float[ 2 ], new float[ 1 ], new float[ 2 ] ));
+		assertThrows( IllegalArgumentException.class, () -> HSLColor.toRGB( new float[ 2 ], new float[ 2 ], new float[ 2 ], null ));
+	}
+}
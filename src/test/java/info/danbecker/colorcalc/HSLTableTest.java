@@ -0,0 +1,49 @@
+package info.danbecker.colorcalc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HSLTableTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( HSLTableTest.class);
+
+	@TempDir
+	protected Path tempDir;
+
+	@Test
+    public void testOpen() throws IOException {
+		Path file = tempDir.resolve( "hsl.cht" );
+		HSLTable table = HSLTable.open( file );
+		assertEquals( HSLTable.HEADER_SIZE + 4L * HSLTable.TABLE_SIZE, Files.size( file ), "table file");
+		for ( int rgb = 0; rgb < HSLTable.TABLE_SIZE; rgb += 0x000F11 ) {
+			assertEquals( HSLColor.rgbToHSL( rgb ), table.toHSL( rgb ), "hsl of " + Integer.toHexString( rgb ));
+		}
+		assertEquals( HSLColor.packHSL( 120, 100, 25 ), table.toHSL( 0xFF008000 ), "alpha ignored");
+		int[] pixels = new int[] { 0xFFFF0000, 0x00FFFFFF, 0x7F7F7F };
+		int[] hsls = new int[ pixels.length ];
+		table.toHSL( pixels, hsls );
+		assertArrayEquals( new int[] { HSLColor.packHSL( 0, 100, 50 ), HSLColor.packHSL( 0, 0, 100 ), HSLColor.packHSL( 0, 0, 49 ) }, hsls, "pixels");
+
+		// A current table is mapped as is, a stale one is rebuilt.
+		long modified = Files.getLastModifiedTime( file ).toMillis();
+		assertEquals( table.toHSL( 0x123456 ), HSLTable.open( file ).toHSL( 0x123456 ), "reopened");
+		assertEquals( modified, Files.getLastModifiedTime( file ).toMillis(), "not rebuilt");
+		try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.WRITE )) {
+			ByteBuffer version = ByteBuffer.allocate( 4 ).putInt( HSLTable.VERSION + 1 );
+			version.flip();
+			channel.write( version, 4 );
+		}
+		assertTrue( null == HSLTable.map( file ), "stale version");
+		assertEquals( HSLColor.rgbToHSL( 0x123456 ), HSLTable.open( file ).toHSL( 0x123456 ), "rebuilt");
+	}
+}
@@ -0,0 +1,86 @@
+package info.danbecker.colorcalc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InputChunksTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( InputChunksTest.class);
+
+	public static final String TEXT = "# Basic colors\n"
+		+ "Name      RGB\r\n"
+		+ "\n"
+		+ "Red       #FF0000\r"
+		+ "   \n"
+		+ "// Grün\n"
+		+ "Grün,00FF00\n"
+		+ "A very long name that spans more than one chunk  0000FF\n"
+		+ "Last      FFFFFF";
+
+	@Test
+    public void testRead() throws Exception {
+		Path file = Files.createTempFile( "InputChunksTest", ".txt" );
+		try {
+			Files.write( file, TEXT.getBytes( StandardCharsets.UTF_8 ));
+			// Sequential reference
+			List<String> comments = new ArrayList<>();
+			List<String[]> rows = new ArrayList<>();
+			int lines;
+			try ( Stream<String> stream = Files.lines( file )) {
+				List<String> all = new ArrayList<>();
+				stream.forEach( all::add );
+				lines = all.size();
+				for ( String line : all ) {
+					if ( LineTokenizer.isBlank( line )) {
+					} else if ( InputChunks.isComment( line )) {
+						comments.add( line );
+					} else {
+						rows.add( LineTokenizer.split( line ));
+					}
+				}
+			}
+
+			for ( int chunkSize : new int[] { 1, 7, 16, 1000, InputChunks.CHUNK_SIZE } ) {
+				List<InputChunks.Chunk> chunks = InputChunks.read( file, ForkJoinPool.commonPool(), chunkSize );
+				int lineCount = 0;
+				List<String> chunkComments = new ArrayList<>();
+				List<String[]> chunkRows = new ArrayList<>();
+				for ( InputChunks.Chunk chunk : chunks ) {
+					for ( int i = 0; i < chunk.getComments().size(); i++ ) {
+						chunkComments.add( chunk.getComments().get( i ));
+						if ( 0 == lineCount + chunk.getCommentLine( i ))
+							assertEquals( "# Basic colors", chunk.getComments().get( i ), "first line");
+					}
+					chunkRows.addAll( chunk.getRows() );
+					lineCount += chunk.getLineCount();
+				}
+				assertEquals( lines, lineCount, "lines " + chunkSize);
+				assertEquals( comments, chunkComments, "comments " + chunkSize);
+				assertEquals( rows.size(), chunkRows.size(), "rows " + chunkSize);
+				for ( int i = 0; i < rows.size(); i++ ) {
+					assertArrayEquals( rows.get( i ), chunkRows.get( i ), "row " + i + " " + chunkSize);
+				}
+				assertTrue( chunkSize > 100 || chunks.size() > 1, "several chunks " + chunkSize);
+			}
+			assertEquals( 5, rows.size(), "reference rows");
+
+			Files.write( file, new byte[0] );
+			assertEquals( 0, InputChunks.read( file, ForkJoinPool.commonPool(), 16 ).get( 0 ).getLineCount(), "empty file");
+			Files.write( file, new byte[] { 'a', (byte) 0xC3, '\n' } );
+			assertThrows( java.io.IOException.class, () -> InputChunks.read( file, ForkJoinPool.commonPool(), 16 ), "bad UTF-8");
+		} finally {
+			Files.deleteIfExists( file );
+		}
+	}
+}
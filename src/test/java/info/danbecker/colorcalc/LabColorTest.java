@@ -0,0 +1,49 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LabColorTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( LabColorTest.class);
+
+	public static final double TOLERANCE = 0.01;
+
+	@Test
+    public void testToLab() {
+		assertArrayEquals( new double[] { 0.0, 0.0, 0.0 }, LabColor.toLab( Color.BLACK ), TOLERANCE, "black");
+		assertArrayEquals( new double[] { 100.0, 0.0, 0.0 }, LabColor.toLab( Color.WHITE ), TOLERANCE, "white");
+		assertArrayEquals( new double[] { 53.24, 80.09, 67.20 }, LabColor.toLab( Color.RED ), TOLERANCE, "red");
+		assertArrayEquals( new double[] { 87.73, -86.18, 83.18 }, LabColor.toLab( Color.GREEN ), TOLERANCE, "green");
+		assertArrayEquals( new double[] { 32.30, 79.19, -107.86 }, LabColor.toLab( Color.BLUE ), TOLERANCE, "blue");
+		// Dark colors use the linear segments of both sRGB and Lab.
+		assertArrayEquals( new double[] { 0.27, 0.0, 0.0 }, LabColor.toLab( new Color( 1, 1, 1 )), TOLERANCE, "near black");
+		assertEquals( "L=53.24,a=80.09,b=67.20", LabColor.toString( LabColor.toLab( Color.RED )), "string");
+		Locale locale = Locale.getDefault();
+		try {
+			Locale.setDefault( Locale.GERMANY );
+			assertEquals( "L=53.24,a=80.09,b=67.20", LabColor.toString( LabColor.toLab( Color.RED )), "string in any locale");
+		} finally {
+			Locale.setDefault( locale );
+		}
+
+		// Alpha is ignored, arrays match single conversions.
+		int[] rgbs = new int[] { 0xFF7F7F7F, 0x123456, 0xFFFFFF };
+		double[][] labs = LabColor.toLab( rgbs );
+		for ( int i = 0; i < rgbs.length; i++ ) {
+			double[] lab = LabColor.toLab( rgbs[ i ], new double[ 3 ] );
+			assertEquals( lab[ LabColor.L_POS ], labs[ LabColor.L_POS ][ i ], "L " + i);
+			assertEquals( lab[ LabColor.A_POS ], labs[ LabColor.A_POS ][ i ], "a " + i);
+			assertEquals( lab[ LabColor.B_POS ], labs[ LabColor.B_POS ][ i ], "b " + i);
+			// Scalar steps give the same values, as the Lab distances of packed colors use them.
+			double fy = LabColor.fy( rgbs[ i ] );
+			assertEquals( lab[ LabColor.L_POS ], LabColor.lightness( fy ), "scalar L " + i);
+			assertEquals( lab[ LabColor.A_POS ], LabColor.a( LabColor.fx( rgbs[ i ] ), fy ), "scalar a " + i);
+			assertEquals( lab[ LabColor.B_POS ], LabColor.b( fy, LabColor.fz( rgbs[ i ] )), "scalar b " + i);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package info.danbecker.colorcalc;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LineTokenizerTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( LineTokenizerTest.class);
+
+	@Test
+    public void testSplit() {
+		assertArrayEquals( new String[] { "Name", "RGB", "HSL" }, LineTokenizer.split( "Name  RGB\tHSL" ), "spaces and tab");
+		assertArrayEquals( new String[] { "Dark Red", "8B0000" }, LineTokenizer.split( "Dark Red,8B0000" ), "single space kept");
+		assertArrayEquals( new String[] { "Dark Red ", "8B0000" }, LineTokenizer.split( "Dark Red ,8B0000" ), "space before comma kept");
+		assertArrayEquals( new String[] { "a", "b" }, LineTokenizer.split( "   a \t  b  " ), "leading and trailing delimiters");
+		assertArrayEquals( new String[] { "a", "", "b" }, LineTokenizer.split( "a,,b" ), "empty field");
+		assertArrayEquals( new String[] { "", "a" }, LineTokenizer.split( ",,a" ), "one leading delimiter skipped");
+		assertArrayEquals( new String[] { "a", "", "" }, LineTokenizer.split( "a,\t," ), "trailing empty fields");
+		assertArrayEquals( new String[] {}, LineTokenizer.split( "" ), "empty");
+		assertArrayEquals( new String[] {}, LineTokenizer.split( "  " ), "white space");
+		assertArrayEquals( new String[] { " " }, LineTokenizer.split( " " ), "single space");
+	}
+
+	@Test
+    public void testOffsets() {
+		LineTokenizer tokenizer = new LineTokenizer();
+		StringBuilder line = new StringBuilder();
+		for ( int i = 0; i < 2 * LineTokenizer.INITIAL_CAPACITY + 1; i++ ) {
+			line.append( "f" ).append( i ).append( "," );
+		}
+		assertEquals( 2 * LineTokenizer.INITIAL_CAPACITY + 1, tokenizer.tokenize( line ), "grown count");
+		assertEquals( "f32", tokenizer.token( 32 ), "grown field");
+
+		// Offsets are reused by the next line.
+		assertEquals( 2, tokenizer.tokenize( "Red  FF0000" ), "count");
+		assertEquals( 2, tokenizer.count(), "count again");
+		assertEquals( 0, tokenizer.start( 0 ), "start 0");
+		assertEquals( 3, tokenizer.end( 0 ), "end 0");
+		assertEquals( 5, tokenizer.start( 1 ), "start 1");
+		assertEquals( 11, tokenizer.end( 1 ), "end 1");
+		assertEquals( "FF0000", tokenizer.token( 1 ), "token 1");
+	}
+
+	@Test
+    public void testBlank() {
+		assertTrue( LineTokenizer.isBlank( "" ), "empty");
+		assertTrue( LineTokenizer.isBlank( " \t \r" ), "white space");
+		assertTrue( !LineTokenizer.isBlank( "  x " ), "text");
+	}
+}
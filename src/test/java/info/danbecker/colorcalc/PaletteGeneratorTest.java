@@ -0,0 +1,141 @@
+package info.danbecker.colorcalc;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PaletteGeneratorTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( PaletteGeneratorTest.class);
+
+	public static final Path RESOURCES = Path.of( "src", "main", "resources" );
+
+	@TempDir
+	protected Path tempDir;
+
+	@Test
+    public void testParseSteps() {
+		PaletteGenerator.Step [] steps = PaletteGenerator.parseSteps( new String[] { "tone50", "Shade10..50/20", "hue120", "sat12.5" } );
+		assertEquals( 6, steps.length, "ramp expanded");
+		assertEquals( PaletteGenerator.Op.TONE, steps[ 0 ].getOp(), "op");
+		assertEquals( "tone 50", steps[ 0 ].toString(), "name");
+		assertEquals( "shade 10", steps[ 1 ].toString(), "ramp from");
+		assertEquals( "shade 30", steps[ 2 ].toString(), "ramp step");
+		assertEquals( "shade 50", steps[ 3 ].toString(), "ramp to");
+		assertEquals( 120.0f, steps[ 4 ].getAmount(), "amount");
+		assertEquals( "sat 12.5", steps[ 5 ].toString(), "fraction");
+		assertEquals( 11, PaletteGenerator.parseSteps( new String[] { "lum0..1/0.1" } ).length, "fractional ramp");
+
+		assertThrows( IllegalArgumentException.class, () -> { PaletteGenerator.parseSteps( new String[] { "tint50" } ); });
+		assertThrows( IllegalArgumentException.class, () -> { PaletteGenerator.parseSteps( new String[] { "tone" } ); });
+		assertThrows( IllegalArgumentException.class, () -> { PaletteGenerator.parseSteps( new String[] { "sat101" } ); });
+		assertThrows( IllegalArgumentException.class, () -> { PaletteGenerator.parseSteps( new String[] { "shade50..10/10" } ); });
+		assertThrows( IllegalArgumentException.class, () -> { PaletteGenerator.parseSteps( new String[] { "shade10..50/0" } ); });
+	}
+
+	@Test
+    public void testGenerate() throws IOException {
+		// Generated from the saturated colors, the hand made resources, which round some halves down.
+		int [] sats = rgbs( RESOURCES.resolve( "BasicSats.txt" ));
+		PaletteGenerator.Step [] steps = PaletteGenerator.parseSteps( new String[] { "tone50", "shade50", "sat50" } );
+		int [] palette = PaletteGenerator.generate( sats, steps );
+		assertEquals( sats.length * steps.length, palette.length, "palette size");
+		String [] resources = new String[] { "BasicTints.txt", "BasicShades.txt", "BasicTones.txt" };
+		for ( int step = 0; step < steps.length; step++ ) {
+			int [] expected = rgbs( RESOURCES.resolve( resources[ step ] ));
+			assertEquals( sats.length, expected.length, resources[ step ] + " size");
+			for ( int base = 0; base < sats.length; base++ ) {
+				int actual = palette[ base * steps.length + step ];
+				for ( int shift = 0; shift < 24; shift += 8 ) {
+					assertEquals( ( expected[ base ] >> shift ) & 0xFF, ( actual >> shift ) & 0xFF, 1,
+						resources[ step ] + " " + ColorUtils.toRGB( expected[ base ] ) + " generated " + ColorUtils.toRGB( actual ));
+				}
+			}
+		}
+
+		// Same colors as the HSLColor adjust methods, for all operations over many colors.
+		steps = PaletteGenerator.parseSteps( new String[] { "hue0..360/45", "sat0..100/25", "lum0..100/25", "shade0..100/25", "tone0..100/25" } );
+		int [] bases = new int[ 4096 ];
+		for ( int i = 0; i < bases.length; i++ ) {
+			bases[ i ] = i * 0x0FED;
+		}
+		palette = PaletteGenerator.generate( bases, steps );
+		for ( int base = 0; base < bases.length; base++ ) {
+			HSLColor hslColor = new HSLColor( new Color( bases[ base ] ));
+			for ( int step = 0; step < steps.length; step++ ) {
+				float amount = steps[ step ].getAmount();
+				Color expected = null;
+				switch ( steps[ step ].getOp() ) {
+					case HUE: expected = hslColor.adjustHue( amount ); break;
+					case SAT: expected = hslColor.adjustSaturation( amount ); break;
+					case LUM: expected = hslColor.adjustLuminance( amount ); break;
+					case SHADE: expected = hslColor.adjustShade( amount ); break;
+					case TONE: expected = hslColor.adjustTone( amount ); break;
+				}
+				assertEquals( expected.getRGB(), palette[ base * steps.length + step ], "base " + Integer.toHexString( bases[ base ] ) + " " + steps[ step ]);
+			}
+		}
+	}
+
+	@Test
+    public void testWrite() throws IOException {
+		ColorDictionary dictionary = new ColorDictionary();
+		dictionary.add( 0xFF0000, "Red" );
+		dictionary.add( 0xFF0000, "Scarlet" );
+		dictionary.add( 0x0000FF, null );
+		PaletteGenerator.Step [] steps = PaletteGenerator.parseSteps( new String[] { "tone50", "shade100" } );
+
+		Path text = tempDir.resolve( "palette.txt" );
+		assertEquals( 4, PaletteGenerator.write( text, dictionary, steps ), "text colors");
+		List<String> lines = Files.readAllLines( text );
+		assertTrue( lines.get( 0 ).startsWith( "#" ), "comment");
+		assertEquals( "Name\tRGB\tHSL", lines.get( 2 ), "headers");
+		assertEquals( "Red tone 50\t#FF8080\t000100075", lines.get( 3 ), "first name");
+		assertEquals( "Red shade 100\t#000000\t000000000", lines.get( 4 ), "shade");
+		assertEquals( "0000FF tone 50\t#8080FF\t240100075", lines.get( 5 ), "unnamed base");
+		assertEquals( 7, lines.size(), "lines");
+
+		// Read back as a dictionary.
+		ColorDictionary read = new ColorDictionary();
+		ColorCalc.dictionaryHeaders = null;
+		for ( String line : lines ) {
+			ColorCalc.addToDictionary( read, null, line );
+		}
+		assertEquals( 3, read.size(), "black shared");
+		assertEquals( "[Red shade 100, 0000FF shade 100]", read.getNames( read.indexOf( 0x000000 )).toString(), "black names");
+
+		Path compiled = tempDir.resolve( "palette.ccd" );
+		assertEquals( 4, PaletteGenerator.write( compiled, dictionary, steps ), "compiled colors");
+		assertTrue( ColorDictionaryFile.isCompiled( compiled ), "compiled");
+		ColorDictionary compiledRead = ColorDictionaryFile.read( compiled, new ColorDistanceRGBEuclidean() );
+		assertEquals( 3, compiledRead.size(), "compiled size");
+		assertEquals( "[Red tone 50]", compiledRead.getNames( compiledRead.indexOf( 0xFF8080 )).toString(), "compiled names");
+	}
+
+	/** RGB colors of a resource dictionary, in file order. */
+	protected static int [] rgbs( Path file ) throws IOException {
+		List<Integer> rgbs = new ArrayList<>();
+		int rgbIndex = -1;
+		for ( String line : Files.readAllLines( file )) {
+			if ( LineTokenizer.isBlank( line ) || InputChunks.isComment( line ))
+				continue;
+			String [] fields = LineTokenizer.split( line );
+			if ( -1 == rgbIndex ) {
+				rgbIndex = ColorCalc.arrayPosition( fields, "RGB" );
+			} else {
+				rgbs.add( ColorUtils.parseRGB( fields[ rgbIndex ].trim() ) & 0xFFFFFF );
+			}
+		}
+		return rgbs.stream().mapToInt( Integer::intValue ).toArray();
+	}
+}
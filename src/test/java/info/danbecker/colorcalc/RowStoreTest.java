@@ -0,0 +1,154 @@
+package info.danbecker.colorcalc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RowStoreTest {
+	public static final org.slf4j.Logger LOGGER =
+			org.slf4j.LoggerFactory.getLogger( RowStoreTest.class);
+
+	@Test
+    public void testCells() {
+		ColorDictionary dictionary = new ColorDictionary();
+		dictionary.add( 0xFF0000, "red" );
+		dictionary.add( 0xFF0000, "scarlet" );
+		String [] cols = new String[] { "Name", "RGB", "G", "HSL", "S", "Within-Count", "Dict-Name", "Dict-Dist", "Owner" };
+		RowStore store = new RowStore( cols, dictionary );
+		assertTrue( store.isEmpty(), "empty");
+
+		int row = store.addRow();
+		store.setText( row, 0, "Red" );
+		store.setInt( row, 1, RowStore.Kind.RGB, 0xFF1000 );
+		store.setInt( row, 2, RowStore.Kind.GREEN, 0x10 );
+		store.setInt( row, 3, RowStore.Kind.HSL, HSLColor.rgbToHSL( 0xFF1000 ));
+		store.setInt( row, 4, RowStore.Kind.SAT, 100 );
+		store.setInt( row, 5, RowStore.Kind.COUNT, 12 );
+		store.setInt( row, 6, RowStore.Kind.NAMES, 0 );
+		store.setDistance( row, 7, 16.0 );
+		assertArrayEquals( new String[] { "Red", "FF1000", "10", HSLColor.toString( 0xFF1000 ), "100", "12", "[red, scarlet]", "016.00", null },
+			store.getRow( row ), "formatted cells");
+		assertEquals( 0xFF1000, store.getRGB( row, 1 ), "rgb value");
+		assertEquals( HSLColor.rgbToHSL( 0xFF1000 ), store.getHSL( row, 3 ), "hsl value");
+
+		// Null cells, a repeated string kept once.
+		row = store.addRow();
+		store.setText( row, 0, "Red" );
+		store.setInt( row, 1, RowStore.Kind.RGB, RowStore.NULL );
+		store.setDistance( row, 7, Double.NaN );
+		assertArrayEquals( new String[] { "Red", null, null, null, null, null, null, null, null }, store.getRow( row ), "null cells");
+		assertEquals( 1, store.strings.size(), "pooled string");
+		assertEquals( RowStore.NULL, store.getRGB( row, 1 ), "null rgb");
+
+		// A column of another kind falls back to text.
+		row = store.addRow();
+		store.setText( row, 3, "120100025" );
+		assertEquals( RowStore.Kind.TEXT, store.getKind( 3 ), "widened");
+		assertEquals( HSLColor.toString( 0xFF1000 ), store.getText( 0, 3 ), "widened text");
+		assertEquals( HSLColor.packHSL( 120, 100, 25 ), store.getHSL( row, 3 ), "parsed hsl");
+		assertEquals( 3, store.size(), "size");
+
+		store.clear();
+		assertEquals( 0, store.size(), "cleared");
+		assertEquals( RowStore.Kind.NONE, store.getKind( 1 ), "cleared kind");
+	}
+
+	@Test
+    public void testAddAll() {
+		String [] cols = new String[] { "Name", "RGB", "HSL", "Dict-Dist" };
+		RowStore first = RowStore.of( cols, Arrays.asList( new String[][] { { "Red", "FF0000" }, { "Blue", "0000FF", "240100050" } } ));
+		RowStore second = new RowStore( cols, null );
+		int row = second.addRow();
+		second.setText( row, 0, "Green" );
+		second.setInt( row, 1, RowStore.Kind.RGB, 0x00FF00 );
+		second.setDistance( row, 3, 2.5 );
+		row = second.addRow();
+		second.setText( row, 0, "Blue" );
+
+		RowStore store = new RowStore( cols, null );
+		store.addAll( second );
+		assertEquals( RowStore.Kind.RGB, store.getKind( 1 ), "kind taken");
+		store.addAll( first );
+		assertEquals( 4, store.size(), "size");
+		assertEquals( RowStore.Kind.TEXT, store.getKind( 1 ), "text and rgb");
+		assertEquals( RowStore.Kind.DISTANCE, store.getKind( 3 ), "none and distance");
+		assertArrayEquals( new String[] { "Green", "00FF00", null, "002.50" }, store.getRow( 0 ), "row 0");
+		assertArrayEquals( new String[] { "Blue", null, null, null }, store.getRow( 1 ), "row 1");
+		assertArrayEquals( new String[] { "Red", "FF0000", null, null }, store.getRow( 2 ), "row 2");
+		assertArrayEquals( new String[] { "Blue", "0000FF", "240100050", null }, store.getRow( 3 ), "row 3");
+		// Green, Blue, 00FF00 widened, then Red, FF0000, 0000FF, 240100050.
+		assertEquals( 7, store.strings.size(), "pooled strings");
+	}
+
+	@Test
+    public void testSort() {
+		// Typed rows sort as their text rows, stable, nulls after others.
+		String [] cols = new String[] { "Name", "RGB", "H", "Dict-Dist", "Within-Count" };
+		RowStore store = new RowStore( cols, null );
+		List<String[]> rows = new ArrayList<>();
+		Random random = new Random( 42 );
+		for ( int i = 0; i < 1000; i++ ) {
+			int row = store.addRow();
+			int rgb = random.nextInt( 8 ) * 0x204020;
+			store.setText( row, 0, "name" + random.nextInt( 50 ) );
+			store.setInt( row, 1, RowStore.Kind.RGB, rgb );
+			store.setInt( row, 2, RowStore.Kind.HUE, HSLColor.hue( HSLColor.rgbToHSL( rgb )));
+			store.setDistance( row, 3, random.nextInt( 2000 ) / 64.0 );
+			store.setInt( row, 4, RowStore.Kind.COUNT, random.nextInt( 12 ));
+			rows.add( store.getRow( row ));
+		}
+		for ( String [] sorts : new String[][] { { "H--", "Name" }, { "Dict-Dist", "RGB--" }, { "Within-Count", "Dict-Dist--" } } ) {
+			ColorFieldComparator comparator = new ColorFieldComparator( cols, sorts );
+			List<String[]> expected = new ArrayList<>( rows );
+			Collections.sort( expected, comparator );
+			RowStore sorted = new RowStore( cols, null );
+			sorted.addAll( store );
+			sorted.sort( comparator );
+			for ( int row = 0; row < expected.size(); row++ ) {
+				assertArrayEquals( expected.get( row ), sorted.getRow( row ), Arrays.toString( sorts ) + " row " + row );
+			}
+		}
+
+		GroupComparator groups = new GroupComparator( cols, new String[] { "H<<090" } );
+		List<String[]> expected = new ArrayList<>( rows );
+		Collections.sort( expected, groups );
+		store.sort( groups );
+		for ( int row = 0; row < expected.size(); row++ ) {
+			assertArrayEquals( expected.get( row ), store.getRow( row ), "group row " + row );
+		}
+
+		RowStore nulls = RowStore.of( new String[] { "Name" }, Arrays.asList( new String[][] { { null }, { "b" }, { "a" } } ));
+		nulls.sort( ( store1, row1, row2 ) -> store1.compare( row1, row2, 0 ));
+		assertEquals( "a", nulls.getText( 0, 0 ), "first");
+		assertNull( nulls.getText( 2, 0 ), "null last");
+	}
+
+	@Test
+    public void testCompareDistance() {
+		// Distances compare as their text, near rounding halves and past 999 too.
+		Random random = new Random( 7 );
+		double [] distances = new double[ 4000 ];
+		for ( int i = 0; i < distances.length; i++ ) {
+			switch ( i % 4 ) {
+				case 0: distances[ i ] = random.nextDouble() * 1200.0; break;
+				case 1: distances[ i ] = random.nextInt( 100000 ) / 100.0 + 0.005; break;
+				case 2: distances[ i ] = random.nextInt( 2000 ) / 100.0; break;
+				default: distances[ i ] = Math.sqrt( random.nextInt( 3 * 255 * 255 )); break;
+			}
+		}
+		for ( int i = 0; i < distances.length; i++ ) {
+			double distance1 = distances[ i ];
+			double distance2 = distances[ random.nextInt( distances.length ) ];
+			int expected = Integer.signum( ColorCalc.formatDistance( distance1 ).compareTo( ColorCalc.formatDistance( distance2 )));
+			assertEquals( expected, Integer.signum( RowStore.compareDistance( distance1, distance2 )), distance1 + " and " + distance2 );
+		}
+	}
+}